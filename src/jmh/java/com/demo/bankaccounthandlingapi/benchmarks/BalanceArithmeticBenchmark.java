@@ -0,0 +1,46 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.Balance;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of {@link Balance#deposit} and {@link Balance#debit}, without any persistence.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BalanceArithmeticBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("12.34");
+
+    private Balance balance;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        balance = new Balance()
+                .setAccount(new Account().setId(1L))
+                .setCurrency("EUR")
+                .setAmount(new BigDecimal("1000000000.00"));
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        balance.deposit(AMOUNT);
+        return balance.getAmount();
+    }
+
+    @Benchmark
+    public BigDecimal debit() {
+        // Put the amount back so the balance never runs dry, whatever the iteration length
+        balance.debit(AMOUNT);
+        balance.setAmount(balance.getAmount().add(AMOUNT));
+        return balance.getAmount();
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit and debit throughput when every thread hits the same account and currency,
+ * comparing the lock-read-modify-write JPA path with the single statement atomic path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class BalanceContentionBenchmark {
+
+    private static final String CURRENCY = "EUR";
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"false", "true"})
+    public boolean atomicMutations;
+
+    private BenchmarkEnvironment environment;
+    private BalanceService balanceService;
+    private Long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start("balance.atomic-mutations.enabled=" + atomicMutations);
+        balanceService = environment.getBean(BalanceService.class);
+        accountId = environment.getBean(AccountRepository.class).save(new Account()).getId();
+        // Large enough that the debit benchmark never runs dry
+        balanceService.deposit(accountId, CURRENCY, new BigDecimal("1000000000.00"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public BalanceResponse depositHotAccount() {
+        return balanceService.deposit(accountId, CURRENCY, AMOUNT);
+    }
+
+    @Benchmark
+    public BalanceResponse debitHotAccount() {
+        return balanceService.debit(accountId, CURRENCY, AMOUNT);
+    }
+}
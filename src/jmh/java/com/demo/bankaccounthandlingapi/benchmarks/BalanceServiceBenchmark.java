@@ -0,0 +1,80 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each {@link BalanceService} operation without contention: every benchmark thread works on
+ * its own account, so the numbers show the cost of the database round trips rather than lock waits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class BalanceServiceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Environment {
+
+        @Param({"false", "true"})
+        public boolean atomicMutations;
+
+        BenchmarkEnvironment environment;
+        BalanceService balanceService;
+        AccountRepository accountRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            environment = BenchmarkEnvironment.start("balance.atomic-mutations.enabled=" + atomicMutations);
+            balanceService = environment.getBean(BalanceService.class);
+            accountRepository = environment.getBean(AccountRepository.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            environment.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadAccount {
+
+        Long accountId;
+
+        @Setup(Level.Trial)
+        public void setUp(Environment environment) {
+            accountId = environment.accountRepository.save(new Account()).getId();
+            environment.balanceService.deposit(accountId, "EUR", new BigDecimal("1000000000.00"));
+            environment.balanceService.deposit(accountId, "USD", new BigDecimal("1000000000.00"));
+        }
+    }
+
+    @Benchmark
+    public BalanceResponse deposit(Environment environment, ThreadAccount account) {
+        return environment.balanceService.deposit(account.accountId, "EUR", AMOUNT);
+    }
+
+    @Benchmark
+    public BalanceResponse debit(Environment environment, ThreadAccount account) {
+        return environment.balanceService.debit(account.accountId, "EUR", AMOUNT);
+    }
+
+    @Benchmark
+    public BalanceResponse exchange(Environment environment, ThreadAccount account) {
+        return environment.balanceService.exchange(account.accountId, "USD", "EUR", AMOUNT);
+    }
+
+    @Benchmark
+    public BalanceResponse getBalance(Environment environment, ThreadAccount account) {
+        return environment.balanceService.getBalance(account.accountId, "EUR");
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.BankAccountHandlingApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Postgres container plus a non-web application context for service level benchmarks.
+ * Each trial gets a fresh database so results do not depend on what earlier trials left behind.
+ * Setting {@code BENCHMARK_DATASOURCE_URL} (with {@code _USERNAME} and {@code _PASSWORD}) runs against
+ * that database instead, e.g. a local Postgres tuned like production.
+ */
+final class BenchmarkEnvironment implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkEnvironment(PostgreSQLContainer<?> postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static BenchmarkEnvironment start(String... properties) {
+        String externalUrl = System.getenv("BENCHMARK_DATASOURCE_URL");
+        PostgreSQLContainer<?> postgres = null;
+        List<String> allProperties = new ArrayList<>();
+        if (externalUrl != null) {
+            allProperties.add("spring.datasource.url=" + externalUrl);
+            allProperties.add("spring.datasource.username=" + System.getenv("BENCHMARK_DATASOURCE_USERNAME"));
+            allProperties.add("spring.datasource.password=" + System.getenv("BENCHMARK_DATASOURCE_PASSWORD"));
+        } else {
+            postgres = new PostgreSQLContainer<>("postgres:17-alpine")
+                    .withDatabaseName("bankdb")
+                    .withUsername("bench")
+                    .withPassword("bench");
+            postgres.start();
+            allProperties.add("spring.datasource.url=" + postgres.getJdbcUrl());
+            allProperties.add("spring.datasource.username=" + postgres.getUsername());
+            allProperties.add("spring.datasource.password=" + postgres.getPassword());
+        }
+
+        allProperties.addAll(List.of(
+                "external.logging.url=http://localhost:1",
+                "external.logging.mode=SYNC",
+                "logging.level.root=WARN"));
+        allProperties.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BankAccountHandlingApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(allProperties.toArray(String[]::new))
+                .run();
+        return new BenchmarkEnvironment(postgres, context);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.dtos.DepositRequest;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialization of the request and response bodies of the balance endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DtoJsonBenchmark {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final BalanceResponse balanceResponse = new BalanceResponse("EUR", new BigDecimal("1234.56"));
+    private final String depositRequestJson = "{\"currency\":\"USD\",\"amount\":100.50}";
+
+    @Benchmark
+    public DepositRequest readDepositRequest() {
+        return jsonMapper.readValue(depositRequestJson, DepositRequest.class);
+    }
+
+    @Benchmark
+    public String writeBalanceResponse() {
+        return jsonMapper.writeValueAsString(balanceResponse);
+    }
+}
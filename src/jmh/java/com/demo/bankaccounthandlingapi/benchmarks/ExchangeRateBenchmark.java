@@ -0,0 +1,53 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.rates.StaticExchangeRateProvider;
+import com.demo.bankaccounthandlingapi.services.ExchangeRateService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single conversion with the precomputed cross-rate snapshot, against the previous
+ * implementation that looked both rates up in a map and divided them on every call.
+ * Run with -prof gc to compare allocations per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExchangeRateBenchmark {
+
+    private static final Map<Currency, BigDecimal> LEGACY_RATES_TO_EUR = new StaticExchangeRateProvider().loadRatesToEur();
+
+    private final Currency from = Currency.getInstance("USD");
+    private final Currency to = Currency.getInstance("SEK");
+    private final BigDecimal amount = new BigDecimal("123.45");
+
+    private ExchangeRateService exchangeRateService;
+
+    @Setup
+    public void setUp() {
+        exchangeRateService = new ExchangeRateService(new StaticExchangeRateProvider());
+    }
+
+    @Benchmark
+    public BigDecimal snapshotConvert() {
+        return exchangeRateService.convert(from, to, amount);
+    }
+
+    @Benchmark
+    public BigDecimal legacyConvert() {
+        if (!LEGACY_RATES_TO_EUR.containsKey(from) || !LEGACY_RATES_TO_EUR.containsKey(to)) {
+            throw new IllegalStateException();
+        }
+        BigDecimal ratio = LEGACY_RATES_TO_EUR.get(to).divide(LEGACY_RATES_TO_EUR.get(from), MathContext.DECIMAL128);
+        return amount.multiply(ratio).setScale(2, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,76 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.external.ExternalLoggingService;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Time to push a burst of requests through the external log call while the remote system answers slowly.
+ * The platform variant gets Tomcat's default 200 worker threads, roughly the stack memory a default
+ * deployment budgets for request handling; the virtual variant gives every request its own virtual thread
+ * for about the same footprint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class SlowExternalCallBenchmark {
+
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"2000"})
+    public int requests;
+
+    @Param({"100"})
+    public int remoteLatencyMs;
+
+    private WireMockServer remote;
+    private ExternalLoggingService externalLoggingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        remote = new WireMockServer(wireMockConfig().dynamicPort().containerThreads(4000).jettyAcceptQueueSize(4000));
+        remote.start();
+        remote.stubFor(any(anyUrl()).willReturn(ok().withFixedDelay(remoteLatencyMs)));
+        // Bulkhead wide enough for the whole burst, the benchmark compares threading models, not load shedding
+        externalLoggingService = new ExternalLoggingService(remote.baseUrl(), 2000, 2000, requests,
+                50, 20, 10000, 5000, new SimpleMeterRegistry());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        remote.stop();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        try (ExecutorService executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(externalLoggingService::sendLog));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return futures.size();
+        }
+    }
+}
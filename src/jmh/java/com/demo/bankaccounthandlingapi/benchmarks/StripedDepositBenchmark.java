@@ -0,0 +1,54 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit throughput on a single hot account by number of balance slots. {@code 0} is the unstriped atomic path
+ * every deposit of which updates the one balance row; with striping, deposits only contend per slot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class StripedDepositBenchmark {
+
+    private static final String CURRENCY = "EUR";
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"0", "2", "8", "32"})
+    public int slots;
+
+    private BenchmarkEnvironment environment;
+    private BalanceService balanceService;
+    private Long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start(
+                "balance.atomic-mutations.enabled=true",
+                "balance.striping.enabled=" + (slots > 0),
+                "balance.striping.slots=" + Math.max(slots, 1));
+        balanceService = environment.getBean(BalanceService.class);
+        accountId = environment.getBean(AccountRepository.class).save(new Account()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public BalanceResponse depositHotAccount() {
+        return balanceService.deposit(accountId, CURRENCY, AMOUNT);
+    }
+}
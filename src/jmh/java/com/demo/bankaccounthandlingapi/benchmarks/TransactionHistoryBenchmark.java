@@ -0,0 +1,86 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionPageResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.TransactionCursor;
+import com.demo.bankaccounthandlingapi.services.TransactionHistoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one history page at increasing depth for an account with millions of transactions.
+ * {@code keyset} is the endpoint's seek on (created_at, id) and should stay flat from page 1 to page 10,000;
+ * {@code offset} is the LIMIT/OFFSET equivalent for comparison, which reads and discards every earlier row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class TransactionHistoryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"2000000"})
+    public int transactions;
+
+    @Param({"1", "100", "10000"})
+    public int page;
+
+    private BenchmarkEnvironment environment;
+    private TransactionHistoryService transactionHistoryService;
+    private JdbcTemplate jdbcTemplate;
+    private Long accountId;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        transactionHistoryService = environment.getBean(TransactionHistoryService.class);
+        jdbcTemplate = environment.getBean(JdbcTemplate.class);
+        accountId = environment.getBean(AccountRepository.class).save(new Account()).getId();
+
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type, created_at)
+                SELECT ?, gen_random_uuid(), 1.00, 'EUR', 'DEPOSIT', TIMESTAMP '2025-01-01' + g * INTERVAL '1 second'
+                FROM generate_series(1, ?) AS g
+                """, accountId, transactions);
+        jdbcTemplate.execute("ANALYZE transaction_log");
+
+        // The cursor a client would hold after reading the pages before this one
+        if (page > 1) {
+            cursor = jdbcTemplate.queryForObject("""
+                    SELECT created_at, id FROM transaction_log WHERE account_id = ?
+                    ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+                    """, (rs, rowNum) -> new TransactionCursor(
+                    rs.getObject("created_at", LocalDateTime.class).toInstant(ZoneOffset.UTC), rs.getLong("id")).encode(),
+                    accountId, (page - 1) * PAGE_SIZE - 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public TransactionPageResponse keyset() {
+        return transactionHistoryService.getTransactions(accountId, null, null, null, null, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> offset() {
+        return jdbcTemplate.queryForList("""
+                SELECT id, reference_id, type, currency, amount, created_at FROM transaction_log WHERE account_id = ?
+                ORDER BY created_at DESC, id DESC OFFSET ? LIMIT ?
+                """, accountId, (page - 1) * PAGE_SIZE, PAGE_SIZE);
+    }
+}
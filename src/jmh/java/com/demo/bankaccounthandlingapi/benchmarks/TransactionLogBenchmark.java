@@ -0,0 +1,65 @@
+package com.demo.bankaccounthandlingapi.benchmarks;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.TransactionLog;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
+import com.demo.bankaccounthandlingapi.repositories.TransactionLogRepository;
+import com.demo.bankaccounthandlingapi.services.TransactionLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building a log entry in {@link TransactionLogService#logTransaction}, with the repository replaced
+ * by a stub that only keeps the entity, so only the construction itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionLogBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("12.34");
+
+    private final Account account = new Account().setId(1L);
+    private TransactionLogService transactionLogService;
+    private TransactionLog lastSaved;
+
+    @Setup
+    public void setUp() {
+        TransactionLogRepository repository = (TransactionLogRepository) Proxy.newProxyInstance(
+                TransactionLogRepository.class.getClassLoader(),
+                new Class<?>[]{TransactionLogRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("save")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lastSaved = (TransactionLog) args[0];
+                    return lastSaved;
+                });
+        transactionLogService = new TransactionLogService(repository, new BalanceMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public TransactionLog logTransaction() {
+        transactionLogService.logTransaction(account, TransactionType.WITHDRAWAL, AMOUNT, "EUR");
+        return lastSaved;
+    }
+
+    @Benchmark
+    public TransactionLog constructOnly() {
+        return new TransactionLog()
+                .setAccount(account)
+                .setReferenceId(UUID.randomUUID())
+                .setAmount(AMOUNT)
+                .setCurrency("EUR")
+                .setType(TransactionType.WITHDRAWAL);
+    }
+}
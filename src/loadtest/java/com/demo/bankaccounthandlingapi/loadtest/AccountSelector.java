@@ -0,0 +1,38 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the account of the next request. The Zipfian variant makes the first accounts far hotter than the rest,
+ * so a handful of rows receive most of the writes, which is where row lock contention shows up.
+ */
+interface AccountSelector {
+
+    long next();
+
+    static AccountSelector create(String distribution, List<Long> accountIds, double zipfExponent) {
+        long[] ids = accountIds.stream().mapToLong(Long::longValue).toArray();
+        return switch (distribution) {
+            case "uniform" -> () -> ids[ThreadLocalRandom.current().nextInt(ids.length)];
+            case "zipf" -> zipfian(ids, zipfExponent);
+            default -> throw new IllegalArgumentException("Unknown distribution " + distribution);
+        };
+    }
+
+    private static AccountSelector zipfian(long[] ids, double exponent) {
+        // Cumulative distribution over ranks, sampled with a binary search
+        double[] cumulative = new double[ids.length];
+        double sum = 0;
+        for (int rank = 0; rank < ids.length; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        double total = sum;
+        return () -> {
+            int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble() * total);
+            return ids[Math.min(index < 0 ? -index - 1 : index, ids.length - 1)];
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Stand-in for the external logging system that answers every call after a fixed delay.
+ * Point {@code external.logging.url} of the instance under test at it.
+ */
+final class ExternalLogStub implements AutoCloseable {
+
+    private final WireMockServer server;
+
+    ExternalLogStub(int port, Duration latency) {
+        server = new WireMockServer(wireMockConfig().port(port).containerThreads(200));
+        server.start();
+        server.stubFor(any(anyUrl()).willReturn(ok().withFixedDelay(Math.toIntExact(latency.toMillis()))));
+    }
+
+    String url() {
+        return server.baseUrl() + "/log";
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
@@ -0,0 +1,153 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a running instance through the balance endpoints and prints latency percentiles, throughput and
+ * a breakdown of response statuses. Run with {@code ./gradlew loadTest -PloadTestArgs="--scenario=hot-account"},
+ * see {@link LoadOptions} for the scenarios and options.
+ */
+public final class LoadGenerator {
+
+    private static final Pattern ACCOUNT_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final BigDecimal SEED_AMOUNT = new BigDecimal("1000000.00");
+
+    private final LoadOptions options;
+    private final HttpClient httpClient;
+    private final LoadReport report = new LoadReport();
+
+    private LoadGenerator(LoadOptions options, HttpClient httpClient) {
+        this.options = options;
+        this.httpClient = httpClient;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        ExternalLogStub stub = null;
+        if (options.stubPort() > 0) {
+            stub = new ExternalLogStub(options.stubPort(), options.stubLatency());
+            System.out.printf("External logging stand-in listening at %s with %d ms latency%n",
+                    stub.url(), options.stubLatency().toMillis());
+        }
+        try (HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build()) {
+            new LoadGenerator(options, httpClient).run();
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Creating and funding %d accounts at %s%n", options.accounts(), options.baseUrl());
+        AccountSelector accounts = AccountSelector.create(options.distribution(), createAccounts(), options.zipfExponent());
+        OperationMix mix = new OperationMix(options.mix());
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        if (options.openLoop()) {
+            runOpenLoop(accounts, mix, start, measureFrom, end);
+        } else {
+            runClosedLoop(accounts, mix, measureFrom, end);
+        }
+        report.print(System.out, options, end - measureFrom);
+    }
+
+    // Each worker sends its next request as soon as the previous one returns, so load drops when the server slows down
+    private void runClosedLoop(AccountSelector accounts, OperationMix mix, long measureFrom, long end) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.threads(); i++) {
+            workers.add(Thread.ofPlatform().name("load-" + i).start(() -> {
+                while (System.nanoTime() < end) {
+                    long sent = System.nanoTime();
+                    Operation operation = mix.next();
+                    int status = send(operation, accounts.next());
+                    if (sent >= measureFrom) {
+                        report.record(operation, status, System.nanoTime() - sent);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    // Requests are issued on a fixed schedule whatever the response times, and latency is measured from the
+    // scheduled send time, so queueing behind a slow server is counted instead of hidden (coordinated omission)
+    private void runOpenLoop(AccountSelector accounts, OperationMix mix, long start, long measureFrom, long end) {
+        long interval = 1_000_000_000L / options.ratePerSecond();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long scheduled = start; scheduled < end; scheduled += interval) {
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                long intended = scheduled;
+                executor.execute(() -> {
+                    Operation operation = mix.next();
+                    int status = send(operation, accounts.next());
+                    if (intended >= measureFrom) {
+                        report.record(operation, status, System.nanoTime() - intended);
+                    }
+                });
+            }
+        }
+    }
+
+    private int send(Operation operation, long accountId) {
+        BigDecimal amount = BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 2000), 2);
+        try {
+            return post(operation.path(accountId), operation.body(amount)).statusCode();
+        } catch (IOException e) {
+            return LoadReport.IO_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return LoadReport.IO_ERROR;
+        }
+    }
+
+    private List<Long> createAccounts() throws IOException, InterruptedException {
+        List<Long> accountIds = new ArrayList<>(options.accounts());
+        for (int i = 0; i < options.accounts(); i++) {
+            HttpResponse<String> response = post("/accounts", "");
+            Matcher matcher = ACCOUNT_ID.matcher(response.body());
+            if (response.statusCode() != 200 || !matcher.find()) {
+                throw new IllegalStateException("Could not create account: %d %s".formatted(response.statusCode(), response.body()));
+            }
+            long accountId = Long.parseLong(matcher.group(1));
+            // Enough in both currencies that withdrawals and exchanges rarely run dry during the test
+            post(Operation.DEPOSIT.path(accountId), Operation.DEPOSIT.body(SEED_AMOUNT));
+            post(Operation.DEPOSIT.path(accountId), "{\"currency\":\"USD\",\"amount\":%s}".formatted(SEED_AMOUNT.toPlainString()));
+            accountIds.add(accountId);
+        }
+        return accountIds;
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.baseUrl() + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options as {@code --name=value}. A scenario preset fills in defaults that any explicit option overrides:
+ * <ul>
+ *     <li>{@code uniform} - closed loop, accounts picked uniformly, withdrawals only</li>
+ *     <li>{@code hot-account} - closed loop, Zipfian account skew, withdrawals only</li>
+ *     <li>{@code mix} - closed loop, uniform accounts, withdraw/deposit/exchange mix</li>
+ *     <li>{@code open-loop} - constant arrival rate regardless of response times, uniform accounts, mix</li>
+ * </ul>
+ */
+record LoadOptions(String baseUrl, String scenario, int accounts, String distribution, double zipfExponent,
+                   Map<Operation, Integer> mix, int threads, int ratePerSecond, Duration duration, Duration warmup,
+                   int stubPort, Duration stubLatency) {
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String scenario = values.getOrDefault("scenario", "uniform");
+        Map<String, String> preset = switch (scenario) {
+            case "uniform" -> Map.of("distribution", "uniform", "mix", "withdraw:100");
+            case "hot-account" -> Map.of("distribution", "zipf", "mix", "withdraw:100");
+            case "mix" -> Map.of("distribution", "uniform", "mix", "withdraw:50,deposit:35,exchange:15");
+            case "open-loop" -> Map.of("distribution", "uniform", "mix", "withdraw:50,deposit:35,exchange:15", "rate", "500");
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        };
+        Map<String, String> merged = new HashMap<>(preset);
+        merged.putAll(values);
+
+        return new LoadOptions(
+                merged.getOrDefault("base-url", "http://localhost:8080"),
+                scenario,
+                Integer.parseInt(merged.getOrDefault("accounts", "1000")),
+                merged.get("distribution"),
+                Double.parseDouble(merged.getOrDefault("zipf-exponent", "1.1")),
+                parseMix(merged.get("mix")),
+                Integer.parseInt(merged.getOrDefault("threads", "32")),
+                Integer.parseInt(merged.getOrDefault("rate", "0")),
+                Duration.ofSeconds(Long.parseLong(merged.getOrDefault("duration-s", "60"))),
+                Duration.ofSeconds(Long.parseLong(merged.getOrDefault("warmup-s", "10"))),
+                Integer.parseInt(merged.getOrDefault("stub-port", "0")),
+                Duration.ofMillis(Long.parseLong(merged.getOrDefault("stub-latency-ms", "50"))));
+    }
+
+    boolean openLoop() {
+        return ratePerSecond > 0;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] weight = part.split(":");
+            weights.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,74 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per operation and response counts per status, safe to record from many threads.
+ * Latencies are kept in microseconds with three significant digits.
+ */
+final class LoadReport {
+
+    // Pseudo status for requests that got no HTTP response at all
+    static final int IO_ERROR = -1;
+
+    private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    LoadReport() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(MAX_LATENCY_US, 3));
+        }
+    }
+
+    void record(Operation operation, int status, long latencyNanos) {
+        recorders.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_US));
+        statusCounts.computeIfAbsent(status, it -> new LongAdder()).increment();
+    }
+
+    void print(PrintStream out, LoadOptions options, long elapsedNanos) {
+        Histogram total = new Histogram(MAX_LATENCY_US, 3);
+        Map<Operation, Histogram> perOperation = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            perOperation.put(operation, histogram);
+            total.add(histogram);
+        });
+        double seconds = elapsedNanos / 1_000_000_000.0;
+
+        out.printf("%nScenario %s: %s accounts (%s), %s%n", options.scenario(), options.accounts(), options.distribution(),
+                options.openLoop() ? "open loop at " + options.ratePerSecond() + " req/s" : "closed loop with " + options.threads() + " threads");
+        out.printf("Requests: %d in %.1f s, throughput %.1f req/s%n", total.getTotalCount(), seconds, total.getTotalCount() / seconds);
+        out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        perOperation.forEach((operation, histogram) -> printLatencies(out, operation.name().toLowerCase(), histogram));
+        printLatencies(out, "all", total);
+
+        out.println("Responses by status:");
+        new TreeMap<>(statusCounts).forEach((status, count) ->
+                out.printf("  %-10s %10d%n", status == IO_ERROR ? "io-error" : status, count.sum()));
+    }
+
+    private static void printLatencies(PrintStream out, String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf("%-10s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n", label, histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,40 @@
+package com.demo.bankaccounthandlingapi.loadtest;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance endpoint calls the generator can issue, with the request body for one call.
+ */
+enum Operation {
+
+    WITHDRAW("/withdraw") {
+        @Override
+        String body(BigDecimal amount) {
+            return "{\"currency\":\"EUR\",\"amount\":%s}".formatted(amount.toPlainString());
+        }
+    },
+    DEPOSIT("/deposit") {
+        @Override
+        String body(BigDecimal amount) {
+            return "{\"currency\":\"EUR\",\"amount\":%s}".formatted(amount.toPlainString());
+        }
+    },
+    EXCHANGE("/exchange") {
+        @Override
+        String body(BigDecimal amount) {
+            return "{\"fromCurrency\":\"EUR\",\"toCurrency\":\"USD\",\"amount\":%s}".formatted(amount.toPlainString());
+        }
+    };
+
+    private final String path;
+
+    Operation(String path) {
+        this.path = path;
+    }
+
+    String path(long accountId) {
+        return "/" + accountId + "/balance" + path;
+    }
+
+    abstract String body(BigDecimal amount);
+}
@@ -0,0 +1,117 @@
+package com.demo.bankaccounthandlingapi.caching;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Balance;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded read-through cache of balances by account and currency. Writers publish the committed value
+ * after their transaction commits; every entry carries the balance version, and an entry is only ever
+ * replaced by one with a higher version, so a slow reader or a late writer cannot put back a stale amount.
+ * Meters are published as {@code cache.*} with {@code cache=balances}.
+ */
+@Component
+public class BalanceCache {
+
+    // Version of a cached "no balance row yet", below the 0 a newly inserted row starts at
+    private static final long ABSENT_VERSION = -1;
+
+    private final Cache<Key, CachedBalance> cache;
+    private final boolean enabled;
+
+    public BalanceCache(MeterRegistry meterRegistry,
+                        @Value("${balance.cache.enabled:false}") boolean enabled,
+                        @Value("${balance.cache.max-size:100000}") long maxSize,
+                        @Value("${balance.cache.ttl-ms:30000}") long ttlMs) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                // Safety net for writes made outside this instance, which never reach afterCommit here
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "balances");
+    }
+
+    public Optional<BalanceResponse> get(Long accountId, String currency) {
+        return get(accountId, currency, ABSENT_VERSION);
+    }
+
+    /**
+     * Cached balance, provided it is at least at {@code minVersion}.
+     */
+    public Optional<BalanceResponse> get(Long accountId, String currency, long minVersion) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(new Key(accountId, currency)))
+                .filter(cached -> cached.version() >= minVersion)
+                .map(cached -> new BalanceResponse(currency, cached.amount()));
+    }
+
+    /**
+     * Caches a value read from the database. {@code balance} may be {@code null} when the account
+     * has no row for the currency yet.
+     */
+    public void putLoaded(Long accountId, String currency, Balance balance) {
+        if (balance == null) {
+            putIfNewer(accountId, currency, BigDecimal.ZERO, ABSENT_VERSION);
+        } else {
+            putIfNewer(accountId, currency, balance.getAmount(), balance.getVersion());
+        }
+    }
+
+    /**
+     * Publishes a balance modified through JPA once the transaction commits. The entity is read only then,
+     * because its version is incremented by the flush that happens during commit.
+     */
+    public void updateAfterCommit(Balance balance) {
+        Long accountId = balance.getAccount().getId();
+        afterCommit(() -> putIfNewer(accountId, balance.getCurrency(), balance.getAmount(), balance.getVersion()));
+    }
+
+    public void updateAfterCommit(Long accountId, String currency, BigDecimal amount, long version) {
+        afterCommit(() -> putIfNewer(accountId, currency, amount, version));
+    }
+
+    private void afterCommit(Runnable update) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private void putIfNewer(Long accountId, String currency, BigDecimal amount, Long version) {
+        if (!enabled || version == null) {
+            return;
+        }
+        cache.asMap().merge(new Key(accountId, currency), new CachedBalance(amount, version),
+                (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+    }
+
+    private record Key(Long accountId, String currency) {
+    }
+
+    private record CachedBalance(BigDecimal amount, long version) {
+    }
+}
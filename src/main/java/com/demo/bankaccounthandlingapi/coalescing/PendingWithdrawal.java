@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.coalescing;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService.PendingKey;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One caller's withdrawal inside a coalesced batch. The batch handler completes {@code result}
+ * with the balance after this withdrawal, or with the exception that rejected it. A non-null {@code idempotencyKey}
+ * is written in the batch's transaction together with the withdrawal.
+ */
+public record PendingWithdrawal(String currency, BigDecimal amount, PendingKey idempotencyKey,
+                                CompletableFuture<BalanceResponse> result) {
+}
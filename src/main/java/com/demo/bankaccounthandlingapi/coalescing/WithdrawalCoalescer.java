@@ -0,0 +1,135 @@
+package com.demo.bankaccounthandlingapi.coalescing;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService.PendingKey;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects concurrent withdrawals for the same account into one batch. The first caller becomes the leader:
+ * it keeps the batch open for the configured window (or until it is full), then runs the whole batch
+ * through the handler on its own thread. Every other caller just waits for its own result.
+ */
+@Component
+public class WithdrawalCoalescer {
+
+    private final ConcurrentMap<Long, Batch> openBatches = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+    private final boolean enabled;
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    public WithdrawalCoalescer(MeterRegistry meterRegistry,
+                               @Value("${balance.debit-coalescing.enabled:false}") boolean enabled,
+                               @Value("${balance.debit-coalescing.window-ms:2}") long windowMs,
+                               @Value("${balance.debit-coalescing.max-batch-size:32}") int maxBatchSize) {
+        this.batchSizes = DistributionSummary.builder("balance.debit.coalesced.batch.size")
+                .description("Withdrawals applied per coalesced transaction")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the withdrawal to the open batch of the account and blocks until that batch has been applied.
+     * The handler receives the withdrawals in arrival order and must complete each of their results.
+     * The caller's {@code idempotencyKey}, if any, travels with the withdrawal since the leader's thread commits it.
+     */
+    public BalanceResponse submit(Long accountId, String currency, BigDecimal amount, PendingKey idempotencyKey,
+                                  BiConsumer<Long, List<PendingWithdrawal>> handler) {
+        PendingWithdrawal withdrawal = new PendingWithdrawal(currency, amount, idempotencyKey, new CompletableFuture<>());
+        Batch[] created = new Batch[1];
+        // compute() is atomic per key, so a batch only grows while it is still the open one for the account
+        openBatches.compute(accountId, (id, batch) -> {
+            if (batch == null || batch.isFull()) {
+                batch = new Batch(maxBatchSize);
+                created[0] = batch;
+            }
+            batch.add(withdrawal);
+            return batch;
+        });
+
+        if (created[0] != null) {
+            runAsLeader(accountId, created[0], handler);
+        }
+        try {
+            return withdrawal.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void runAsLeader(Long accountId, Batch batch, BiConsumer<Long, List<PendingWithdrawal>> handler) {
+        batch.awaitFull(windowMs);
+        // A full batch may already have been replaced by a newer one, which must stay open
+        openBatches.remove(accountId, batch);
+
+        List<PendingWithdrawal> withdrawals = batch.close();
+        batchSizes.record(withdrawals.size());
+        try {
+            handler.accept(accountId, withdrawals);
+        } catch (RuntimeException e) {
+            withdrawals.forEach(it -> it.result().completeExceptionally(e));
+        }
+        // No-op for results the handler completed, but never leaves a follower waiting forever
+        withdrawals.forEach(it -> it.result().completeExceptionally(
+                new IllegalStateException("Withdrawal was not processed by its batch")));
+    }
+
+    private static final class Batch {
+
+        private final List<PendingWithdrawal> withdrawals = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final int maxSize;
+
+        private Batch(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        // Only called from inside compute(), which serialises additions per account
+        private void add(PendingWithdrawal withdrawal) {
+            withdrawals.add(withdrawal);
+            if (withdrawals.size() >= maxSize) {
+                full.countDown();
+            }
+        }
+
+        private boolean isFull() {
+            return withdrawals.size() >= maxSize;
+        }
+
+        private void awaitFull(long windowMs) {
+            try {
+                full.await(windowMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Called after the batch left the map; the map's bin lock makes all earlier additions visible
+        private List<PendingWithdrawal> close() {
+            return List.copyOf(withdrawals);
+        }
+    }
+}
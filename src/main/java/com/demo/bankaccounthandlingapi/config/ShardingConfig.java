@@ -0,0 +1,84 @@
+package com.demo.bankaccounthandlingapi.config;
+
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import com.demo.bankaccounthandlingapi.sharding.ShardRoutingDataSource;
+import com.demo.bankaccounthandlingapi.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One pool per shard, all with the settings of {@code spring.datasource.hikari}. Shard 0 is {@code spring.datasource}
+ * and is migrated by Flyway as usual; the other shards are migrated here, before anything can use them.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Not an autowire candidate by type, only the routing data source is
+    @Bean(defaultCandidate = false)
+    @ConditionalOnProperty(name = "datasource.sharding.enabled", havingValue = "true")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shard0DataSource(@Value("${spring.datasource.url}") String url,
+                                             @Value("${spring.datasource.username}") String username,
+                                             @Value("${spring.datasource.password}") String password) {
+        return pool(ShardRouting.DEFAULT_SHARD, url, username, password);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "datasource.sharding.enabled", havingValue = "true")
+    public DataSource dataSource(ShardingProperties properties,
+                                 @Value("${datasource.replica.enabled:false}") boolean replicaEnabled,
+                                 @Value("${balance.ledger-engine.enabled:false}") boolean ledgerEngineEnabled,
+                                 @Qualifier("shard0DataSource") HikariDataSource shard0DataSource,
+                                 Environment environment) {
+        if (replicaEnabled) {
+            throw new IllegalStateException("datasource.sharding and datasource.replica cannot be enabled together");
+        }
+        // The engine commits from its own threads, which know nothing of the shard of the account they write
+        if (ledgerEngineEnabled) {
+            throw new IllegalStateException("datasource.sharding and balance.ledger-engine cannot be enabled together");
+        }
+        Map<Integer, DataSource> shards = new HashMap<>();
+        shards.put(ShardRouting.DEFAULT_SHARD, shard0DataSource);
+        properties.shards().forEach((number, shard) -> {
+            if (number <= ShardRouting.DEFAULT_SHARD) {
+                throw new IllegalStateException("Shard numbers start at 1, shard 0 is spring.datasource");
+            }
+            HikariDataSource pool = pool(number, shard.url(), shard.username(), shard.password());
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            Flyway.configure()
+                    .dataSource(pool)
+                    .placeholders(Map.of("shard", String.valueOf(number)))
+                    .load()
+                    .migrate();
+            shards.put(number, pool);
+        });
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+    }
+
+    private static HikariDataSource pool(int shard, String url, String username, String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("shard-" + shard);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        return dataSource;
+    }
+}
@@ -0,0 +1,29 @@
+package com.demo.bankaccounthandlingapi.controllers;
+
+import com.demo.bankaccounthandlingapi.controllers.specs.AccountBalancesControllerSpec;
+import com.demo.bankaccounthandlingapi.dtos.AccountBalancesResponse;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.demo.bankaccounthandlingapi.controllers.specs.BalanceControllerSpec.BALANCE_VERSION;
+
+@RestController
+@RequestMapping("/{accountId}/balances")
+public class AccountBalancesController implements AccountBalancesControllerSpec {
+
+    private final BalanceService balanceService;
+
+    public AccountBalancesController(BalanceService balanceService) {
+        this.balanceService = balanceService;
+    }
+
+    @GetMapping
+    public AccountBalancesResponse getBalances(@PathVariable Long accountId,
+                                               @RequestParam(required = false) List<String> currency,
+                                               @RequestParam(required = false) String valuationCurrency,
+                                               @RequestHeader(value = BALANCE_VERSION, required = false) Long minVersion) {
+        return balanceService.getBalances(accountId, currency, valuationCurrency, minVersion);
+    }
+}
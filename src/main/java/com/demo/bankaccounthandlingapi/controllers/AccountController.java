@@ -1,7 +1,7 @@
 package com.demo.bankaccounthandlingapi.controllers;
 
 import com.demo.bankaccounthandlingapi.entities.Account;
-import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.sharding.ShardPlacement;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,17 +11,16 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/accounts")
 public class AccountController {
 
-    private final AccountRepository accountRepository;
+    private final ShardPlacement shardPlacement;
 
-    public AccountController(AccountRepository accountRepository) {
-        this.accountRepository = accountRepository;
+    public AccountController(ShardPlacement shardPlacement) {
+        this.shardPlacement = shardPlacement;
     }
 
     // Dummy endpoint to create an account for testing purposes
     @PostMapping
     public ResponseEntity<Account> createAccount() {
-        Account newAccount = new Account();
-        Account savedAccount = accountRepository.save(newAccount);
+        Account savedAccount = shardPlacement.createAccount();
         return ResponseEntity.ok(savedAccount);
     }
 }
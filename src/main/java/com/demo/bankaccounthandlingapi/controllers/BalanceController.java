@@ -7,7 +7,9 @@ import com.demo.bankaccounthandlingapi.dtos.ExchangeRequest;
 import com.demo.bankaccounthandlingapi.dtos.WithdrawRequest;
 import com.demo.bankaccounthandlingapi.services.AccountOperationService;
 import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -16,29 +18,47 @@ public class BalanceController implements BalanceControllerSpec {
 
     private final BalanceService balanceService;
     private final AccountOperationService accountOperationService;
+    private final IdempotencyService idempotencyService;
 
-    public BalanceController(BalanceService balanceService, AccountOperationService accountOperationService) {
+    public BalanceController(BalanceService balanceService, AccountOperationService accountOperationService,
+                             IdempotencyService idempotencyService) {
         this.balanceService = balanceService;
         this.accountOperationService = accountOperationService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/deposit")
-    public BalanceResponse deposit(@PathVariable Long accountId, @RequestBody @Valid DepositRequest depositRequest) {
-        return balanceService.deposit(accountId, depositRequest.currency(), depositRequest.amount());
+    public ResponseEntity<BalanceResponse> deposit(@PathVariable Long accountId, @RequestBody @Valid DepositRequest depositRequest,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return withVersion(accountId, idempotencyService.execute(idempotencyKey, IdempotencyService.fingerprint("deposit", accountId, depositRequest),
+                () -> balanceService.deposit(accountId, depositRequest.currency(), depositRequest.amount())));
     }
 
     @PostMapping("/withdraw")
-    public BalanceResponse withdraw(@PathVariable Long accountId, @RequestBody @Valid WithdrawRequest withdrawRequest) {
-        return accountOperationService.debitAccount(accountId, withdrawRequest.currency(), withdrawRequest.amount());
+    public ResponseEntity<BalanceResponse> withdraw(@PathVariable Long accountId, @RequestBody @Valid WithdrawRequest withdrawRequest,
+                                                    @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return withVersion(accountId, idempotencyService.execute(idempotencyKey, IdempotencyService.fingerprint("withdraw", accountId, withdrawRequest),
+                () -> accountOperationService.debitAccount(accountId, withdrawRequest.currency(), withdrawRequest.amount())));
     }
 
     @GetMapping
-    public BalanceResponse getBalance(@PathVariable Long accountId, @RequestParam String currency) {
-        return balanceService.getBalance(accountId, currency);
+    public BalanceResponse getBalance(@PathVariable Long accountId, @RequestParam String currency,
+                                      @RequestHeader(value = BALANCE_VERSION, required = false) Long minVersion) {
+        return balanceService.getBalance(accountId, currency, minVersion);
     }
 
     @PostMapping("/exchange")
-    public BalanceResponse exchange(@PathVariable Long accountId, @RequestBody @Valid ExchangeRequest exchangeRequest) {
-        return balanceService.exchange(accountId, exchangeRequest.fromCurrency(), exchangeRequest.toCurrency(), exchangeRequest.amount());
+    public ResponseEntity<BalanceResponse> exchange(@PathVariable Long accountId, @RequestBody @Valid ExchangeRequest exchangeRequest,
+                                                    @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return withVersion(accountId, idempotencyService.execute(idempotencyKey, IdempotencyService.fingerprint("exchange", accountId, exchangeRequest),
+                () -> balanceService.exchange(accountId, exchangeRequest.fromCurrency(), exchangeRequest.toCurrency(), exchangeRequest.amount())));
+    }
+
+    // The client sends the version back on its next read, which then never sees the balance from before this write
+    private ResponseEntity<BalanceResponse> withVersion(Long accountId, BalanceResponse response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        balanceService.getCommittedVersion(accountId, response.currency())
+                .ifPresent(version -> builder.header(BALANCE_VERSION, version.toString()));
+        return builder.body(response);
     }
 }
@@ -0,0 +1,24 @@
+package com.demo.bankaccounthandlingapi.controllers;
+
+import com.demo.bankaccounthandlingapi.controllers.specs.ReconciliationControllerSpec;
+import com.demo.bankaccounthandlingapi.dtos.BalanceDiscrepancyResponse;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/reconciliation")
+public class ReconciliationController implements ReconciliationControllerSpec {
+
+    private final BalanceReconciler balanceReconciler;
+
+    public ReconciliationController(BalanceReconciler balanceReconciler) {
+        this.balanceReconciler = balanceReconciler;
+    }
+
+    @GetMapping("/discrepancies")
+    public List<BalanceDiscrepancyResponse> getDiscrepancies(@RequestParam(required = false) Long accountId) {
+        return balanceReconciler.getDiscrepancies(accountId);
+    }
+}
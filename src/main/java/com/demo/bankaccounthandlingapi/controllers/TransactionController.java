@@ -0,0 +1,73 @@
+package com.demo.bankaccounthandlingapi.controllers;
+
+import com.demo.bankaccounthandlingapi.controllers.specs.TransactionControllerSpec;
+import com.demo.bankaccounthandlingapi.dtos.TransactionPageResponse;
+import com.demo.bankaccounthandlingapi.enums.ExportFormat;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.services.TransactionExportService;
+import com.demo.bankaccounthandlingapi.services.TransactionHistoryService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/{accountId}/transactions")
+public class TransactionController implements TransactionControllerSpec {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionHistoryService transactionHistoryService;
+    private final TransactionExportService transactionExportService;
+
+    public TransactionController(TransactionHistoryService transactionHistoryService, TransactionExportService transactionExportService) {
+        this.transactionHistoryService = transactionHistoryService;
+        this.transactionExportService = transactionExportService;
+    }
+
+    @GetMapping
+    public TransactionPageResponse getTransactions(@PathVariable Long accountId,
+                                                   @RequestParam(required = false) TransactionType type,
+                                                   @RequestParam(required = false) String currency,
+                                                   @RequestParam(required = false) Instant from,
+                                                   @RequestParam(required = false) Instant to,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int size) {
+        return transactionHistoryService.getTransactions(accountId, type, currency, from, to, cursor, size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable Long accountId,
+                                                        @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        transactionExportService.requireAccount(accountId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        // Written from an async thread straight into the response, nothing is collected in memory first
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                transactionExportService.export(accountId, format, compressed);
+                compressed.finish();
+            } else {
+                transactionExportService.export(accountId, format, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transactions-%d.%s".formatted(accountId, format.getFileExtension()))
+                        .build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
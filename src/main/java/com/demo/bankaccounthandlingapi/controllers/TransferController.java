@@ -0,0 +1,31 @@
+package com.demo.bankaccounthandlingapi.controllers;
+
+import com.demo.bankaccounthandlingapi.controllers.specs.TransferControllerSpec;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.TransferResponse;
+import com.demo.bankaccounthandlingapi.services.TransferService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/transfers")
+public class TransferController implements TransferControllerSpec {
+
+    private final TransferService transferService;
+
+    public TransferController(TransferService transferService) {
+        this.transferService = transferService;
+    }
+
+    @PostMapping
+    public TransferResponse transfer(@RequestBody @Valid TransferRequest transferRequest) {
+        return transferService.transfer(transferRequest);
+    }
+
+    @PostMapping("/batch")
+    public BatchTransferResponse transferBatch(@RequestBody @Valid BatchTransferRequest batchTransferRequest) {
+        return transferService.transferBatch(batchTransferRequest);
+    }
+}
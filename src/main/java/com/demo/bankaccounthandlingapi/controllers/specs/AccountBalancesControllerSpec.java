@@ -0,0 +1,40 @@
+package com.demo.bankaccounthandlingapi.controllers.specs;
+
+import com.demo.bankaccounthandlingapi.dtos.AccountBalancesResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@Tag(name = "Balance Management", description = "Operations for deposits, withdrawals, and currency exchange")
+public interface AccountBalancesControllerSpec {
+
+    @Operation(summary = "Get all balances", description = "Retrieve every currency balance of the account in one call, optionally valued in a single currency.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Balances retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = AccountBalancesResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported valuation currency", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Account not found", content = @Content)
+    })
+    AccountBalancesResponse getBalances(
+            @Parameter(description = "The unique ID of the account", example = "1001", required = true)
+            @PathVariable Long accountId,
+
+            @Parameter(description = "Only return these currencies, repeated or comma separated (e.g. USD,EUR)", example = "USD,EUR")
+            @RequestParam(required = false) List<String> currency,
+
+            @Parameter(description = "3-letter Currency Code to sum all listed balances up in", example = "EUR")
+            @RequestParam(required = false) String valuationCurrency,
+
+            @Parameter(description = "Balance-Version header of the client's last write, the balances are then read from the primary", example = "42")
+            @RequestHeader(value = BalanceControllerSpec.BALANCE_VERSION, required = false) Long minVersion
+    );
+}
@@ -12,25 +12,36 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
 @Tag(name = "Balance Management", description = "Operations for deposits, withdrawals, and currency exchange")
 public interface BalanceControllerSpec {
 
+    String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // Returned by writes when reads may be served by a replica, sent back by the client to read its own writes
+    String BALANCE_VERSION = "Balance-Version";
+
     @Operation(summary = "Deposit funds", description = "Add money to a specific currency balance for the account.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Deposit successful",
                     content = @Content(schema = @Schema(implementation = BalanceResponse.class))),
             @ApiResponse(responseCode = "404", description = "Account not found", content = @Content),
-            @ApiResponse(responseCode = "400", description = "Invalid input (e.g. negative amount)", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid input (e.g. negative amount)", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Account busy or updated concurrently, safe to retry; or Idempotency-Key reused for a different request", content = @Content)
     })
-    BalanceResponse deposit(
+    ResponseEntity<BalanceResponse> deposit(
             @Parameter(description = "The unique ID of the account", example = "1001", required = true)
             @PathVariable Long accountId,
 
             @RequestBody(description = "Deposit details including currency and amount", required = true)
-            DepositRequest depositRequest
+            DepositRequest depositRequest,
+
+            @Parameter(description = "Unique key of this request, a retry with the same key returns the first response without applying it again",
+                    example = "9b2f7c1e-4a4d-4c1e-8f0e-3d9a6b1c2e7f")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
     );
 
     @Operation(summary = "Withdraw funds", description = "Debit money from the account. Performs an external security check before processing.")
@@ -39,14 +50,19 @@ public interface BalanceControllerSpec {
                     content = @Content(schema = @Schema(implementation = BalanceResponse.class))),
             @ApiResponse(responseCode = "400", description = "Insufficient funds or invalid input", content = @Content),
             @ApiResponse(responseCode = "404", description = "Account not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Account busy or updated concurrently, safe to retry; or Idempotency-Key reused for a different request", content = @Content),
             @ApiResponse(responseCode = "503", description = "External system unavailable", content = @Content)
     })
-    BalanceResponse withdraw(
+    ResponseEntity<BalanceResponse> withdraw(
             @Parameter(description = "The unique ID of the account", example = "1001", required = true)
             @PathVariable Long accountId,
 
             @RequestBody(description = "Withdrawal details", required = true)
-            WithdrawRequest withdrawRequest
+            WithdrawRequest withdrawRequest,
+
+            @Parameter(description = "Unique key of this request, a retry with the same key returns the first response without applying it again",
+                    example = "9b2f7c1e-4a4d-4c1e-8f0e-3d9a6b1c2e7f")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
     );
 
     @Operation(summary = "Get Balance", description = "Retrieve the current balance for a specific currency.")
@@ -60,7 +76,10 @@ public interface BalanceControllerSpec {
             @PathVariable Long accountId,
 
             @Parameter(description = "3-letter Currency Code (e.g. USD, EUR)", example = "USD", required = true)
-            @RequestParam String currency
+            @RequestParam String currency,
+
+            @Parameter(description = "Balance-Version header of the client's last write, the balance returned is at least that recent", example = "42")
+            @RequestHeader(value = BALANCE_VERSION, required = false) Long minVersion
     );
 
     @Operation(summary = "Exchange Currency", description = "Convert funds from one currency to another using fixed exchange rates.")
@@ -68,13 +87,18 @@ public interface BalanceControllerSpec {
             @ApiResponse(responseCode = "200", description = "Exchange successful",
                     content = @Content(schema = @Schema(implementation = BalanceResponse.class))),
             @ApiResponse(responseCode = "400", description = "Insufficient source funds or unsupported currency pair", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Account not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Account not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Account busy or updated concurrently, safe to retry; or Idempotency-Key reused for a different request", content = @Content)
     })
-    BalanceResponse exchange(
+    ResponseEntity<BalanceResponse> exchange(
             @Parameter(description = "The unique ID of the account", example = "1001", required = true)
             @PathVariable Long accountId,
 
             @RequestBody(description = "Exchange details", required = true)
-            ExchangeRequest exchangeRequest
+            ExchangeRequest exchangeRequest,
+
+            @Parameter(description = "Unique key of this request, a retry with the same key returns the first response without applying it again",
+                    example = "9b2f7c1e-4a4d-4c1e-8f0e-3d9a6b1c2e7f")
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey
     );
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.demo.bankaccounthandlingapi.controllers.specs;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceDiscrepancyResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@Tag(name = "Reconciliation", description = "Checks of balances against their transaction log")
+public interface ReconciliationControllerSpec {
+
+    @Operation(summary = "List balance discrepancies",
+            description = "Balances that did not add up to their transaction log on the last reconciliation run. A balance is removed from the list once it matches again.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Discrepancies retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = BalanceDiscrepancyResponse.class))))
+    })
+    List<BalanceDiscrepancyResponse> getDiscrepancies(
+            @Parameter(description = "Only list discrepancies of this account", example = "1001")
+            @RequestParam(required = false) Long accountId
+    );
+}
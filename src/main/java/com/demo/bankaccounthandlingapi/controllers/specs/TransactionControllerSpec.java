@@ -0,0 +1,76 @@
+package com.demo.bankaccounthandlingapi.controllers.specs;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionPageResponse;
+import com.demo.bankaccounthandlingapi.enums.ExportFormat;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+@Tag(name = "Transaction History", description = "Read access to the transaction log of an account")
+public interface TransactionControllerSpec {
+
+    @Operation(summary = "List transactions", description = "Page through the account's transactions, newest first. "
+            + "Follow nextCursor to get the next page; deep pages are as fast as the first one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = TransactionPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, filter or page size", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Account not found", content = @Content)
+    })
+    TransactionPageResponse getTransactions(
+            @Parameter(description = "The unique ID of the account", example = "1001", required = true)
+            @PathVariable Long accountId,
+
+            @Parameter(description = "Only transactions of this type", example = "WITHDRAWAL")
+            @RequestParam(required = false) TransactionType type,
+
+            @Parameter(description = "Only transactions in this currency", example = "USD")
+            @RequestParam(required = false) String currency,
+
+            @Parameter(description = "Only transactions created at or after this instant", example = "2025-01-01T00:00:00Z")
+            @RequestParam(required = false) Instant from,
+
+            @Parameter(description = "Only transactions created before this instant", example = "2025-02-01T00:00:00Z")
+            @RequestParam(required = false) Instant to,
+
+            @Parameter(description = "nextCursor of the previous page, omit for the first page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size, at most 500", example = "50")
+            @RequestParam(defaultValue = "50") int size
+    );
+
+    @Operation(summary = "Export transactions", description = "Stream the account's complete transaction history, oldest first, "
+            + "as NDJSON or CSV. The response is gzip compressed when the client sends Accept-Encoding: gzip.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed", content = {
+                    @Content(mediaType = "application/x-ndjson"),
+                    @Content(mediaType = "text/csv")
+            }),
+            @ApiResponse(responseCode = "400", description = "Unknown format", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Account not found", content = @Content)
+    })
+    ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "The unique ID of the account", example = "1001", required = true)
+            @PathVariable Long accountId,
+
+            @Parameter(description = "NDJSON (default) or CSV", example = "CSV")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    );
+}
@@ -0,0 +1,42 @@
+package com.demo.bankaccounthandlingapi.controllers.specs;
+
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.TransferResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Transfers", description = "Money movements between accounts")
+public interface TransferControllerSpec {
+
+    @Operation(summary = "Transfer funds", description = "Debit the source account and credit the target account in one transaction, converting when the currencies differ.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transfer successful",
+                    content = @Content(schema = @Schema(implementation = TransferResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Account not found, insufficient funds, same account or unsupported currency pair", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Account busy or updated concurrently, safe to retry", content = @Content)
+    })
+    TransferResponse transfer(
+            @RequestBody(description = "Source and target account, currencies and amount", required = true)
+            TransferRequest transferRequest
+    );
+
+    @Operation(summary = "Transfer funds to many accounts",
+            description = "Fan out from one source account to many targets in chunked transactions. Transfers that cannot be applied are listed in the response, the others go ahead.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see failures for skipped transfers",
+                    content = @Content(schema = @Schema(implementation = BatchTransferResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Source account not found or invalid input", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Account busy or updated concurrently, chunks before the failing one are committed", content = @Content)
+    })
+    BatchTransferResponse transferBatch(
+            @RequestBody(description = "Source account, currency and up to 10000 transfers", required = true)
+            BatchTransferRequest batchTransferRequest
+    );
+}
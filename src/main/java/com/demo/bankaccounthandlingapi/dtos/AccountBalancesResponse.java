@@ -0,0 +1,12 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record AccountBalancesResponse(
+        @Schema(description = "Balances of the account ordered by currency")
+        List<BalanceResponse> balances,
+        @Schema(description = "Sum of the listed balances in the valuation currency, only present when one was requested")
+        BalanceResponse total
+) {}
@@ -0,0 +1,12 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record BalanceDiscrepancyResponse(
+        Long accountId,
+        String currency,
+        BigDecimal balanceAmount,
+        BigDecimal logAmount,
+        Instant detectedAt
+) {}
@@ -0,0 +1,7 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+public record BatchTransferFailure(
+        int index,
+        Long targetAccountId,
+        String reason
+) {}
@@ -0,0 +1,20 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+public record BatchTransferItem(
+    @NotNull
+    @Schema(description = "Account the money is credited to", example = "1002")
+    Long targetAccountId,
+    @Schema(description = "Currency credited to the target account, defaults to the source currency", example = "EUR")
+    String targetCurrency,
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @Digits(integer = 19, fraction = 2, message = "Invalid precision")
+    @Schema(description = "Amount to transfer, in the source currency", example = "2500.00")
+    BigDecimal amount) { }
@@ -0,0 +1,21 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchTransferRequest(
+    @NotNull
+    @Schema(description = "Account every transfer is taken from", example = "1001")
+    Long sourceAccountId,
+    @NotNull
+    @Schema(description = "Currency debited from the source account", example = "USD")
+    String currency,
+    @NotEmpty
+    @Size(max = 10000)
+    @Valid
+    List<BatchTransferItem> transfers) { }
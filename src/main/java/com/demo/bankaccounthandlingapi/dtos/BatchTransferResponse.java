@@ -0,0 +1,9 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import java.util.List;
+
+public record BatchTransferResponse(
+        int transferred,
+        List<BatchTransferFailure> failures,
+        BalanceResponse sourceBalance
+) {}
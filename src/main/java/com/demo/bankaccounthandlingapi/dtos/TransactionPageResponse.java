@@ -0,0 +1,12 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record TransactionPageResponse(
+        @Schema(description = "Transactions, newest first")
+        List<TransactionResponse> transactions,
+        @Schema(description = "Pass as cursor to get the next page, absent on the last page")
+        String nextCursor
+) {}
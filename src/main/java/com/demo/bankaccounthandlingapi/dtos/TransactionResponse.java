@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record TransactionResponse(
+        Long id,
+        UUID referenceId,
+        TransactionType type,
+        String currency,
+        BigDecimal amount,
+        Instant createdAt
+) {}
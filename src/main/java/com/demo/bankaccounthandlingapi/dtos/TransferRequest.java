@@ -0,0 +1,26 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+public record TransferRequest(
+    @NotNull
+    @Schema(description = "Account the money is taken from", example = "1001")
+    Long sourceAccountId,
+    @NotNull
+    @Schema(description = "Account the money is credited to", example = "1002")
+    Long targetAccountId,
+    @NotNull
+    @Schema(description = "Currency debited from the source account", example = "USD")
+    String currency,
+    @Schema(description = "Currency credited to the target account, defaults to the source currency", example = "EUR")
+    String targetCurrency,
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @Digits(integer = 19, fraction = 2, message = "Invalid precision")
+    @Schema(description = "Amount to transfer, in the source currency", example = "100.50")
+    BigDecimal amount) { }
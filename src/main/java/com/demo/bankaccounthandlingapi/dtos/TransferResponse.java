@@ -0,0 +1,8 @@
+package com.demo.bankaccounthandlingapi.dtos;
+
+public record TransferResponse(
+        Long sourceAccountId,
+        BalanceResponse sourceBalance,
+        Long targetAccountId,
+        BalanceResponse targetBalance
+) {}
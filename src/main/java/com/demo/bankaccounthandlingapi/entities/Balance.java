@@ -13,7 +13,8 @@ import java.math.BigDecimal;
 public class Balance {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_seq")
+    @SequenceGenerator(name = "balance_seq", sequenceName = "balance_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,139 @@
+package com.demo.bankaccounthandlingapi.entities;
+
+import com.demo.bankaccounthandlingapi.enums.OutboxStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "external_log_outbox")
+public class ExternalLogOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "external_log_outbox_seq")
+    @SequenceGenerator(name = "external_log_outbox_seq", sequenceName = "external_log_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "reference_id", nullable = false)
+    private UUID referenceId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public ExternalLogOutbox setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public ExternalLogOutbox setAccount(Account account) {
+        this.account = account;
+        return this;
+    }
+
+    public UUID getReferenceId() {
+        return referenceId;
+    }
+
+    public ExternalLogOutbox setReferenceId(UUID referenceId) {
+        this.referenceId = referenceId;
+        return this;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public ExternalLogOutbox setAmount(BigDecimal amount) {
+        this.amount = amount;
+        return this;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public ExternalLogOutbox setCurrency(String currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public ExternalLogOutbox setStatus(OutboxStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public ExternalLogOutbox setAttempts(int attempts) {
+        this.attempts = attempts;
+        return this;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public ExternalLogOutbox setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+        return this;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public ExternalLogOutbox setLastError(String lastError) {
+        this.lastError = lastError;
+        return this;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public ExternalLogOutbox setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+}
@@ -13,7 +13,8 @@ import java.util.UUID;
 public class TransactionLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_log_seq")
+    @SequenceGenerator(name = "transaction_log_seq", sequenceName = "transaction_log_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,8 @@
+package com.demo.bankaccounthandlingapi.enums;
+
+public enum CircuitOpenPolicy {
+    // Withdrawals fail with 503 while the external logging system is considered down (fail-closed)
+    REJECT,
+    // Withdrawals go ahead without the external log entry while the breaker is open (fail-open)
+    ALLOW
+}
@@ -0,0 +1,8 @@
+package com.demo.bankaccounthandlingapi.enums;
+
+public enum ExpiredPartitionAction {
+    // Detached and moved into the transaction_log_archive schema, e.g. to be dumped to cold storage
+    ARCHIVE,
+    // Detached and dropped
+    DROP
+}
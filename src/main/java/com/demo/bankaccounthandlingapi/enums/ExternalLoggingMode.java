@@ -0,0 +1,10 @@
+package com.demo.bankaccounthandlingapi.enums;
+
+public enum ExternalLoggingMode {
+    // External call must succeed before the debit is applied (fail-closed)
+    SYNC,
+    // External call runs concurrently with the debit transaction, which commits only if the call succeeded
+    PARALLEL,
+    // Debit commits together with an outbox row, delivery happens in the background
+    OUTBOX
+}
@@ -0,0 +1,6 @@
+package com.demo.bankaccounthandlingapi.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
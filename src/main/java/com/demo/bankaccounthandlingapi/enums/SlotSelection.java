@@ -0,0 +1,8 @@
+package com.demo.bankaccounthandlingapi.enums;
+
+public enum SlotSelection {
+    // A random slot per deposit
+    RANDOM,
+    // The slot is picked by the id of the calling thread, so a platform thread keeps hitting the same row
+    THREAD
+}
@@ -4,5 +4,7 @@ public enum TransactionType {
     DEPOSIT,
     WITHDRAWAL,
     EXCHANGE_IN,
-    EXCHANGE_OUT
-}
\ No newline at end of file
+    EXCHANGE_OUT,
+    TRANSFER_IN,
+    TRANSFER_OUT
+}
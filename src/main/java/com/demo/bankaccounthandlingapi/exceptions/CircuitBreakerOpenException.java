@@ -0,0 +1,7 @@
+package com.demo.bankaccounthandlingapi.exceptions;
+
+public class CircuitBreakerOpenException extends ExternalSystemException {
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
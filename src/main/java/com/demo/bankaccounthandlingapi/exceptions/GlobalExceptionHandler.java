@@ -1,7 +1,10 @@
 package com.demo.bankaccounthandlingapi.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -19,6 +22,37 @@ public class GlobalExceptionHandler {
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail handleConcurrentUpdate(OptimisticLockingFailureException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The balance was updated concurrently, please retry.");
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ProblemDetail handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ProblemDetail handleIdempotencyKeyInUse(IdempotencyKeyInUseException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ProblemDetail handleLockNotAcquired(PessimisticLockingFailureException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The account is busy, please retry.");
+    }
+
+    // Raised when no pooled connection frees up within the Hikari connection timeout
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ProblemDetail handleNoConnectionAvailable(CannotCreateTransactionException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "The service is overloaded, please retry.");
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ProblemDetail handleServiceOverloaded(ServiceOverloadedException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "The service is overloaded, please retry.");
+    }
+
     @ExceptionHandler(ExternalSystemException.class)
     public ProblemDetail handleExternalSystemException(ExternalSystemException ex) {
         return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
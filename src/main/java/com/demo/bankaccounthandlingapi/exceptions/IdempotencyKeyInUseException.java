@@ -0,0 +1,11 @@
+package com.demo.bankaccounthandlingapi.exceptions;
+
+/**
+ * Rolls back a mutation that found its key already written by a concurrent request. Not a
+ * {@code DataIntegrityViolationException}, retrying the transaction would only find the key again.
+ */
+public class IdempotencyKeyInUseException extends RuntimeException {
+    public IdempotencyKeyInUseException(String key) {
+        super("Idempotency key " + key + " was used concurrently, please retry.");
+    }
+}
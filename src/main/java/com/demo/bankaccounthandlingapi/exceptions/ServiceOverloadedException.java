@@ -0,0 +1,7 @@
+package com.demo.bankaccounthandlingapi.exceptions;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
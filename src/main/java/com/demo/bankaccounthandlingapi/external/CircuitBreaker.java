@@ -0,0 +1,163 @@
+package com.demo.bankaccounthandlingapi.external;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker without locks: the whole state lives in one immutable snapshot that is
+ * replaced with compare-and-set. Outcomes are counted in a tumbling window; once at least {@code minimumCalls}
+ * were seen and the failure rate reaches the threshold the breaker opens. After {@code openDuration} a single
+ * probe call is let through, its outcome closes or re-opens the breaker.
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private record Snapshot(State state, int successes, int failures, long windowStart, long openedAt, boolean probing) {
+
+        static Snapshot closed(long now) {
+            return new Snapshot(State.CLOSED, 0, 0, now, 0, false);
+        }
+
+        static Snapshot open(long now) {
+            return new Snapshot(State.OPEN, 0, 0, now, now, false);
+        }
+    }
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long windowNanos;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<Snapshot> snapshot;
+
+    /**
+     * @param failureRateThreshold failure percentage (1-100) within one window that opens the breaker
+     */
+    public CircuitBreaker(String name, int failureRateThreshold, int minimumCalls, Duration window,
+                          Duration openDuration, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.windowNanos = window.toNanos();
+        this.openDurationNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        this.snapshot = new AtomicReference<>(Snapshot.closed(nanoClock.getAsLong()));
+        Gauge.builder("circuit.breaker.state", this, breaker -> breaker.state().ordinal())
+                .description("0 = closed, 1 = open, 2 = half open")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public State state() {
+        return snapshot.get().state();
+    }
+
+    /**
+     * @return whether a call may go ahead; every permitted call must be followed by {@link #onSuccess()} or {@link #onFailure()}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            switch (current.state()) {
+                case CLOSED -> {
+                    return true;
+                }
+                case OPEN -> {
+                    long now = nanoClock.getAsLong();
+                    if (now - current.openedAt() < openDurationNanos) {
+                        return false;
+                    }
+                    // Whoever wins the swap to half open sends the probe
+                    if (transition(current, new Snapshot(State.HALF_OPEN, 0, 0, now, current.openedAt(), true))) {
+                        return true;
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (current.probing()) {
+                        return false;
+                    }
+                    Snapshot probing = new Snapshot(State.HALF_OPEN, 0, 0, current.windowStart(), current.openedAt(), true);
+                    if (snapshot.compareAndSet(current, probing)) {
+                        return true;
+                    }
+                }
+            }
+        }
+    }
+
+    public void onSuccess() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            long now = nanoClock.getAsLong();
+            Snapshot next = switch (current.state()) {
+                case CLOSED -> {
+                    Snapshot window = currentWindow(current, now);
+                    yield new Snapshot(State.CLOSED, window.successes() + 1, window.failures(), window.windowStart(), 0, false);
+                }
+                case HALF_OPEN -> Snapshot.closed(now);
+                // A call that started before the breaker opened, it says nothing about the remote side now
+                case OPEN -> current;
+            };
+            if (next == current || transition(current, next)) {
+                return;
+            }
+        }
+    }
+
+    public void onFailure() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            long now = nanoClock.getAsLong();
+            Snapshot next = switch (current.state()) {
+                case CLOSED -> {
+                    Snapshot window = currentWindow(current, now);
+                    int failures = window.failures() + 1;
+                    int calls = window.successes() + failures;
+                    yield calls >= minimumCalls && failures * 100L >= (long) failureRateThreshold * calls
+                            ? Snapshot.open(now)
+                            : new Snapshot(State.CLOSED, window.successes(), failures, window.windowStart(), 0, false);
+                }
+                case HALF_OPEN -> Snapshot.open(now);
+                case OPEN -> current;
+            };
+            if (next == current || transition(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private Snapshot currentWindow(Snapshot current, long now) {
+        return now - current.windowStart() >= windowNanos ? Snapshot.closed(now) : current;
+    }
+
+    private boolean transition(Snapshot current, Snapshot next) {
+        if (!snapshot.compareAndSet(current, next)) {
+            return false;
+        }
+        if (current.state() != next.state()) {
+            LOGGER.warn("Circuit breaker {} changed from {} to {}", name, current.state(), next.state());
+            Counter.builder("circuit.breaker.transitions")
+                    .tag("name", name)
+                    .tag("from", current.state().name().toLowerCase())
+                    .tag("to", next.state().name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+package com.demo.bankaccounthandlingapi.external;
+
+import com.demo.bankaccounthandlingapi.entities.ExternalLogOutbox;
+import com.demo.bankaccounthandlingapi.enums.ExternalLoggingMode;
+import com.demo.bankaccounthandlingapi.enums.OutboxStatus;
+import com.demo.bankaccounthandlingapi.exceptions.ExternalSystemException;
+import com.demo.bankaccounthandlingapi.repositories.ExternalLogOutboxRepository;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the external log outbox in the background. Rows are claimed in a short transaction and leased,
+ * delivered outside of any transaction, and then deleted or rescheduled with exponential backoff.
+ * Delivery is at-least-once: a crash between the call and the delete re-sends the row once the lease expires.
+ */
+@Component
+public class ExternalLogOutboxDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalLogOutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ExternalLogOutboxRepository externalLogOutboxRepository;
+    private final ExternalLoggingService externalLoggingService;
+    private final TransactionOperations transactionOperations;
+    private final ShardRouting shardRouting;
+    private final ExternalLoggingMode externalLoggingMode;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    public ExternalLogOutboxDispatcher(ExternalLogOutboxRepository externalLogOutboxRepository,
+                                       ExternalLoggingService externalLoggingService,
+                                       TransactionOperations transactionOperations, ShardRouting shardRouting,
+                                       @Value("${external.logging.mode:OUTBOX}") ExternalLoggingMode externalLoggingMode,
+                                       @Value("${external.logging.outbox.batch-size:50}") int batchSize,
+                                       @Value("${external.logging.outbox.max-attempts:10}") int maxAttempts,
+                                       @Value("${external.logging.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+                                       @Value("${external.logging.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                                       @Value("${external.logging.outbox.lease-ms:30000}") long leaseMs) {
+        this.externalLogOutboxRepository = externalLogOutboxRepository;
+        this.externalLoggingService = externalLoggingService;
+        this.transactionOperations = transactionOperations;
+        this.shardRouting = shardRouting;
+        this.externalLoggingMode = externalLoggingMode;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+    }
+
+    @Scheduled(initialDelayString = "${external.logging.outbox.poll-interval-ms:1000}",
+            fixedDelayString = "${external.logging.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        if (externalLoggingMode != ExternalLoggingMode.OUTBOX) {
+            return;
+        }
+        shardRouting.forEachShard(() -> {
+            boolean drainedFullBatch;
+            do {
+                drainedFullBatch = dispatchBatch() == batchSize;
+            } while (drainedFullBatch);
+        });
+    }
+
+    /**
+     * Delivers one batch of due entries.
+     *
+     * @return the number of entries delivered successfully
+     */
+    public int dispatchBatch() {
+        List<ExternalLogOutbox> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<ExternalLogOutbox> retries = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            ExternalLogOutbox entry = batch.get(i);
+            try {
+                externalLoggingService.sendLog();
+                delivered.add(entry.getId());
+            } catch (ExternalSystemException e) {
+                Instant nextAttemptAt = scheduleRetry(entry, e);
+                retries.add(entry);
+                // The remote side is struggling, so hand the rest of the batch back instead of hammering it
+                for (ExternalLogOutbox deferred : batch.subList(i + 1, batch.size())) {
+                    retries.add(deferred.setNextAttemptAt(nextAttemptAt));
+                }
+                break;
+            }
+        }
+
+        transactionOperations.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                externalLogOutboxRepository.deleteAllByIdInBatch(delivered);
+            }
+            externalLogOutboxRepository.saveAll(retries);
+        });
+        return delivered.size();
+    }
+
+    private List<ExternalLogOutbox> claimBatch() {
+        List<ExternalLogOutbox> claimed = transactionOperations.execute(status -> {
+            Instant now = Instant.now();
+            List<ExternalLogOutbox> due = externalLogOutboxRepository.lockDueEntries(now, batchSize);
+            // The lease hides claimed rows from other dispatchers while they are delivered outside the transaction
+            due.forEach(entry -> entry.setNextAttemptAt(now.plus(lease)));
+            return due;
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    private Instant scheduleRetry(ExternalLogOutbox entry, ExternalSystemException e) {
+        int attempts = entry.getAttempts() + 1;
+        Instant nextAttemptAt = Instant.now().plus(backoff(attempts));
+        entry.setAttempts(attempts)
+                .setNextAttemptAt(nextAttemptAt)
+                .setLastError(truncate(e.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            LOGGER.error("Giving up on external log entry {} after {} attempts", entry.getReferenceId(), attempts);
+            entry.setStatus(OutboxStatus.FAILED);
+        } else {
+            LOGGER.warn("External log entry {} failed, attempt {} of {}", entry.getReferenceId(), attempts, maxAttempts);
+        }
+        return nextAttemptAt;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
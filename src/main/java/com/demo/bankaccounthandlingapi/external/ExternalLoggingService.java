@@ -1,15 +1,29 @@
 package com.demo.bankaccounthandlingapi.external;
 
+import com.demo.bankaccounthandlingapi.exceptions.CircuitBreakerOpenException;
 import com.demo.bankaccounthandlingapi.exceptions.ExternalSystemException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Client for the external logging system. Calls go through a bulkhead capping the calls in flight and a
+ * circuit breaker that stops calling a failing remote side, so a degraded remote system costs callers
+ * a fast {@code ExternalSystemException} instead of a full timeout each.
+ */
 @Service
 public class ExternalLoggingService {
 
@@ -17,13 +31,41 @@ public class ExternalLoggingService {
 
     private final RestClient restClient;
     private final String externalUrl;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter bulkheadRejections;
+    private final Counter circuitOpenRejections;
 
-    public ExternalLoggingService(@Value("${external.logging.url}") String externalUrl) {
+    public ExternalLoggingService(@Value("${external.logging.url}") String externalUrl,
+                                  @Value("${external.logging.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                  @Value("${external.logging.read-timeout-ms:2000}") long readTimeoutMs,
+                                  @Value("${external.logging.bulkhead.max-concurrent-calls:64}") int maxConcurrentCalls,
+                                  @Value("${external.logging.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                  @Value("${external.logging.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                  @Value("${external.logging.circuit-breaker.window-ms:10000}") long windowMs,
+                                  @Value("${external.logging.circuit-breaker.open-duration-ms:5000}") long openDurationMs,
+                                  MeterRegistry meterRegistry) {
         this.externalUrl = externalUrl;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker("external-logging", failureRateThreshold, minimumCalls,
+                Duration.ofMillis(windowMs), Duration.ofMillis(openDurationMs), meterRegistry, System::nanoTime);
+        this.successTimer = requestTimer(meterRegistry, "success");
+        this.failureTimer = requestTimer(meterRegistry, "failure");
+        this.bulkheadRejections = rejectionCounter(meterRegistry, "bulkhead");
+        this.circuitOpenRejections = rejectionCounter(meterRegistry, "circuit_open");
+        Gauge.builder("external.logging.in.flight", bulkhead, it -> maxConcurrentCalls - it.availablePermits())
+                .register(meterRegistry);
 
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(Duration.ofSeconds(2));
-        factory.setReadTimeout(Duration.ofSeconds(2));
+        // One shared client keeps connections alive between calls and multiplexes them over HTTP/2 when the remote side supports it
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
 
         this.restClient = RestClient.builder()
                 .requestFactory(factory)
@@ -32,15 +74,51 @@ public class ExternalLoggingService {
     }
 
     public void sendLog() {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            throw new ExternalSystemException("Too many concurrent external system calls. Transaction aborted.");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                circuitOpenRejections.increment();
+                throw new CircuitBreakerOpenException("External system is unavailable. Transaction aborted.");
+            }
+            call();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void call() {
         LOGGER.info("Sending request to external system at {}", externalUrl);
+        long start = System.nanoTime();
         try {
             restClient.get()
                     .retrieve()
                     .toBodilessEntity();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
             LOGGER.info("External request sent.");
         } catch (Exception e) {
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            circuitBreaker.onFailure();
             LOGGER.error("External request failed: {}", e.getMessage());
             throw new ExternalSystemException("External system call failed. Transaction aborted.");
         }
     }
-}
\ No newline at end of file
+
+    // The failure rate is the failure count over the total count of both timers
+    private static Timer requestTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("external.logging.requests")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("external.logging.rejected")
+                .description("Calls refused without reaching the external system")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
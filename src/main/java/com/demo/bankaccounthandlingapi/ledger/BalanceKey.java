@@ -0,0 +1,4 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+public record BalanceKey(Long accountId, String currency) {
+}
@@ -0,0 +1,18 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance as known to a shard. {@code version} is the version of the committed row the amount was derived from,
+ * or {@code null} while the row does not exist in the database yet.
+ */
+public record LedgerBalance(BigDecimal amount, Long version) {
+
+    LedgerBalance withAmount(BigDecimal newAmount) {
+        return new LedgerBalance(newAmount, version);
+    }
+
+    LedgerBalance committed() {
+        return new LedgerBalance(amount, version == null ? 0L : version + 1);
+    }
+}
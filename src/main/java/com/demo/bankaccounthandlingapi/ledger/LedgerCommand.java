@@ -0,0 +1,23 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import java.math.BigDecimal;
+
+/**
+ * A balance mutation handed to the ledger engine. All commands of one account end up on the same shard
+ * and are applied in submission order.
+ */
+public sealed interface LedgerCommand {
+
+    Long accountId();
+
+    record Deposit(Long accountId, String currency, BigDecimal amount) implements LedgerCommand {
+    }
+
+    record Debit(Long accountId, String currency, BigDecimal amount) implements LedgerCommand {
+    }
+
+    // The converted amount is priced by the caller so the shard thread never waits on rate lookups
+    record Exchange(Long accountId, String fromCurrency, String toCurrency, BigDecimal amount,
+                    BigDecimal convertedAmount) implements LedgerCommand {
+    }
+}
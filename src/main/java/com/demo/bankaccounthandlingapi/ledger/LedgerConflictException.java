@@ -0,0 +1,36 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import com.demo.bankaccounthandlingapi.services.IdempotencyService.PendingKey;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.Set;
+
+/**
+ * A group commit found balances written outside the ledger engine since the shard loaded them, or idempotency keys
+ * already taken by concurrent requests. The transaction was rolled back; only the commands touching
+ * {@code balanceKeys} or carrying one of {@code idempotencyKeys} conflict, the rest of the batch can be committed again.
+ */
+public class LedgerConflictException extends OptimisticLockingFailureException {
+
+    private final Set<BalanceKey> balanceKeys;
+    private final Set<PendingKey> idempotencyKeys;
+
+    public LedgerConflictException(Set<BalanceKey> balanceKeys) {
+        this(balanceKeys, Set.of());
+    }
+
+    public LedgerConflictException(Set<BalanceKey> balanceKeys, Set<PendingKey> idempotencyKeys) {
+        super("Balances %s were modified outside the ledger engine or %d idempotency keys were taken"
+                .formatted(balanceKeys, idempotencyKeys.size()));
+        this.balanceKeys = Set.copyOf(balanceKeys);
+        this.idempotencyKeys = Set.copyOf(idempotencyKeys);
+    }
+
+    public Set<BalanceKey> balanceKeys() {
+        return balanceKeys;
+    }
+
+    public Set<PendingKey> idempotencyKeys() {
+        return idempotencyKeys;
+    }
+}
@@ -0,0 +1,119 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional in-process ledger for accounts whose row lock is the bottleneck. Every account is owned by exactly
+ * one shard thread, so its balances are mutated in memory without locks and persisted in group commits.
+ * When disabled, or for accounts outside {@code balance.ledger-engine.account-ids}, callers stay on the JPA path.
+ */
+@Component
+public class LedgerEngine {
+
+    private final LedgerStore ledgerStore;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int shardCount;
+    private final int queueCapacity;
+    private final int maxBatchSize;
+    private final long maxCachedBalances;
+    private final long commandTimeoutMs;
+    private final Set<Long> accountIds;
+    private final List<LedgerShard> shards = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    public LedgerEngine(LedgerStore ledgerStore, MeterRegistry meterRegistry,
+                        @Value("${balance.ledger-engine.enabled:false}") boolean enabled,
+                        @Value("${balance.ledger-engine.shards:4}") int shardCount,
+                        @Value("${balance.ledger-engine.queue-capacity:10000}") int queueCapacity,
+                        @Value("${balance.ledger-engine.max-batch-size:256}") int maxBatchSize,
+                        @Value("${balance.ledger-engine.max-cached-balances:100000}") long maxCachedBalances,
+                        @Value("${balance.ledger-engine.command-timeout-ms:5000}") long commandTimeoutMs,
+                        @Value("${balance.ledger-engine.account-ids:}") Set<Long> accountIds) {
+        this.ledgerStore = ledgerStore;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.shardCount = shardCount;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.maxCachedBalances = maxCachedBalances;
+        this.commandTimeoutMs = commandTimeoutMs;
+        this.accountIds = accountIds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        DistributionSummary batchSizes = DistributionSummary.builder("ledger.engine.batch.size")
+                .description("Commands written per group commit")
+                .register(meterRegistry);
+        for (int i = 0; i < shardCount; i++) {
+            LedgerShard shard = new LedgerShard(i, ledgerStore, queueCapacity, maxBatchSize, maxCachedBalances, batchSizes);
+            Gauge.builder("ledger.engine.queue.depth", shard, LedgerShard::queueDepth)
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+            // Long-lived and always busy, so a platform thread per shard rather than a virtual one
+            Thread thread = Thread.ofPlatform().name("ledger-shard-" + i).daemon().start(shard);
+            shards.add(shard);
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        shards.forEach(LedgerShard::stop);
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+    }
+
+    public boolean handles(Long accountId) {
+        return enabled && (accountIds.isEmpty() || accountIds.contains(accountId));
+    }
+
+    /**
+     * Hands the command to the shard owning the account and waits until its batch is committed, together with the
+     * {@code Idempotency-Key} of the current request if it has one.
+     * Business failures are rethrown as-is, a full shard queue fails fast with {@code ServiceOverloadedException}.
+     * A command its shard has not picked up within {@code command-timeout-ms} is abandoned and fails the same way;
+     * one already being committed when the wait runs out still commits.
+     */
+    public BalanceResponse execute(LedgerCommand command) {
+        LedgerShard shard = shards.get(Math.floorMod(Long.hashCode(command.accountId()), shards.size()));
+        CompletableFuture<BalanceResponse> result = shard.submit(command, ledgerStore.idempotencyKey().orElse(null));
+        try {
+            return result.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Marks the command as abandoned, the shard skips it if it has not applied it yet
+            result.cancel(false);
+            throw new ServiceOverloadedException("Ledger shard did not answer within %d ms".formatted(commandTimeoutMs));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(false);
+            throw new ServiceOverloadedException("Interrupted while waiting for the ledger shard");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+
+import java.math.BigDecimal;
+
+// One transaction_log row produced by an applied command
+public record LedgerEntry(Long accountId, String currency, BigDecimal amount, TransactionType type) {
+}
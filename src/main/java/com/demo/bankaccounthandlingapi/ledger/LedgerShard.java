@@ -0,0 +1,251 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.IdempotencyKeyInUseException;
+import com.demo.bankaccounthandlingapi.exceptions.IllegalBalanceUpdateException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.exceptions.ServiceOverloadedException;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService.PendingKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer for a slice of the accounts. Only the shard thread touches {@code balances}, so commands are
+ * applied without any locking. Whatever queued up while the previous batch was committing is applied next
+ * and written in one group commit; callers are completed only after that commit.
+ * <p>
+ * At most {@code maxCachedBalances} balances and accounts are kept in memory, the least recently used are dropped
+ * and reloaded from the database when they are touched again.
+ */
+class LedgerShard implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerShard.class);
+
+    private final int index;
+    private final LedgerStore ledgerStore;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final Cache<BalanceKey, LedgerBalance> balances;
+    private final Cache<Long, Boolean> knownAccounts;
+    private volatile boolean running = true;
+
+    LedgerShard(int index, LedgerStore ledgerStore, int queueCapacity, int maxBatchSize, long maxCachedBalances,
+                DistributionSummary batchSizes) {
+        this.index = index;
+        this.ledgerStore = ledgerStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = batchSizes;
+        // Eviction runs on the shard thread, nothing else ever touches these
+        this.balances = Caffeine.newBuilder().maximumSize(maxCachedBalances).executor(Runnable::run).build();
+        this.knownAccounts = Caffeine.newBuilder().maximumSize(maxCachedBalances).executor(Runnable::run).build();
+    }
+
+    // A command with an idempotency key writes it in the group commit that applies it
+    CompletableFuture<BalanceResponse> submit(LedgerCommand command, PendingKey idempotencyKey) {
+        Pending pending = new Pending(command, idempotencyKey, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceOverloadedException("Ledger shard %d cannot accept more commands".formatted(index));
+        }
+        return pending.future();
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                LOGGER.error("Ledger shard {} failed to process a batch", index, e);
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        Pending leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.future().completeExceptionally(new ServiceOverloadedException("Ledger engine is shutting down"));
+        }
+    }
+
+    void process(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        List<Pending> remaining = batch;
+        while (!remaining.isEmpty()) {
+            remaining = applyAndCommit(remaining);
+        }
+    }
+
+    // Returns the commands to apply and commit again after a conflict on other balances, none once the batch is done
+    private List<Pending> applyAndCommit(List<Pending> batch) {
+        Map<BalanceKey, LedgerBalance> changes = new LinkedHashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        List<Applied> applied = new ArrayList<>(batch.size());
+        Map<PendingKey, BalanceResponse> idempotencyKeys = new LinkedHashMap<>();
+
+        for (Pending pending : batch) {
+            // The caller gave up waiting before the command was applied, so it must not be applied at all
+            if (pending.future().isDone()) {
+                continue;
+            }
+            try {
+                Applied result = new Applied(pending, apply(pending.command(), changes, entries));
+                applied.add(result);
+                if (pending.idempotencyKey() != null) {
+                    idempotencyKeys.put(pending.idempotencyKey(), result.response());
+                }
+            } catch (RuntimeException e) {
+                // A rejected command changed nothing, so it fails on its own without affecting the batch
+                pending.future().completeExceptionally(e);
+            }
+        }
+        if (applied.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            ledgerStore.commit(changes, entries, idempotencyKeys);
+        } catch (LedgerConflictException e) {
+            // Only the balances written outside the engine are stale. Their commands fail, and so do those whose
+            // key a concurrent request took; the others saw balances that are still current and are applied again.
+            // Every round drops at least one command
+            balances.invalidateAll(e.balanceKeys());
+            List<Pending> retry = new ArrayList<>();
+            for (Applied it : applied) {
+                PendingKey idempotencyKey = it.pending().idempotencyKey();
+                if (idempotencyKey != null && e.idempotencyKeys().contains(idempotencyKey)) {
+                    it.pending().future().completeExceptionally(new IdempotencyKeyInUseException(idempotencyKey.key()));
+                } else if (balanceKeys(it.pending().command()).stream().anyMatch(e.balanceKeys()::contains)) {
+                    it.pending().future().completeExceptionally(e);
+                } else {
+                    retry.add(it.pending());
+                }
+            }
+            return retry;
+        } catch (RuntimeException e) {
+            // The database no longer matches what this shard believed, reload those balances on next use
+            balances.invalidateAll(changes.keySet());
+            applied.forEach(it -> it.pending().future().completeExceptionally(e));
+            return List.of();
+        }
+        changes.forEach((key, balance) -> balances.put(key, balance.committed()));
+        applied.forEach(it -> it.pending().future().complete(it.response()));
+        return List.of();
+    }
+
+    private static List<BalanceKey> balanceKeys(LedgerCommand command) {
+        return switch (command) {
+            case LedgerCommand.Deposit deposit -> List.of(new BalanceKey(deposit.accountId(), deposit.currency()));
+            case LedgerCommand.Debit debit -> List.of(new BalanceKey(debit.accountId(), debit.currency()));
+            case LedgerCommand.Exchange exchange -> List.of(new BalanceKey(exchange.accountId(), exchange.fromCurrency()),
+                    new BalanceKey(exchange.accountId(), exchange.toCurrency()));
+        };
+    }
+
+    private BalanceResponse apply(LedgerCommand command, Map<BalanceKey, LedgerBalance> changes, List<LedgerEntry> entries) {
+        requireAccount(command.accountId());
+        return switch (command) {
+            case LedgerCommand.Deposit deposit -> {
+                if (deposit.amount().compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new IllegalBalanceUpdateException(deposit.accountId());
+                }
+                BalanceKey key = new BalanceKey(deposit.accountId(), deposit.currency());
+                LedgerBalance updated = credit(key, deposit.amount(), changes);
+                entries.add(new LedgerEntry(key.accountId(), key.currency(), deposit.amount(), TransactionType.DEPOSIT));
+                yield new BalanceResponse(key.currency(), updated.amount());
+            }
+            case LedgerCommand.Debit debit -> {
+                BalanceKey key = new BalanceKey(debit.accountId(), debit.currency());
+                LedgerBalance updated = debit(key, debit.amount(), changes);
+                entries.add(new LedgerEntry(key.accountId(), key.currency(), debit.amount(), TransactionType.WITHDRAWAL));
+                yield new BalanceResponse(key.currency(), updated.amount());
+            }
+            case LedgerCommand.Exchange exchange -> {
+                BalanceKey source = new BalanceKey(exchange.accountId(), exchange.fromCurrency());
+                BalanceKey target = new BalanceKey(exchange.accountId(), exchange.toCurrency());
+                debit(source, exchange.amount(), changes);
+                LedgerBalance updated = credit(target, exchange.convertedAmount(), changes);
+                entries.add(new LedgerEntry(source.accountId(), source.currency(), exchange.amount(), TransactionType.EXCHANGE_OUT));
+                entries.add(new LedgerEntry(target.accountId(), target.currency(), exchange.convertedAmount(), TransactionType.EXCHANGE_IN));
+                yield new BalanceResponse(target.currency(), updated.amount());
+            }
+        };
+    }
+
+    private LedgerBalance credit(BalanceKey key, BigDecimal amount, Map<BalanceKey, LedgerBalance> changes) {
+        LedgerBalance current = current(key, changes).orElseGet(() -> new LedgerBalance(BigDecimal.ZERO, null));
+        LedgerBalance updated = current.withAmount(current.amount().add(amount));
+        changes.put(key, updated);
+        return updated;
+    }
+
+    private LedgerBalance debit(BalanceKey key, BigDecimal amount, Map<BalanceKey, LedgerBalance> changes) {
+        LedgerBalance current = current(key, changes)
+                .filter(balance -> balance.amount().compareTo(amount) >= 0)
+                .orElseThrow(() -> new InsufficientFundsException(key.accountId(), key.currency()));
+        LedgerBalance updated = current.withAmount(current.amount().subtract(amount));
+        changes.put(key, updated);
+        return updated;
+    }
+
+    private Optional<LedgerBalance> current(BalanceKey key, Map<BalanceKey, LedgerBalance> changes) {
+        LedgerBalance pending = changes.get(key);
+        if (pending != null) {
+            return Optional.of(pending);
+        }
+        LedgerBalance committed = balances.getIfPresent(key);
+        if (committed != null) {
+            return Optional.of(committed);
+        }
+        Optional<LedgerBalance> loaded = ledgerStore.load(key);
+        loaded.ifPresent(balance -> balances.put(key, balance));
+        return loaded;
+    }
+
+    private void requireAccount(Long accountId) {
+        if (knownAccounts.getIfPresent(accountId) != null) {
+            return;
+        }
+        if (!ledgerStore.accountExists(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        knownAccounts.put(accountId, Boolean.TRUE);
+    }
+
+    record Pending(LedgerCommand command, PendingKey idempotencyKey, CompletableFuture<BalanceResponse> future) {
+    }
+
+    private record Applied(Pending pending, BalanceResponse response) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.demo.bankaccounthandlingapi.ledger;
+
+import com.demo.bankaccounthandlingapi.caching.BalanceCache;
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
+import com.demo.bankaccounthandlingapi.services.ExternalLogOutboxService;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService.PendingKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persistence for the ledger engine. Reads happen only when a shard first touches a balance;
+ * writes are one group commit per shard batch.
+ */
+@Component
+public class LedgerStore {
+
+    private static final String UPDATE_BALANCE =
+            "UPDATE balance SET amount = ?, version = version + 1 WHERE account_id = ? AND currency = ? AND version = ?";
+    // A balance row created outside the engine in the meantime reports 0 rows instead of failing the statement
+    private static final String INSERT_BALANCE =
+            "INSERT INTO balance (account_id, currency, amount, version) VALUES (?, ?, ?, 0) ON CONFLICT (account_id, currency) DO NOTHING";
+    private static final String INSERT_LOG =
+            "INSERT INTO transaction_log (account_id, reference_id, amount, currency, type) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final AccountRepository accountRepository;
+    private final ExternalLogOutboxService externalLogOutboxService;
+    private final BalanceCache balanceCache;
+    private final BalanceMetrics balanceMetrics;
+    private final ReadRouting readRouting;
+    private final IdempotencyService idempotencyService;
+
+    public LedgerStore(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations,
+                       AccountRepository accountRepository, ExternalLogOutboxService externalLogOutboxService,
+                       BalanceCache balanceCache, BalanceMetrics balanceMetrics, ReadRouting readRouting,
+                       IdempotencyService idempotencyService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.accountRepository = accountRepository;
+        this.externalLogOutboxService = externalLogOutboxService;
+        this.balanceCache = balanceCache;
+        this.balanceMetrics = balanceMetrics;
+        this.readRouting = readRouting;
+        this.idempotencyService = idempotencyService;
+    }
+
+    // The repository's read-only transaction could be served by a replica that has not seen a new account yet
+    public boolean accountExists(Long accountId) {
+        return readRouting.onPrimary(() -> accountRepository.existsById(accountId));
+    }
+
+    // Read on the caller's thread, the shard writes the key in the transaction that commits the command
+    public Optional<PendingKey> idempotencyKey() {
+        return idempotencyService.pendingKey();
+    }
+
+    public Optional<LedgerBalance> load(BalanceKey key) {
+        return jdbcTemplate.query("SELECT amount, version FROM balance WHERE account_id = ? AND currency = ?",
+                (rs, rowNum) -> new LedgerBalance(rs.getBigDecimal("amount"), rs.getLong("version")),
+                key.accountId(), key.currency()).stream().findFirst();
+    }
+
+    /**
+     * Writes the final state of every balance touched by a batch together with all of its log rows
+     * in one transaction. Updates are guarded by the version the shard started from, so a write made
+     * outside the engine is not overwritten. The idempotency keys of the batch's commands are written in the same
+     * transaction. Every balance a write elsewhere hit and every key a concurrent request took is reported in a
+     * {@link LedgerConflictException} and nothing is committed.
+     */
+    public void commit(Map<BalanceKey, LedgerBalance> balances, List<LedgerEntry> entries,
+                       Map<PendingKey, BalanceResponse> idempotencyKeys) {
+        List<BalanceKey> updatedKeys = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Map<BalanceKey, LedgerBalance> inserts = new LinkedHashMap<>();
+        balances.forEach((key, balance) -> {
+            if (balance.version() == null) {
+                inserts.put(key, balance);
+            } else {
+                updatedKeys.add(key);
+                updates.add(new Object[]{balance.amount(), key.accountId(), key.currency(), balance.version()});
+            }
+        });
+        List<Object[]> logs = entries.stream()
+                .map(entry -> new Object[]{entry.accountId(), UUID.randomUUID(), entry.amount(), entry.currency(), entry.type().name()})
+                .toList();
+
+        transactionOperations.executeWithoutResult(status -> {
+            Set<BalanceKey> conflicts = new LinkedHashSet<>();
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    conflicts.add(updatedKeys.get(i));
+                }
+            }
+            // One statement each, rewritten batch inserts do not report which rows were skipped. Only first
+            // deposits in a currency get here
+            inserts.forEach((key, balance) -> {
+                if (jdbcTemplate.update(INSERT_BALANCE, key.accountId(), key.currency(), balance.amount()) == 0) {
+                    conflicts.add(key);
+                }
+            });
+            Set<PendingKey> takenKeys = new LinkedHashSet<>();
+            idempotencyKeys.forEach((key, response) -> {
+                if (!idempotencyService.record(key, response)) {
+                    takenKeys.add(key);
+                }
+            });
+            if (!conflicts.isEmpty() || !takenKeys.isEmpty()) {
+                throw new LedgerConflictException(conflicts, takenKeys);
+            }
+            jdbcTemplate.batchUpdate(INSERT_LOG, logs);
+            entries.forEach(entry -> balanceMetrics.transactionLogged(entry.type(), 1));
+            entries.stream()
+                    .filter(entry -> entry.type() == TransactionType.WITHDRAWAL)
+                    .forEach(entry -> externalLogOutboxService.enqueueWithdrawal(
+                            accountRepository.getReferenceById(entry.accountId()), entry.amount(), entry.currency()));
+            balances.forEach((key, balance) -> balanceCache.updateAfterCommit(
+                    key.accountId(), key.currency(), balance.amount(), balance.committed().version()));
+        });
+    }
+}
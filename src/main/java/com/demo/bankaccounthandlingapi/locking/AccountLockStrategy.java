@@ -0,0 +1,31 @@
+package com.demo.bankaccounthandlingapi.locking;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Decides how concurrent balance mutations on one account are kept apart.
+ * The active implementation is picked with {@code balance.locking.strategy}.
+ */
+public interface AccountLockStrategy {
+
+    String name();
+
+    /**
+     * Runs a complete balance transaction. Strategies that detect conflicts only at commit time re-run it here,
+     * which is why the call has to sit outside the transaction boundary.
+     */
+    default <T> T execute(Supplier<T> transaction) {
+        return transaction.get();
+    }
+
+    /**
+     * Protects the given currencies of the account for the rest of the current transaction.
+     *
+     * @return the account the balances belong to
+     * @throws com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException if the account does not exist
+     */
+    Account lock(Long accountId, Collection<String> currencies);
+}
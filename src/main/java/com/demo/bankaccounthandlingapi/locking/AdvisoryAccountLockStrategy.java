@@ -0,0 +1,54 @@
+package com.demo.bankaccounthandlingapi.locking;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Takes a transaction scoped Postgres advisory lock per account and currency, so mutations of different
+ * currencies of one account run in parallel while the account row itself is never locked.
+ */
+@Component
+@ConditionalOnProperty(name = "balance.locking.strategy", havingValue = "advisory")
+public class AdvisoryAccountLockStrategy implements AccountLockStrategy {
+
+    private final AccountRepository accountRepository;
+    private final Timer lockWait;
+
+    public AdvisoryAccountLockStrategy(AccountRepository accountRepository, MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.lockWait = LockMetrics.lockWait(meterRegistry, name());
+    }
+
+    @Override
+    public String name() {
+        return "advisory";
+    }
+
+    @Override
+    public Account lock(Long accountId, Collection<String> currencies) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        // Always lock in the same order so an exchange and its reverse cannot deadlock
+        currencies.stream()
+                .sorted()
+                .distinct()
+                .forEach(currency -> lockWait.record(() -> accountRepository.acquireAdvisoryXactLock(lockKey(accountId, currency))));
+        return accountRepository.getReferenceById(accountId);
+    }
+
+    /**
+     * Packs account id and currency into the single bigint advisory lock key space. Two currencies sharing
+     * the low hash bits only means they serialize on each other, never that a lock is skipped.
+     */
+    static long lockKey(Long accountId, String currency) {
+        return (accountId << 16) ^ (currency.hashCode() & 0xFFFF);
+    }
+}
@@ -0,0 +1,39 @@
+package com.demo.bankaccounthandlingapi.locking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Meter names shared by all lock strategies. Every meter is tagged with the strategy name,
+ * so strategies can be compared side by side on the same dashboard.
+ */
+final class LockMetrics {
+
+    private static final String STRATEGY_TAG = "strategy";
+
+    private LockMetrics() {
+    }
+
+    // Time spent waiting to acquire the lock, including the lookup that takes it
+    static Timer lockWait(MeterRegistry meterRegistry, String strategy) {
+        return Timer.builder("balance.lock.wait")
+                .tag(STRATEGY_TAG, strategy)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Transactions that lost a race and had to be retried or were rejected
+    static Counter conflicts(MeterRegistry meterRegistry, String strategy) {
+        return Counter.builder("balance.lock.conflicts")
+                .tag(STRATEGY_TAG, strategy)
+                .register(meterRegistry);
+    }
+
+    // Transactions that still conflicted after the last allowed attempt
+    static Counter exhausted(MeterRegistry meterRegistry, String strategy) {
+        return Counter.builder("balance.lock.retries.exhausted")
+                .tag(STRATEGY_TAG, strategy)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.bankaccounthandlingapi.locking;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Takes no lock at all and relies on the {@code @Version} column of {@code Balance}. A transaction that loses
+ * the race fails at commit and is re-run, up to {@code balance.locking.optimistic.max-attempts} times.
+ * Mutations of different currencies of one account never wait for each other.
+ */
+@Component
+@ConditionalOnProperty(name = "balance.locking.strategy", havingValue = "optimistic")
+public class OptimisticAccountLockStrategy implements AccountLockStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptimisticAccountLockStrategy.class);
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final AccountRepository accountRepository;
+    private final int maxAttempts;
+    private final Timer lockWait;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public OptimisticAccountLockStrategy(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                                         @Value("${balance.locking.optimistic.max-attempts:5}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.maxAttempts = maxAttempts;
+        this.lockWait = LockMetrics.lockWait(meterRegistry, name());
+        this.conflicts = LockMetrics.conflicts(meterRegistry, name());
+        this.exhausted = LockMetrics.exhausted(meterRegistry, name());
+    }
+
+    @Override
+    public String name() {
+        return "optimistic";
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> transaction) {
+        // Joined an outer transaction: only whoever owns that transaction can safely re-run it
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transaction.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.get();
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                // A concurrent first deposit in the same currency surfaces as a unique key violation. Any other
+                // integrity violation fails the same way on every attempt and is not contention
+                if (e instanceof DataIntegrityViolationException && !isUniqueViolation(e)) {
+                    throw e;
+                }
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    LOGGER.warn("Giving up after {} conflicting attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    @Override
+    public Account lock(Long accountId, Collection<String> currencies) {
+        boolean exists = lockWait.record(() -> accountRepository.existsById(accountId));
+        if (!exists) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return accountRepository.getReferenceById(accountId);
+    }
+
+    // Hibernate reports a unique key violation as a plain DataIntegrityViolationException, only the SQL state tells
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DuplicateKeyException
+                    || cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Random jitter keeps the losers of one race from colliding again on the retry
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying balance update", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.bankaccounthandlingapi.locking;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Takes {@code SELECT ... FOR UPDATE} on the account row, serializing every mutation of the account
+ * regardless of currency. Waiting is bounded by {@code balance.locking.pessimistic.lock-timeout-ms}
+ * (0 for NOWAIT, -1 to wait indefinitely) so a hot account rejects requests instead of draining the pool.
+ */
+@Component
+@ConditionalOnProperty(name = "balance.locking.strategy", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticAccountLockStrategy implements AccountLockStrategy {
+
+    private final AccountRepository accountRepository;
+    private final Duration lockTimeout;
+    private final Timer lockWait;
+    private final Counter conflicts;
+
+    public PessimisticAccountLockStrategy(AccountRepository accountRepository, MeterRegistry meterRegistry,
+                                          @Value("${balance.locking.pessimistic.lock-timeout-ms:2000}") long lockTimeoutMs) {
+        this.accountRepository = accountRepository;
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMs);
+        this.lockWait = LockMetrics.lockWait(meterRegistry, name());
+        this.conflicts = LockMetrics.conflicts(meterRegistry, name());
+    }
+
+    @Override
+    public String name() {
+        return "pessimistic";
+    }
+
+    @Override
+    public Account lock(Long accountId, Collection<String> currencies) {
+        try {
+            return lockWait.record(() -> accountRepository.findByIdForUpdate(accountId, lockTimeout))
+                    .orElseThrow(() -> new AccountNotFoundException(accountId));
+        } catch (PessimisticLockingFailureException e) {
+            conflicts.increment();
+            throw e;
+        }
+    }
+}
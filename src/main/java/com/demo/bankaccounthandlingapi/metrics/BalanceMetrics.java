@@ -0,0 +1,88 @@
+package com.demo.bankaccounthandlingapi.metrics;
+
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Meters for balance operations:
+ * <ul>
+ *     <li>{@code balance.operation} - timer per operation and outcome, where the outcome separates the
+ *     business rejections (insufficient funds, not found) from conflicts, overload, failed external calls
+ *     and unexpected errors</li>
+ *     <li>{@code transaction.log.inserts} - counter of log rows committed, per transaction type</li>
+ * </ul>
+ */
+@Component
+public class BalanceMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TransactionType, Counter> logInserts = new EnumMap<>(TransactionType.class);
+
+    public BalanceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (TransactionType type : TransactionType.values()) {
+            logInserts.put(type, Counter.builder("transaction.log.inserts")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T record(String operation, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("balance.operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Counts log rows once the transaction writing them commits, rows of rolled back or retried attempts are not.
+     */
+    public void transactionLogged(TransactionType type, int count) {
+        Counter counter = logInserts.get(type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            counter.increment(count);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counter.increment(count);
+            }
+        });
+    }
+
+    private static String outcome(RuntimeException e) {
+        return switch (e) {
+            case InsufficientFundsException _ -> "insufficient_funds";
+            case AccountNotFoundException _ -> "not_found";
+            case IllegalBalanceUpdateException _, CurrencyExchangeException _, IllegalArgumentException _ -> "rejected";
+            case OptimisticLockingFailureException _, PessimisticLockingFailureException _ -> "conflict";
+            case ServiceOverloadedException _, CannotCreateTransactionException _ -> "overloaded";
+            case ExternalSystemException _ -> "external_failure";
+            default -> "error";
+        };
+    }
+}
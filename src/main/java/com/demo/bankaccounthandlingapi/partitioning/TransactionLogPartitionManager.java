@@ -0,0 +1,194 @@
+package com.demo.bankaccounthandlingapi.partitioning;
+
+import com.demo.bankaccounthandlingapi.enums.ExpiredPartitionAction;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code transaction_log} ahead of time and retires the ones past retention.
+ * Every step takes at most a SHARE UPDATE EXCLUSIVE lock on the parent, which does not block inserts or reads,
+ * and gives up after {@code lock-timeout-ms} instead of queueing in front of them; the next run tries again.
+ */
+@Component
+public class TransactionLogPartitionManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionLogPartitionManager.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final String LIST_PARTITIONS = """
+            SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound, i.inhdetachpending AS detach_pending
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'transaction_log'::regclass
+            """;
+    private static final String DELETE_RETIRED_NET = "DELETE FROM transaction_log_retired_net WHERE partition_name = ?";
+    private static final String RECORD_RETIRED_NET = """
+            INSERT INTO transaction_log_retired_net (partition_name, account_id, currency, net, max_log_id)
+            SELECT ?, t.account_id, t.currency, SUM(%s), MAX(t.id)
+            FROM %%s t
+            GROUP BY t.account_id, t.currency
+            """.formatted(BalanceReconciler.SIGNED_AMOUNT);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int premakeMonths;
+    private final int retentionMonths;
+    private final ExpiredPartitionAction expiredAction;
+    private final long lockTimeoutMs;
+    private final Counter created;
+    private final Counter retired;
+    private final AtomicInteger partitions = new AtomicInteger();
+
+    public TransactionLogPartitionManager(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations, MeterRegistry meterRegistry,
+                                          ShardRouting shardRouting,
+                                          @Value("${transactions.partitioning.enabled:true}") boolean enabled,
+                                          @Value("${transactions.partitioning.premake-months:3}") int premakeMonths,
+                                          @Value("${transactions.partitioning.retention-months:0}") int retentionMonths,
+                                          @Value("${transactions.partitioning.expired-action:ARCHIVE}") ExpiredPartitionAction expiredAction,
+                                          @Value("${transactions.partitioning.lock-timeout-ms:2000}") long lockTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+        this.expiredAction = expiredAction;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.created = Counter.builder("transaction.log.partitions.created").register(meterRegistry);
+        this.retired = Counter.builder("transaction.log.partitions.retired").tag("action", expiredAction.name().toLowerCase()).register(meterRegistry);
+        Gauge.builder("transaction.log.partitions", partitions, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${transactions.partitioning.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        shardRouting.forEachShard(() -> maintain(currentMonth));
+    }
+
+    /**
+     * Makes sure partitions exist from {@code currentMonth} up to {@code premake-months} ahead, and retires partitions
+     * that end before the retention window. A retention of 0 keeps every partition.
+     */
+    public void maintain(YearMonth currentMonth) {
+        List<Partition> existing = listPartitions();
+        LocalDateTime covered = existing.stream().map(Partition::upperBound).flatMap(Optional::stream)
+                .max(LocalDateTime::compareTo).orElse(currentMonth.atDay(1).atStartOfDay());
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            // Months already covered, e.g. by the legacy partition, cannot get a partition of their own
+            if (!month.atDay(1).atStartOfDay().isBefore(covered)) {
+                createPartition(month);
+            }
+        }
+        if (retentionMonths > 0) {
+            LocalDateTime cutoff = currentMonth.minusMonths(retentionMonths).atDay(1).atStartOfDay();
+            existing.stream()
+                    .filter(partition -> partition.detachPending()
+                            || partition.upperBound().filter(bound -> !bound.isAfter(cutoff)).isPresent())
+                    .forEach(this::retirePartition);
+        }
+        partitions.set(listPartitions().size());
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = "transaction_log_p" + month.format(SUFFIX);
+        String from = month.atDay(1).atStartOfDay().toString();
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().toString();
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '%dms'".formatted(lockTimeoutMs));
+                // CREATE ... PARTITION OF would lock the parent exclusively; creating the table on its own and
+                // attaching it only needs SHARE UPDATE EXCLUSIVE, and the CHECK constraint spares the validation scan
+                jdbcTemplate.execute("CREATE TABLE %s (LIKE transaction_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS)".formatted(name));
+                jdbcTemplate.execute("ALTER TABLE %s ADD CONSTRAINT %s_bounds CHECK (created_at >= '%s' AND created_at < '%s')"
+                        .formatted(name, name, from, to));
+                jdbcTemplate.execute("ALTER TABLE transaction_log ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                        .formatted(name, from, to));
+                jdbcTemplate.execute("ALTER TABLE %s DROP CONSTRAINT %s_bounds".formatted(name, name));
+            });
+            created.increment();
+            LOGGER.info("Created transaction_log partition {} for [{}, {})", name, from, to);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not create transaction_log partition {}, retrying on the next run: {}", name, e.getMessage());
+        }
+    }
+
+    private void retirePartition(Partition partition) {
+        try {
+            // CONCURRENTLY waits for running queries instead of locking them out, and cannot run inside a transaction.
+            // When its wait gives up, the partition stays marked as being detached and only FINALIZE can finish it
+            String detach = partition.detachPending() ? "FINALIZE" : "CONCURRENTLY";
+            // Reconciliation recomputes balances from the attached log plus what retired partitions held. Recorded
+            // afresh on every attempt, nothing is written to a partition past retention any more
+            transactionOperations.executeWithoutResult(status -> {
+                jdbcTemplate.update(DELETE_RETIRED_NET, partition.name());
+                jdbcTemplate.update(RECORD_RETIRED_NET.formatted(partition.name()), partition.name());
+            });
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET lock_timeout = '%dms'".formatted(lockTimeoutMs));
+                    try {
+                        statement.execute("ALTER TABLE transaction_log DETACH PARTITION %s %s".formatted(partition.name(), detach));
+                    } finally {
+                        statement.execute("RESET lock_timeout");
+                    }
+                }
+                return null;
+            });
+            if (expiredAction == ExpiredPartitionAction.DROP) {
+                jdbcTemplate.execute("DROP TABLE %s".formatted(partition.name()));
+            } else {
+                jdbcTemplate.execute("ALTER TABLE %s SET SCHEMA transaction_log_archive".formatted(partition.name()));
+            }
+            retired.increment();
+            LOGGER.info("Retired transaction_log partition {} ({})", partition.name(), expiredAction);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not retire transaction_log partition {}, retrying on the next run: {}", partition.name(), e.getMessage());
+        }
+    }
+
+    public List<Partition> listPartitions() {
+        return jdbcTemplate.query(LIST_PARTITIONS, (rs, rowNum) -> new Partition(rs.getString("relname"),
+                upperBound(rs.getString("bound")), rs.getBoolean("detach_pending")));
+    }
+
+    private static Optional<LocalDateTime> upperBound(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find()
+                ? Optional.of(LocalDateTime.parse(matcher.group(1).replace(' ', 'T')))
+                : Optional.empty();
+    }
+
+    /**
+     * @param upperBound    exclusive end of the partition's range, empty for an unbounded partition
+     * @param detachPending an earlier {@code DETACH ... CONCURRENTLY} was interrupted after its first step
+     */
+    public record Partition(String name, Optional<LocalDateTime> upperBound, boolean detachPending) {
+    }
+}
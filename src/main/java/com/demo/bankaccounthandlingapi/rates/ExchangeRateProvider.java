@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.rates;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+/**
+ * Source of exchange rates, selected with {@code exchange-rates.provider}.
+ * Rates are expressed as units of the currency per one EUR.
+ */
+public interface ExchangeRateProvider {
+
+    String name();
+
+    Map<Currency, BigDecimal> loadRatesToEur();
+}
@@ -0,0 +1,76 @@
+package com.demo.bankaccounthandlingapi.rates;
+
+import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Immutable set of rates with every cross rate divided out up front. Currencies are resolved to an ordinal
+ * through their ISO numeric code, so a conversion is two array reads, one multiply and one rescale.
+ */
+public final class ExchangeRateSnapshot {
+
+    // ISO 4217 numeric codes are three digits
+    private static final int NUMERIC_CODES = 1000;
+
+    private final int[] ordinalByNumericCode;
+    private final BigDecimal[][] crossRates;
+
+    private ExchangeRateSnapshot(int[] ordinalByNumericCode, BigDecimal[][] crossRates) {
+        this.ordinalByNumericCode = ordinalByNumericCode;
+        this.crossRates = crossRates;
+    }
+
+    public static ExchangeRateSnapshot of(Map<Currency, BigDecimal> ratesToEur) {
+        if (ratesToEur.isEmpty()) {
+            throw new IllegalArgumentException("At least one exchange rate is required");
+        }
+        List<Currency> currencies = new ArrayList<>(ratesToEur.keySet());
+        currencies.sort(Comparator.comparing(Currency::getCurrencyCode));
+
+        int[] ordinalByNumericCode = new int[NUMERIC_CODES];
+        Arrays.fill(ordinalByNumericCode, -1);
+        for (int ordinal = 0; ordinal < currencies.size(); ordinal++) {
+            Currency currency = currencies.get(ordinal);
+            int numericCode = currency.getNumericCode();
+            if (numericCode < 0 || numericCode >= NUMERIC_CODES) {
+                throw new IllegalArgumentException("Currency %s has no ISO numeric code".formatted(currency));
+            }
+            if (ratesToEur.get(currency).signum() <= 0) {
+                throw new IllegalArgumentException("Exchange rate for %s must be positive".formatted(currency));
+            }
+            ordinalByNumericCode[numericCode] = ordinal;
+        }
+
+        BigDecimal[][] crossRates = new BigDecimal[currencies.size()][currencies.size()];
+        for (int from = 0; from < currencies.size(); from++) {
+            BigDecimal fromRate = ratesToEur.get(currencies.get(from));
+            for (int to = 0; to < currencies.size(); to++) {
+                // Same ratio as Amount * (ToRate / FromRate), computed once instead of per conversion
+                crossRates[from][to] = ratesToEur.get(currencies.get(to)).divide(fromRate, MathContext.DECIMAL128);
+            }
+        }
+        return new ExchangeRateSnapshot(ordinalByNumericCode, crossRates);
+    }
+
+    public boolean isSupported(Currency currency) {
+        return ordinal(currency) >= 0;
+    }
+
+    public BigDecimal convert(Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
+        int from = ordinal(fromCurrency);
+        int to = ordinal(toCurrency);
+        if (from < 0 || to < 0) {
+            throw new CurrencyExchangeException(fromCurrency, toCurrency);
+        }
+        return amount.multiply(crossRates[from][to]).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    private int ordinal(Currency currency) {
+        int numericCode = currency.getNumericCode();
+        return numericCode >= 0 && numericCode < NUMERIC_CODES ? ordinalByNumericCode[numericCode] : -1;
+    }
+}
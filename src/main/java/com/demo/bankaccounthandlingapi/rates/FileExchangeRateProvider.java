@@ -0,0 +1,49 @@
+package com.demo.bankaccounthandlingapi.rates;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads rates from a properties file with one {@code CODE=rate} line per currency.
+ * The file is re-read on every refresh, so it can be replaced while the application runs.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rates.provider", havingValue = "file")
+public class FileExchangeRateProvider implements ExchangeRateProvider {
+
+    private final Resource location;
+
+    public FileExchangeRateProvider(@Value("${exchange-rates.file.location:classpath:exchange-rates.properties}") Resource location) {
+        this.location = location;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> loadRatesToEur() {
+        Properties properties;
+        try {
+            properties = PropertiesLoaderUtils.loadProperties(location);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read exchange rates from " + location, e);
+        }
+        Map<Currency, BigDecimal> rates = new HashMap<>();
+        properties.stringPropertyNames().forEach(code ->
+                rates.put(Currency.getInstance(code.trim()), new BigDecimal(properties.getProperty(code).trim())));
+        return rates;
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.bankaccounthandlingapi.rates;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fetches rates as a JSON object of {@code "CODE": rate} pairs from {@code exchange-rates.http.url}.
+ */
+@Component
+@ConditionalOnProperty(name = "exchange-rates.provider", havingValue = "http")
+public class HttpExchangeRateProvider implements ExchangeRateProvider {
+
+    private final RestClient restClient;
+
+    public HttpExchangeRateProvider(@Value("${exchange-rates.http.url}") String url) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Duration.ofSeconds(2));
+        factory.setReadTimeout(Duration.ofSeconds(2));
+
+        this.restClient = RestClient.builder()
+                .requestFactory(factory)
+                .baseUrl(url)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "http";
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> loadRatesToEur() {
+        Map<String, BigDecimal> body = restClient.get()
+                .retrieve()
+                .body(new ParameterizedTypeReference<>() {
+                });
+        if (body == null) {
+            throw new IllegalStateException("Exchange rate endpoint returned no rates");
+        }
+        Map<Currency, BigDecimal> rates = new HashMap<>();
+        body.forEach((code, rate) -> rates.put(Currency.getInstance(code), rate));
+        return rates;
+    }
+}
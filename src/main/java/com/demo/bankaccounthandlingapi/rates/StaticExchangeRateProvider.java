@@ -0,0 +1,30 @@
+package com.demo.bankaccounthandlingapi.rates;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "exchange-rates.provider", havingValue = "static", matchIfMissing = true)
+public class StaticExchangeRateProvider implements ExchangeRateProvider {
+
+    private static final Map<Currency, BigDecimal> RATES_TO_EUR = Map.of(
+            Currency.getInstance("EUR"), BigDecimal.ONE,
+            Currency.getInstance("USD"), new BigDecimal("1.05"),
+            Currency.getInstance("SEK"), new BigDecimal("11.50"),
+            Currency.getInstance("RUB"), new BigDecimal("105.00")
+    );
+
+    @Override
+    public String name() {
+        return "static";
+    }
+
+    @Override
+    public Map<Currency, BigDecimal> loadRatesToEur() {
+        return RATES_TO_EUR;
+    }
+}
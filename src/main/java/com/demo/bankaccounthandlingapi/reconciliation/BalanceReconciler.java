@@ -0,0 +1,288 @@
+package com.demo.bankaccounthandlingapi.reconciliation;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceDiscrepancyResponse;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proves that every balance equals the net of its {@code transaction_log} entries without summing the whole log.
+ * A checkpoint per balance records the last log id folded in and the amount verified at that point, so a run only
+ * reads the entries after it. The account id space is split into one range per worker, each range is checked in
+ * chunks, every chunk in one REPEATABLE READ snapshot so balances and log entries are seen at the same instant.
+ * <p>
+ * Log ids come from a pooled sequence and are not assigned in commit order: an entry can become visible with an id
+ * below a checkpoint that was already written. Such an entry is never folded in incrementally, the balance then no
+ * longer matches and the balance is recomputed from its full log before a discrepancy is reported.
+ * Partitions retired by {@code TransactionLogPartitionManager} leave their net per balance behind in
+ * {@code transaction_log_retired_net}, which a recompute adds to the entries still attached.
+ * <p>
+ * With sharding enabled every shard is reconciled on its own, a range of account ids never spans two shards.
+ */
+@Component
+public class BalanceReconciler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BalanceReconciler.class);
+    // Amount of a transaction_log row aliased t as it adds to its balance
+    public static final String SIGNED_AMOUNT =
+            "CASE WHEN t.type IN ('DEPOSIT', 'EXCHANGE_IN', 'TRANSFER_IN') THEN t.amount ELSE -t.amount END";
+    private static final String INCREMENTAL_QUERY = """
+            SELECT b.account_id, b.currency, b.amount + COALESCE(s.amount, 0) AS amount, COALESCE(c.verified_amount, 0) AS verified_amount,
+                   d.net, d.max_id, d.entries, x.account_id IS NOT NULL AS flagged
+            FROM balance b
+            LEFT JOIN balance_reconciliation_checkpoint c ON c.account_id = b.account_id AND c.currency = b.currency
+            LEFT JOIN balance_discrepancy x ON x.account_id = b.account_id AND x.currency = b.currency
+            CROSS JOIN LATERAL (
+                SELECT COALESCE(SUM(%s), 0) AS net, MAX(t.id) AS max_id, COUNT(*) AS entries
+                FROM transaction_log t
+                WHERE t.account_id = b.account_id AND t.currency = b.currency AND t.id > COALESCE(c.last_log_id, 0)
+            ) d
+            -- Striped balances hold part of their amount in slots
+            CROSS JOIN LATERAL (
+                SELECT SUM(amount) AS amount FROM balance_slot
+                WHERE account_id = b.account_id AND currency = b.currency
+            ) s
+            WHERE b.account_id >= ? AND b.account_id < ?
+            """.formatted(SIGNED_AMOUNT);
+    // Retired partitions count with the net recorded when they were retired, unless they are attached (again).
+    // One being detached is no longer read through transaction_log, so its recorded net counts already
+    private static final String FULL_QUERY = """
+            SELECT COALESCE(SUM(net), 0) AS net, COALESCE(MAX(max_id), 0) AS max_id
+            FROM (
+                SELECT SUM(%s) AS net, MAX(t.id) AS max_id
+                FROM transaction_log t
+                WHERE t.account_id = ? AND t.currency = ?
+                UNION ALL
+                SELECT r.net, r.max_log_id
+                FROM transaction_log_retired_net r
+                WHERE r.account_id = ? AND r.currency = ?
+                  AND NOT EXISTS (
+                    SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                    WHERE i.inhparent = 'transaction_log'::regclass AND c.relname = r.partition_name AND NOT i.inhdetachpending
+                  )
+            ) log
+            """.formatted(SIGNED_AMOUNT);
+    private static final String UPSERT_CHECKPOINT = """
+            INSERT INTO balance_reconciliation_checkpoint (account_id, currency, last_log_id, verified_amount, checked_at)
+            VALUES (?, ?, ?, ?, NOW())
+            ON CONFLICT (account_id, currency)
+            DO UPDATE SET last_log_id = EXCLUDED.last_log_id, verified_amount = EXCLUDED.verified_amount, checked_at = NOW()
+            """;
+    private static final String UPSERT_DISCREPANCY = """
+            INSERT INTO balance_discrepancy (account_id, currency, balance_amount, log_amount)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (account_id, currency)
+            DO UPDATE SET balance_amount = EXCLUDED.balance_amount, log_amount = EXCLUDED.log_amount
+            """;
+    private static final String DELETE_DISCREPANCY = "DELETE FROM balance_discrepancy WHERE account_id = ? AND currency = ?";
+    private static final String SELECT_DISCREPANCIES = """
+            SELECT account_id, currency, balance_amount, log_amount, detected_at
+            FROM balance_discrepancy
+            WHERE ?::bigint IS NULL OR account_id = ?
+            ORDER BY account_id, currency
+            """;
+
+    public record Result(int balancesChecked, long entriesFolded, int fullRecomputes, int discrepancies) {}
+
+    private record BalanceState(long accountId, String currency, BigDecimal amount, BigDecimal verifiedAmount,
+                                BigDecimal net, Long maxId, long entries, boolean flagged) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int workers;
+    private final int chunkSize;
+    private final Timer runTimer;
+    private final Counter entriesFolded;
+    private final Counter fullRecomputes;
+    private final AtomicInteger discrepancies = new AtomicInteger();
+
+    public BalanceReconciler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                             ShardRouting shardRouting,
+                             @Value("${balance.reconciliation.enabled:true}") boolean enabled,
+                             @Value("${balance.reconciliation.workers:4}") int workers,
+                             @Value("${balance.reconciliation.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+        this.runTimer = Timer.builder("balance.reconciliation.runs").register(meterRegistry);
+        this.entriesFolded = Counter.builder("balance.reconciliation.entries.folded")
+                .description("Log entries added onto a checkpoint")
+                .register(meterRegistry);
+        this.fullRecomputes = Counter.builder("balance.reconciliation.full.recomputes")
+                .description("Balances that did not match incrementally and were summed over their full log")
+                .register(meterRegistry);
+        Gauge.builder("balance.reconciliation.discrepancies", discrepancies, AtomicInteger::get)
+                .description("Balances that do not match their transaction log")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${balance.reconciliation.interval-ms:60000}", fixedDelayString = "${balance.reconciliation.interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Result result = runTimer.record(this::reconcileAll);
+        if (result.discrepancies() > 0) {
+            LOGGER.error("{} balances do not match their transaction log", result.discrepancies());
+        }
+    }
+
+    /**
+     * Checks every balance once, folding in the log entries added since its checkpoint.
+     */
+    public Result reconcileAll() {
+        List<Result> shards = shardRouting.onEachShard(this::reconcileShard);
+        int open = shards.stream().mapToInt(Result::discrepancies).sum();
+        discrepancies.set(open);
+        return new Result(shards.stream().mapToInt(Result::balancesChecked).sum(),
+                shards.stream().mapToLong(Result::entriesFolded).sum(),
+                shards.stream().mapToInt(Result::fullRecomputes).sum(),
+                open);
+    }
+
+    private Result reconcileShard() {
+        Long minAccountId = jdbcTemplate.queryForObject("SELECT MIN(account_id) FROM balance", Long.class);
+        Long maxAccountId = jdbcTemplate.queryForObject("SELECT MAX(account_id) FROM balance", Long.class);
+        List<Result> results = new ArrayList<>();
+        if (minAccountId != null) {
+            long span = maxAccountId - minAccountId + 1;
+            long rangeSize = Math.ceilDiv(span, workers);
+            // Workers mostly wait on the database, the pool bounds how many of them query at once
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Result>> futures = new ArrayList<>();
+                for (long from = minAccountId; from <= maxAccountId; from += rangeSize) {
+                    long rangeFrom = from;
+                    long rangeTo = Math.min(from + rangeSize, maxAccountId + 1);
+                    futures.add(executor.submit(() -> reconcileRange(rangeFrom, rangeTo)));
+                }
+                for (Future<Result> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconciliation was interrupted", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Reconciliation failed", e);
+            }
+        }
+        Integer open = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_discrepancy", Integer.class);
+        return new Result(results.stream().mapToInt(Result::balancesChecked).sum(),
+                results.stream().mapToLong(Result::entriesFolded).sum(),
+                results.stream().mapToInt(Result::fullRecomputes).sum(),
+                open);
+    }
+
+    /**
+     * Checks the balances of accounts in {@code [fromAccountId, toAccountId)}, one snapshot transaction per chunk.
+     * The range is read on the shard of {@code fromAccountId}.
+     */
+    public Result reconcileRange(long fromAccountId, long toAccountId) {
+        return shardRouting.onShardOf(fromAccountId, () -> reconcileChunks(fromAccountId, toAccountId));
+    }
+
+    private Result reconcileChunks(long fromAccountId, long toAccountId) {
+        int checked = 0;
+        long folded = 0;
+        int recomputed = 0;
+        int mismatched = 0;
+        for (long from = fromAccountId; from < toAccountId; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize, toAccountId);
+            Result chunk = snapshotTransaction.execute(status -> reconcileChunk(chunkFrom, chunkTo));
+            checked += chunk.balancesChecked();
+            folded += chunk.entriesFolded();
+            recomputed += chunk.fullRecomputes();
+            mismatched += chunk.discrepancies();
+        }
+        return new Result(checked, folded, recomputed, mismatched);
+    }
+
+    public List<BalanceDiscrepancyResponse> getDiscrepancies(Long accountId) {
+        if (accountId == null) {
+            return shardRouting.onEachShard(() -> queryDiscrepancies(null)).stream().flatMap(List::stream).toList();
+        }
+        return shardRouting.isKnown(accountId) ? shardRouting.onShardOf(accountId, () -> queryDiscrepancies(accountId)) : List.of();
+    }
+
+    private List<BalanceDiscrepancyResponse> queryDiscrepancies(Long accountId) {
+        return jdbcTemplate.query(SELECT_DISCREPANCIES, (rs, rowNum) -> new BalanceDiscrepancyResponse(
+                rs.getLong("account_id"),
+                rs.getString("currency"),
+                rs.getBigDecimal("balance_amount"),
+                rs.getBigDecimal("log_amount"),
+                rs.getObject("detected_at", OffsetDateTime.class).toInstant()), accountId, accountId);
+    }
+
+    private Result reconcileChunk(long fromAccountId, long toAccountId) {
+        List<BalanceState> states = jdbcTemplate.query(INCREMENTAL_QUERY, (rs, rowNum) -> new BalanceState(
+                rs.getLong("account_id"),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                rs.getBigDecimal("verified_amount"),
+                rs.getBigDecimal("net"),
+                rs.getObject("max_id", Long.class),
+                rs.getLong("entries"),
+                rs.getBoolean("flagged")), fromAccountId, toAccountId);
+        long folded = 0;
+        int recomputed = 0;
+        int mismatched = 0;
+        for (BalanceState state : states) {
+            if (state.verifiedAmount().add(state.net()).compareTo(state.amount()) == 0) {
+                if (state.entries() > 0) {
+                    jdbcTemplate.update(UPSERT_CHECKPOINT, state.accountId(), state.currency(), state.maxId(), state.amount());
+                    folded += state.entries();
+                }
+                if (state.flagged()) {
+                    jdbcTemplate.update(DELETE_DISCREPANCY, state.accountId(), state.currency());
+                }
+                continue;
+            }
+            // Either an entry committed below the checkpoint or the balance really is off, the full log tells which
+            recomputed++;
+            Map<String, Object> full = jdbcTemplate.queryForMap(FULL_QUERY,
+                    state.accountId(), state.currency(), state.accountId(), state.currency());
+            BigDecimal logAmount = (BigDecimal) full.get("net");
+            if (logAmount.compareTo(state.amount()) == 0) {
+                jdbcTemplate.update(UPSERT_CHECKPOINT, state.accountId(), state.currency(), full.get("max_id"), state.amount());
+                if (state.flagged()) {
+                    jdbcTemplate.update(DELETE_DISCREPANCY, state.accountId(), state.currency());
+                }
+            } else {
+                mismatched++;
+                LOGGER.warn("Balance {} {} is {} but its transaction log adds up to {}",
+                        state.accountId(), state.currency(), state.amount(), logAmount);
+                jdbcTemplate.update(UPSERT_DISCREPANCY, state.accountId(), state.currency(), state.amount(), logAmount);
+            }
+        }
+        entriesFolded.increment(folded);
+        fullRecomputes.increment(recomputed);
+        return new Result(states.size(), folded, recomputed, mismatched);
+    }
+}
@@ -0,0 +1,18 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface AccountLockingRepository {
+
+    /**
+     * Loads the account and takes {@code SELECT ... FOR UPDATE} on its row for the rest of the transaction.
+     *
+     * @param lockTimeout how long to wait for a competing lock: zero fails immediately (NOWAIT),
+     *                    a negative duration waits indefinitely
+     * @throws org.springframework.dao.PessimisticLockingFailureException if the lock is not granted in time
+     */
+    Optional<Account> findByIdForUpdate(Long accountId, Duration lockTimeout);
+}
@@ -0,0 +1,36 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+class AccountLockingRepositoryImpl implements AccountLockingRepository {
+
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+
+    private final EntityManager entityManager;
+
+    AccountLockingRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Account> findByIdForUpdate(Long accountId, Duration lockTimeout) {
+        if (lockTimeout.isNegative()) {
+            return Optional.ofNullable(entityManager.find(Account.class, accountId, LockModeType.PESSIMISTIC_WRITE));
+        }
+        if (!lockTimeout.isZero()) {
+            // Hibernate can only render NOWAIT for Postgres, a bounded wait has to be set on the transaction itself
+            entityManager.createNativeQuery("SELECT set_config('lock_timeout', :timeout, true)")
+                    .setParameter("timeout", lockTimeout.toMillis() + "ms")
+                    .getSingleResult();
+        }
+        // A zero timeout makes Hibernate append NOWAIT
+        return Optional.ofNullable(entityManager.find(Account.class, accountId, LockModeType.PESSIMISTIC_WRITE,
+                Map.<String, Object>of(LOCK_TIMEOUT_HINT, Math.toIntExact(lockTimeout.toMillis()))));
+    }
+}
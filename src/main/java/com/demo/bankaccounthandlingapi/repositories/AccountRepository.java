@@ -1,16 +1,19 @@
 package com.demo.bankaccounthandlingapi.repositories;
 
 import com.demo.bankaccounthandlingapi.entities.Account;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
+/**
+ * {@code findById} and {@code existsById} never lock. Mutations that need the account row lock
+ * go through {@link AccountLockingRepository#findByIdForUpdate}.
+ */
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountLockingRepository {
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Optional<Account> findById(Long accountId);
+    // Blocks until the lock is granted; Postgres releases it on commit or rollback
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) AS advisory_lock", nativeQuery = true)
+    Integer acquireAdvisoryXactLock(@Param("key") long key);
 }
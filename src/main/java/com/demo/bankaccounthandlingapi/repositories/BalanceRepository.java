@@ -1,13 +1,77 @@
 package com.demo.bankaccounthandlingapi.repositories;
 
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
 import com.demo.bankaccounthandlingapi.entities.Balance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface BalanceRepository extends JpaRepository<Balance, Long> {
 
+    // Reads are read-only transactions of their own when called outside one, which lets them go to the replica
+    @Transactional(readOnly = true)
     Optional<Balance> findBalanceByAccountIdAndCurrency(Long accountId, String currency);
+
+    List<Balance> findByAccountIdIn(Collection<Long> accountIds);
+
+    // DTO projections: only currency and amount are selected, through the (account_id, currency) unique index
+    @Transactional(readOnly = true)
+    List<BalanceResponse> findByAccountIdOrderByCurrency(Long accountId);
+
+    @Transactional(readOnly = true)
+    List<BalanceResponse> findByAccountIdAndCurrencyInOrderByCurrency(Long accountId, Collection<String> currencies);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT b.version FROM Balance b WHERE b.account.id = :accountId AND b.currency = :currency")
+    Optional<Long> findVersion(@Param("accountId") Long accountId, @Param("currency") String currency);
+
+    /**
+     * Applies a signed delta to a balance and writes the matching transaction log row in a single statement.
+     * The balance row is created on the first positive delta, and a delta that would take the amount below zero
+     * updates nothing. An empty result therefore means either a missing account or insufficient funds.
+     */
+    @Query(value = """
+            WITH changed AS (
+                INSERT INTO balance (account_id, currency, amount, version)
+                SELECT a.id, :currency, :delta, 0
+                FROM account a
+                WHERE a.id = :accountId
+                  AND (:delta >= 0 OR EXISTS (
+                      SELECT 1 FROM balance b WHERE b.account_id = a.id AND b.currency = :currency))
+                ON CONFLICT (account_id, currency) DO UPDATE
+                    SET amount = balance.amount + EXCLUDED.amount,
+                        version = balance.version + 1
+                    WHERE balance.amount + EXCLUDED.amount >= 0
+                RETURNING account_id, amount, version
+            ), logged AS (
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type)
+                SELECT account_id, :referenceId, :loggedAmount, :currency, :type FROM changed
+            )
+            SELECT amount, version FROM changed
+            """, nativeQuery = true)
+    Optional<AppliedDelta> applyDeltaAndLog(@Param("accountId") Long accountId,
+                                          @Param("currency") String currency,
+                                          @Param("delta") BigDecimal delta,
+                                          @Param("loggedAmount") BigDecimal loggedAmount,
+                                          @Param("type") String type,
+                                          @Param("referenceId") UUID referenceId);
+
+    /**
+     * Balance after {@link #applyDeltaAndLog}, with the version it was written with.
+     */
+    interface AppliedDelta {
+
+        BigDecimal getAmount();
+
+        Long getVersion();
+    }
 }
@@ -0,0 +1,24 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.entities.ExternalLogOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ExternalLogOutboxRepository extends JpaRepository<ExternalLogOutbox, Long> {
+
+    // SKIP LOCKED lets several dispatcher instances drain the table without blocking each other
+    @Query(value = """
+            SELECT * FROM external_log_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ExternalLogOutbox> lockDueEntries(@Param("now") Instant now, @Param("limit") int limit);
+}
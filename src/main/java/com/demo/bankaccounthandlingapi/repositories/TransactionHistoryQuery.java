@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+
+import java.time.Instant;
+
+/**
+ * One page of an account's transaction history, newest first. Every filter is optional (null).
+ *
+ * @param from           inclusive lower bound of {@code created_at}
+ * @param to             exclusive upper bound of {@code created_at}
+ * @param afterCreatedAt together with {@code afterId}, the last row of the previous page
+ */
+public record TransactionHistoryQuery(Long accountId, TransactionType type, String currency, Instant from, Instant to,
+                                      Instant afterCreatedAt, Long afterId, int limit) {
+}
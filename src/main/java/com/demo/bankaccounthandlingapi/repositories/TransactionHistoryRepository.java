@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionResponse;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface TransactionHistoryRepository {
+
+    /**
+     * Seeks past the previous page on {@code (created_at, id)} instead of skipping rows with OFFSET,
+     * so deep pages are read straight from the {@code (account_id, created_at, id)} index.
+     */
+    @Transactional(readOnly = true)
+    List<TransactionResponse> findHistory(TransactionHistoryQuery query);
+}
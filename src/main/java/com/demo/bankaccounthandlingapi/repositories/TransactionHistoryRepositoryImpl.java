@@ -0,0 +1,70 @@
+package com.demo.bankaccounthandlingapi.repositories;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionResponse;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    TransactionHistoryRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<TransactionResponse> findHistory(TransactionHistoryQuery query) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, reference_id, type, currency, amount, created_at
+                FROM transaction_log
+                WHERE account_id = :accountId
+                """);
+        MapSqlParameterSource parameters = new MapSqlParameterSource("accountId", query.accountId())
+                .addValue("limit", query.limit());
+        // Absent filters are left out of the statement rather than bound as NULL, which keeps the plan on the index
+        if (query.type() != null) {
+            sql.append(" AND type = :type");
+            parameters.addValue("type", query.type().name());
+        }
+        if (query.currency() != null) {
+            sql.append(" AND currency = :currency");
+            parameters.addValue("currency", query.currency());
+        }
+        if (query.from() != null) {
+            sql.append(" AND created_at >= :from");
+            parameters.addValue("from", toColumn(query.from()));
+        }
+        if (query.to() != null) {
+            sql.append(" AND created_at < :to");
+            parameters.addValue("to", toColumn(query.to()));
+        }
+        if (query.afterCreatedAt() != null) {
+            // Row value comparison, Postgres turns it into a single index range bound. The plain created_at bound
+            // is implied by it, but only a plain bound lets the planner prune the newer partitions
+            sql.append(" AND (created_at, id) < (:afterCreatedAt, :afterId) AND created_at <= :afterCreatedAt");
+            parameters.addValue("afterCreatedAt", toColumn(query.afterCreatedAt()))
+                    .addValue("afterId", query.afterId());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+
+        return jdbcTemplate.query(sql.toString(), parameters, (rs, rowNum) -> new TransactionResponse(
+                rs.getLong("id"),
+                rs.getObject("reference_id", UUID.class),
+                TransactionType.valueOf(rs.getString("type")),
+                rs.getString("currency"),
+                rs.getBigDecimal("amount"),
+                rs.getObject("created_at", LocalDateTime.class).toInstant(ZoneOffset.UTC)));
+    }
+
+    // created_at has no time zone and holds UTC, the same way Hibernate writes Instant values
+    private static LocalDateTime toColumn(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
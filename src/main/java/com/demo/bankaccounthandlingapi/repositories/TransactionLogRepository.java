@@ -5,5 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TransactionLogRepository extends JpaRepository<TransactionLog, Long> {
+public interface TransactionLogRepository extends JpaRepository<TransactionLog, Long>, TransactionHistoryRepository {
+
+    long countByAccountId(Long accountId);
 }
@@ -0,0 +1,34 @@
+package com.demo.bankaccounthandlingapi.routing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets callers pin reads to the primary, e.g. when the replica has not replayed a write the client already saw.
+ * Read-only transactions started inside {@link #onPrimary} use the primary even while the replica is usable.
+ */
+@Component
+public class ReadRouting {
+
+    private static final ScopedValue<Boolean> PRIMARY = ScopedValue.newInstance();
+
+    private final boolean replicaEnabled;
+
+    public ReadRouting(@Value("${datasource.replica.enabled:false}") boolean replicaEnabled) {
+        this.replicaEnabled = replicaEnabled;
+    }
+
+    public boolean isReplicaEnabled() {
+        return replicaEnabled;
+    }
+
+    public <T> T onPrimary(Supplier<T> work) {
+        return ScopedValue.where(PRIMARY, true).call(work::get);
+    }
+
+    static boolean isPrimaryRequired() {
+        return PRIMARY.isBound();
+    }
+}
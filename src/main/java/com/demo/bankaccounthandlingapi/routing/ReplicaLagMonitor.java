@@ -0,0 +1,62 @@
+package com.demo.bankaccounthandlingapi.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Measures how far the replica is behind the primary. Reads go to the replica only while the last measured lag
+ * is at most {@code datasource.replica.max-lag-ms}; before the first measurement and while the replica cannot be
+ * reached or is not streaming from the primary they use the primary.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNKNOWN = -1;
+    // A replica that replayed everything it received is not lagging, however old its last replayed transaction is
+    // (an idle primary sends nothing new), but only while it is still streaming: one cut off from the primary has
+    // replayed all it received too. Its lag is unknown (null). Reading the receiver's status takes pg_read_all_stats,
+    // without it the replica is never used. A server that is not in recovery is a primary and never lags.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE (EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000)::bigint
+            END
+            """;
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMs;
+    private volatile long lagMs = UNKNOWN;
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, MeterRegistry meterRegistry, long maxLagMs) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Replication lag of the read replica in milliseconds, -1 when unknown")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        long lag = lagMs;
+        return lag != UNKNOWN && lag <= maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void measureLag() {
+        try {
+            Long lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Long.class);
+            lagMs = lag == null ? UNKNOWN : lag;
+        } catch (RuntimeException e) {
+            if (lagMs != UNKNOWN) {
+                LOGGER.warn("Read replica unreachable, reading from the primary: {}", e.getMessage());
+            }
+            lagMs = UNKNOWN;
+        }
+    }
+}
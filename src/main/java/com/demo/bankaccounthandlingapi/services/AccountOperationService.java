@@ -1,26 +1,63 @@
 package com.demo.bankaccounthandlingapi.services;
 
 import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.CircuitOpenPolicy;
+import com.demo.bankaccounthandlingapi.enums.ExternalLoggingMode;
+import com.demo.bankaccounthandlingapi.exceptions.CircuitBreakerOpenException;
 import com.demo.bankaccounthandlingapi.external.ExternalLoggingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 @Service
 public class AccountOperationService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountOperationService.class);
+
     private final ExternalLoggingService externalLoggingService;
     private final BalanceService balanceService;
+    private final ExternalLoggingMode externalLoggingMode;
+    private final CircuitOpenPolicy circuitOpenPolicy;
+    private final Executor externalCallExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-    public AccountOperationService(ExternalLoggingService externalLoggingService, BalanceService balanceService) {
+    public AccountOperationService(ExternalLoggingService externalLoggingService, BalanceService balanceService,
+                                   @Value("${external.logging.mode:OUTBOX}") ExternalLoggingMode externalLoggingMode,
+                                   @Value("${external.logging.circuit-breaker.open-policy:REJECT}") CircuitOpenPolicy circuitOpenPolicy) {
         this.externalLoggingService = externalLoggingService;
         this.balanceService = balanceService;
+        this.externalLoggingMode = externalLoggingMode;
+        this.circuitOpenPolicy = circuitOpenPolicy;
     }
 
     public BalanceResponse debitAccount(Long accountId, String currency, BigDecimal amount) {
-        externalLoggingService.sendLog();
+        if (externalLoggingMode == ExternalLoggingMode.PARALLEL) {
+            // The debit does its database work while the call is in flight and commits only once it succeeded
+            CompletableFuture<Void> externalLog = CompletableFuture.runAsync(() -> sendLog(accountId), externalCallExecutor);
+            return balanceService.debit(accountId, currency, amount, externalLog);
+        }
+        // In OUTBOX mode the debit transaction records the external log entry itself
+        if (externalLoggingMode == ExternalLoggingMode.SYNC) {
+            sendLog(accountId);
+        }
 
         return balanceService.debit(accountId, currency, amount);
     }
 
+    private void sendLog(Long accountId) {
+        try {
+            externalLoggingService.sendLog();
+        } catch (CircuitBreakerOpenException e) {
+            if (circuitOpenPolicy == CircuitOpenPolicy.REJECT) {
+                throw e;
+            }
+            LOGGER.warn("External logging circuit is open, debiting account {} without the external log entry", accountId);
+        }
+    }
+
 }
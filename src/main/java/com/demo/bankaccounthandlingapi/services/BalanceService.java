@@ -1,39 +1,102 @@
 package com.demo.bankaccounthandlingapi.services;
 
+import com.demo.bankaccounthandlingapi.caching.BalanceCache;
+import com.demo.bankaccounthandlingapi.coalescing.PendingWithdrawal;
+import com.demo.bankaccounthandlingapi.coalescing.WithdrawalCoalescer;
+import com.demo.bankaccounthandlingapi.dtos.AccountBalancesResponse;
 import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
 import com.demo.bankaccounthandlingapi.entities.Account;
 import com.demo.bankaccounthandlingapi.entities.Balance;
 import com.demo.bankaccounthandlingapi.enums.TransactionType;
 import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
 import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+import com.demo.bankaccounthandlingapi.exceptions.IdempotencyKeyInUseException;
+import com.demo.bankaccounthandlingapi.exceptions.IllegalBalanceUpdateException;
 import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.ledger.LedgerCommand;
+import com.demo.bankaccounthandlingapi.ledger.LedgerEngine;
+import com.demo.bankaccounthandlingapi.locking.AccountLockStrategy;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
 import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
 import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
+import com.demo.bankaccounthandlingapi.striping.StripedBalanceStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
-import java.util.Currency;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Service
 public class BalanceService {
 
+    private static final CompletableFuture<Void> NO_PRECONDITION = CompletableFuture.completedFuture(null);
+
     private final BalanceRepository balanceRepository;
     private final AccountRepository accountRepository;
     private final TransactionLogService transactionLogService;
     private final ExchangeRateService exchangeRateService;
+    private final ExternalLogOutboxService externalLogOutboxService;
+    private final AccountLockStrategy accountLockStrategy;
+    private final TransactionOperations transactionOperations;
+    private final LedgerEngine ledgerEngine;
+    private final WithdrawalCoalescer withdrawalCoalescer;
+    private final BalanceCache balanceCache;
+    private final BalanceMetrics balanceMetrics;
+    private final IdempotencyService idempotencyService;
+    private final StripedBalanceStore stripedBalanceStore;
+    private final ReadRouting readRouting;
+    private final boolean atomicMutations;
 
-    public BalanceService(BalanceRepository balanceRepository, AccountRepository accountRepository, TransactionLogService transactionLogService, ExchangeRateService exchangeRateService) {
+    public BalanceService(BalanceRepository balanceRepository, AccountRepository accountRepository, TransactionLogService transactionLogService,
+                          ExchangeRateService exchangeRateService, ExternalLogOutboxService externalLogOutboxService,
+                          AccountLockStrategy accountLockStrategy, TransactionOperations transactionOperations, LedgerEngine ledgerEngine,
+                          WithdrawalCoalescer withdrawalCoalescer, BalanceCache balanceCache, BalanceMetrics balanceMetrics,
+                          IdempotencyService idempotencyService, StripedBalanceStore stripedBalanceStore, ReadRouting readRouting,
+                          @Value("${balance.atomic-mutations.enabled:false}") boolean atomicMutations) {
         this.balanceRepository = balanceRepository;
         this.accountRepository = accountRepository;
         this.transactionLogService = transactionLogService;
         this.exchangeRateService = exchangeRateService;
+        this.externalLogOutboxService = externalLogOutboxService;
+        this.accountLockStrategy = accountLockStrategy;
+        this.transactionOperations = transactionOperations;
+        this.ledgerEngine = ledgerEngine;
+        this.withdrawalCoalescer = withdrawalCoalescer;
+        this.balanceCache = balanceCache;
+        this.balanceMetrics = balanceMetrics;
+        this.idempotencyService = idempotencyService;
+        this.stripedBalanceStore = stripedBalanceStore;
+        this.readRouting = readRouting;
+        this.atomicMutations = atomicMutations;
     }
 
-    @Transactional
     public BalanceResponse deposit(Long accountId, String currency, BigDecimal amount) {
-        final var account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        return balanceMetrics.record("deposit", () -> applyDeposit(accountId, currency, amount));
+    }
+
+    private BalanceResponse applyDeposit(Long accountId, String currency, BigDecimal amount) {
+        if (stripedBalanceStore.handles(accountId)) {
+            return inIdempotentTransaction(() -> stripedBalanceStore.deposit(accountId, currency, amount));
+        }
+        if (ledgerEngine.handles(accountId)) {
+            return ledgerEngine.execute(new LedgerCommand.Deposit(accountId, currency, amount));
+        }
+        if (atomicMutations) {
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalBalanceUpdateException(accountId);
+            }
+            return inIdempotentTransaction(() -> applyAtomically(accountId, currency, amount, amount, TransactionType.DEPOSIT));
+        }
+        return inIdempotentTransaction(() -> depositLocked(accountId, currency, amount));
+    }
+
+    private BalanceResponse depositLocked(Long accountId, String currency, BigDecimal amount) {
+        final var account = accountLockStrategy.lock(accountId, List.of(currency));
 
         Balance balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency)
                 .orElseGet(() -> new Balance()
@@ -43,19 +106,77 @@ public class BalanceService {
 
         balance.deposit(amount);
         balanceRepository.save(balance);
+        balanceCache.updateAfterCommit(balance);
 
         transactionLogService.logTransaction(account, TransactionType.DEPOSIT, amount, currency);
 
         return new BalanceResponse(balance.getCurrency(), balance.getAmount());
     }
 
-    @Transactional
     public BalanceResponse debit(Long accountId, String currency, BigDecimal amount) {
+        return debit(accountId, currency, amount, NO_PRECONDITION);
+    }
+
+    /**
+     * Debit that commits only after {@code precondition} completed successfully. The database work runs while the
+     * precondition is still pending and the transaction waits for it right before committing; if it fails, the
+     * transaction rolls back and the cause is rethrown. A debit that fails on its own does not wait for it.
+     */
+    public BalanceResponse debit(Long accountId, String currency, BigDecimal amount, CompletableFuture<?> precondition) {
+        return balanceMetrics.record("debit", () -> applyDebit(accountId, currency, amount, precondition));
+    }
+
+    private BalanceResponse applyDebit(Long accountId, String currency, BigDecimal amount, CompletableFuture<?> precondition) {
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Debit amount must be positive");
         }
-        final var account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        if (stripedBalanceStore.handles(accountId)) {
+            return inIdempotentTransaction(() -> {
+                BalanceResponse response = stripedBalanceStore.debit(accountId, currency, amount);
+                externalLogOutboxService.enqueueWithdrawal(accountRepository.getReferenceById(accountId), amount, currency);
+                awaitPrecondition(precondition);
+                return response;
+            });
+        }
+        if (ledgerEngine.handles(accountId)) {
+            // The shard commits on its own thread, so the precondition has to be settled before the command is queued
+            awaitPrecondition(precondition);
+            return ledgerEngine.execute(new LedgerCommand.Debit(accountId, currency, amount));
+        }
+        if (atomicMutations) {
+            return inIdempotentTransaction(() -> {
+                BalanceResponse response = applyAtomically(accountId, currency, amount.negate(), amount, TransactionType.WITHDRAWAL);
+                externalLogOutboxService.enqueueWithdrawal(accountRepository.getReferenceById(accountId), amount, currency);
+                awaitPrecondition(precondition);
+                return response;
+            });
+        }
+        if (withdrawalCoalescer.isEnabled()) {
+            // A batch shares one transaction, a single failed precondition must not roll back the other withdrawals
+            awaitPrecondition(precondition);
+            return withdrawalCoalescer.submit(accountId, currency, amount, idempotencyService.pendingKey().orElse(null),
+                    this::debitBatch);
+        }
+        return inIdempotentTransaction(() -> {
+            BalanceResponse response = debitLocked(accountId, currency, amount);
+            awaitPrecondition(precondition);
+            return response;
+        });
+    }
+
+    private static void awaitPrecondition(CompletableFuture<?> precondition) {
+        try {
+            precondition.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private BalanceResponse debitLocked(Long accountId, String currency, BigDecimal amount) {
+        final var account = accountLockStrategy.lock(accountId, List.of(currency));
 
         Balance balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency)
                 .orElseThrow(() -> new InsufficientFundsException(accountId, currency));
@@ -63,21 +184,166 @@ public class BalanceService {
         balance.debit(amount);
 
         balanceRepository.save(balance);
+        balanceCache.updateAfterCommit(balance);
 
         transactionLogService.logTransaction(account, TransactionType.WITHDRAWAL, amount, currency);
+        externalLogOutboxService.enqueueWithdrawal(account, amount, currency);
 
         return new BalanceResponse(balance.getCurrency(), balance.getAmount());
     }
 
-    @Transactional(readOnly = true)
+    // Applies a coalesced batch of withdrawals in arrival order under a single lock and transaction.
+    // Results are only handed out after the commit, a failed transaction fails the whole batch.
+    private void debitBatch(Long accountId, List<PendingWithdrawal> withdrawals) {
+        List<DebitOutcome> outcomes;
+        try {
+            outcomes = inTransaction(() -> debitBatchLocked(accountId, withdrawals));
+        } catch (RuntimeException e) {
+            withdrawals.forEach(it -> it.result().completeExceptionally(e));
+            return;
+        }
+        outcomes.forEach(outcome -> {
+            if (outcome.failure() != null) {
+                outcome.withdrawal().result().completeExceptionally(outcome.failure());
+            } else {
+                outcome.withdrawal().result().complete(outcome.response());
+            }
+        });
+    }
+
+    private List<DebitOutcome> debitBatchLocked(Long accountId, List<PendingWithdrawal> withdrawals) {
+        Set<String> currencies = new TreeSet<>();
+        withdrawals.forEach(it -> currencies.add(it.currency()));
+        final var account = accountLockStrategy.lock(accountId, currencies);
+
+        // Every balance is loaded up front so no query auto-flushes in between and the writes batch
+        Map<String, Balance> balances = new HashMap<>();
+        currencies.forEach(currency -> balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency)
+                .ifPresent(balance -> balances.put(currency, balance)));
+
+        List<DebitOutcome> outcomes = new ArrayList<>(withdrawals.size());
+        for (PendingWithdrawal withdrawal : withdrawals) {
+            Balance balance = balances.get(withdrawal.currency());
+            if (balance == null || balance.getAmount().compareTo(withdrawal.amount()) < 0) {
+                outcomes.add(new DebitOutcome(withdrawal, null, new InsufficientFundsException(accountId, withdrawal.currency())));
+                continue;
+            }
+            // The key is written before the withdrawal is applied, a key a concurrent request took fails only this one
+            BalanceResponse response = new BalanceResponse(balance.getCurrency(), balance.getAmount().subtract(withdrawal.amount()));
+            if (withdrawal.idempotencyKey() != null && !idempotencyService.record(withdrawal.idempotencyKey(), response)) {
+                outcomes.add(new DebitOutcome(withdrawal, null, new IdempotencyKeyInUseException(withdrawal.idempotencyKey().key())));
+                continue;
+            }
+            balance.debit(withdrawal.amount());
+            transactionLogService.logTransaction(account, TransactionType.WITHDRAWAL, withdrawal.amount(), withdrawal.currency());
+            externalLogOutboxService.enqueueWithdrawal(account, withdrawal.amount(), withdrawal.currency());
+            outcomes.add(new DebitOutcome(withdrawal, response, null));
+        }
+        balanceRepository.saveAll(balances.values());
+        balances.values().forEach(balanceCache::updateAfterCommit);
+        return outcomes;
+    }
+
+    private record DebitOutcome(PendingWithdrawal withdrawal, BalanceResponse response, RuntimeException failure) {
+    }
+
     public BalanceResponse getBalance(Long accountId, String currency) {
-        return balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency)
+        return getBalance(accountId, currency, null);
+    }
+
+    /**
+     * Not transactional: a cache hit must not take a connection, a miss runs in the repository's read-only transaction
+     * and may be served by the replica. With a {@code minVersion}, the version a client got back from its last write,
+     * a replica that has not replayed that write yet is bypassed and the primary answers.
+     */
+    public BalanceResponse getBalance(Long accountId, String currency, Long minVersion) {
+        return balanceMetrics.record("get", () -> readBalance(accountId, currency, minVersion));
+    }
+
+    private BalanceResponse readBalance(Long accountId, String currency, Long minVersion) {
+        if (stripedBalanceStore.handles(accountId)) {
+            // Deposits to slots do not go through the cache, the sum is read on every call, outside a
+            // read-only transaction and therefore from the primary
+            return new BalanceResponse(currency, stripedBalanceStore.total(accountId, currency));
+        }
+        Optional<BalanceResponse> cached = minVersion == null
+                ? balanceCache.get(accountId, currency)
+                : balanceCache.get(accountId, currency, minVersion);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<Balance> balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency);
+        if (minVersion != null && balance.map(Balance::getVersion).orElse(-1L) < minVersion) {
+            balance = readRouting.onPrimary(() -> balanceRepository.findBalanceByAccountIdAndCurrency(accountId, currency));
+        }
+        balanceCache.putLoaded(accountId, currency, balance.orElse(null));
+        return balance
                 .map(it -> new BalanceResponse(it.getCurrency(), it.getAmount()))
                 .orElse(new BalanceResponse(currency, BigDecimal.ZERO));
     }
 
-    @Transactional
+    /**
+     * All balances of an account, or only those in {@code currencies} when given, read in one query without loading
+     * the account. With a {@code valuationCurrency} the listed balances are also summed up in that currency.
+     */
+    public AccountBalancesResponse getBalances(Long accountId, Collection<String> currencies, String valuationCurrency) {
+        return getBalances(accountId, currencies, valuationCurrency, null);
+    }
+
+    /**
+     * As {@link #getBalances(Long, Collection, String)}. The projection carries no versions, so a {@code minVersion}
+     * sends the whole read to the primary. So does striping, whose slots are read from the primary.
+     */
+    public AccountBalancesResponse getBalances(Long accountId, Collection<String> currencies, String valuationCurrency, Long minVersion) {
+        return balanceMetrics.record("get_all", () -> minVersion == null && !stripedBalanceStore.handles(accountId)
+                ? readBalances(accountId, currencies, valuationCurrency)
+                : readRouting.onPrimary(() -> readBalances(accountId, currencies, valuationCurrency)));
+    }
+
+    /**
+     * Version of the balance as committed on the primary, returned to clients after a write so their next read can
+     * ask for it. Empty when reads are not routed to a replica, read-your-writes holds then anyway.
+     */
+    public Optional<Long> getCommittedVersion(Long accountId, String currency) {
+        if (!readRouting.isReplicaEnabled()) {
+            return Optional.empty();
+        }
+        return readRouting.onPrimary(() -> balanceRepository.findVersion(accountId, currency));
+    }
+
+    private AccountBalancesResponse readBalances(Long accountId, Collection<String> currencies, String valuationCurrency) {
+        if (valuationCurrency != null) {
+            validateCurrencySupport(valuationCurrency);
+        }
+        List<BalanceResponse> balances = currencies == null || currencies.isEmpty()
+                ? balanceRepository.findByAccountIdOrderByCurrency(accountId)
+                : balanceRepository.findByAccountIdAndCurrencyInOrderByCurrency(accountId, currencies);
+        // Only an empty result needs the second query to tell an unknown account from one without balances
+        if (balances.isEmpty() && !accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        if (stripedBalanceStore.handles(accountId)) {
+            Map<String, BigDecimal> slotAmounts = stripedBalanceStore.slotAmounts(accountId);
+            balances = balances.stream()
+                    .map(it -> new BalanceResponse(it.currency(), it.amount().add(slotAmounts.getOrDefault(it.currency(), BigDecimal.ZERO))))
+                    .toList();
+        }
+        if (valuationCurrency == null) {
+            return new AccountBalancesResponse(balances, null);
+        }
+        Currency target = Currency.getInstance(valuationCurrency);
+        BigDecimal total = BigDecimal.ZERO.setScale(2);
+        for (BalanceResponse balance : balances) {
+            total = total.add(exchangeRateService.convert(Currency.getInstance(balance.currency()), target, balance.amount()));
+        }
+        return new AccountBalancesResponse(balances, new BalanceResponse(valuationCurrency, total));
+    }
+
     public BalanceResponse exchange(Long accountId, String fromCurrency, String toCurrency, BigDecimal amount) {
+        return balanceMetrics.record("exchange", () -> applyExchange(accountId, fromCurrency, toCurrency, amount));
+    }
+
+    private BalanceResponse applyExchange(Long accountId, String fromCurrency, String toCurrency, BigDecimal amount) {
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new CurrencyExchangeException("Exchange amount must be positive");
         }
@@ -92,25 +358,44 @@ public class BalanceService {
             throw new CurrencyExchangeException("The currency pair %s / %s is not supported".formatted(fromCurrency, toCurrency));
         }
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        if (ledgerEngine.handles(accountId)) {
+            BigDecimal convertedAmount = exchangeRateService.convert(Currency.getInstance(fromCurrency), Currency.getInstance(toCurrency), amount);
+            return ledgerEngine.execute(new LedgerCommand.Exchange(accountId, fromCurrency, toCurrency, amount, convertedAmount));
+        }
+        // A striped source has to be consolidated first, which needs the account lock of the locked path
+        if (atomicMutations && !stripedBalanceStore.handles(accountId)) {
+            return inIdempotentTransaction(() -> exchangeAtomically(accountId, fromCurrency, toCurrency, amount));
+        }
+        return inIdempotentTransaction(() -> exchangeLocked(accountId, fromCurrency, toCurrency, amount));
+    }
+
+    private BalanceResponse exchangeLocked(Long accountId, String fromCurrency, String toCurrency, BigDecimal amount) {
+        Account account = accountLockStrategy.lock(accountId, List.of(fromCurrency, toCurrency));
+        if (stripedBalanceStore.handles(accountId)) {
+            // Folds both currencies into their balance rows, which the updates below work on
+            new TreeSet<>(List.of(fromCurrency, toCurrency)).forEach(currency -> stripedBalanceStore.consolidate(accountId, currency));
+        }
 
+        // Both balances are loaded before either is modified, otherwise the second query auto-flushes
+        // the first update and the two writes can no longer go out as one JDBC batch
         Balance sourceBalance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, fromCurrency)
                 .orElseThrow(() -> new InsufficientFundsException(accountId, fromCurrency));
 
-        sourceBalance.debit(amount);
-        balanceRepository.save(sourceBalance);
-
-        BigDecimal convertedAmount = exchangeRateService.convert(Currency.getInstance(fromCurrency), Currency.getInstance(toCurrency), amount);
-
         Balance targetBalance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, toCurrency)
                 .orElseGet(() -> new Balance()
                         .setAccount(account)
                         .setCurrency(toCurrency)
                         .setAmount(BigDecimal.ZERO));
 
+        sourceBalance.debit(amount);
+        balanceRepository.save(sourceBalance);
+
+        BigDecimal convertedAmount = exchangeRateService.convert(Currency.getInstance(fromCurrency), Currency.getInstance(toCurrency), amount);
+
         targetBalance.deposit(convertedAmount);
         balanceRepository.save(targetBalance);
+        balanceCache.updateAfterCommit(sourceBalance);
+        balanceCache.updateAfterCommit(targetBalance);
 
         transactionLogService.logTransaction(account, TransactionType.EXCHANGE_OUT, amount, fromCurrency);
         transactionLogService.logTransaction(account, TransactionType.EXCHANGE_IN, convertedAmount, toCurrency);
@@ -118,6 +403,42 @@ public class BalanceService {
         return new BalanceResponse(targetBalance.getCurrency(), targetBalance.getAmount());
     }
 
+    // Strategies that resolve conflicts by retrying have to re-run the whole transaction, so they wrap it
+    private <T> T inTransaction(Supplier<T> work) {
+        return accountLockStrategy.execute(() -> transactionOperations.execute(status -> work.get()));
+    }
+
+    // Stores the response under the request's Idempotency-Key, if it has one, before the transaction commits
+    private BalanceResponse inIdempotentTransaction(Supplier<BalanceResponse> work) {
+        return inTransaction(() -> idempotencyService.recordInTransaction(work.get()));
+    }
+
+    private BalanceResponse exchangeAtomically(Long accountId, String fromCurrency, String toCurrency, BigDecimal amount) {
+        BigDecimal convertedAmount = exchangeRateService.convert(Currency.getInstance(fromCurrency), Currency.getInstance(toCurrency), amount);
+
+        // Touch the two balance rows in a fixed order so opposite exchanges on one account cannot deadlock
+        if (fromCurrency.compareTo(toCurrency) < 0) {
+            applyAtomically(accountId, fromCurrency, amount.negate(), amount, TransactionType.EXCHANGE_OUT);
+            return applyAtomically(accountId, toCurrency, convertedAmount, convertedAmount, TransactionType.EXCHANGE_IN);
+        }
+        BalanceResponse target = applyAtomically(accountId, toCurrency, convertedAmount, convertedAmount, TransactionType.EXCHANGE_IN);
+        applyAtomically(accountId, fromCurrency, amount.negate(), amount, TransactionType.EXCHANGE_OUT);
+        return target;
+    }
+
+    private BalanceResponse applyAtomically(Long accountId, String currency, BigDecimal delta, BigDecimal loggedAmount, TransactionType type) {
+        return balanceRepository.applyDeltaAndLog(accountId, currency, delta, loggedAmount, type.name(), UUID.randomUUID())
+                .map(applied -> {
+                    balanceMetrics.transactionLogged(type, 1);
+                    balanceCache.updateAfterCommit(accountId, currency, applied.getAmount(), applied.getVersion());
+                    return new BalanceResponse(currency, applied.getAmount());
+                })
+                // Nothing changed: only now pay for the extra lookup to tell the two failure causes apart
+                .orElseThrow(() -> accountRepository.existsById(accountId)
+                        ? new InsufficientFundsException(accountId, currency)
+                        : new AccountNotFoundException(accountId));
+    }
+
     private void validateCurrencySupport(String currency) {
         try {
             Currency.getInstance(currency);
@@ -1,39 +1,46 @@
 package com.demo.bankaccounthandlingapi.services;
 
-import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+import com.demo.bankaccounthandlingapi.rates.ExchangeRateProvider;
+import com.demo.bankaccounthandlingapi.rates.ExchangeRateSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
 import java.util.Currency;
-import java.util.Map;
 
 @Service
 public class ExchangeRateService {
-    private static final Map<Currency, BigDecimal> RATES_TO_EUR = Map.of(
-            Currency.getInstance("EUR"), BigDecimal.ONE,
-            Currency.getInstance("USD"), new BigDecimal("1.05"),
-            Currency.getInstance("SEK"), new BigDecimal("11.50"),
-            Currency.getInstance("RUB"), new BigDecimal("105.00")
-    );
 
-    public BigDecimal convert(Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
-        if (!RATES_TO_EUR.containsKey(fromCurrency) || !RATES_TO_EUR.containsKey(toCurrency)) {
-            throw new CurrencyExchangeException(fromCurrency, toCurrency);
-        }
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRateService.class);
 
-        BigDecimal fromRate = RATES_TO_EUR.get(fromCurrency);
-        BigDecimal toRate = RATES_TO_EUR.get(toCurrency);
+    private final ExchangeRateProvider exchangeRateProvider;
+    // Replaced as a whole on refresh, so readers never block and never see a half-updated table
+    private volatile ExchangeRateSnapshot snapshot;
 
-        // Formula: Amount * (ToRate / FromRate)
-        // 10 * (11.50 / 1.05) = 109.52 SEK
-        BigDecimal ratio = toRate.divide(fromRate, MathContext.DECIMAL128);
+    public ExchangeRateService(ExchangeRateProvider exchangeRateProvider) {
+        this.exchangeRateProvider = exchangeRateProvider;
+        // Fail at startup rather than serving exchanges without any rates
+        this.snapshot = ExchangeRateSnapshot.of(exchangeRateProvider.loadRatesToEur());
+    }
 
-        return amount.multiply(ratio).setScale(2, RoundingMode.HALF_EVEN);
+    public BigDecimal convert(Currency fromCurrency, Currency toCurrency, BigDecimal amount) {
+        return snapshot.convert(fromCurrency, toCurrency, amount);
     }
 
     public boolean isSupported(Currency currency) {
-        return RATES_TO_EUR.containsKey(currency);
+        return snapshot.isSupported(currency);
+    }
+
+    @Scheduled(initialDelayString = "${exchange-rates.refresh-interval-ms:60000}",
+            fixedDelayString = "${exchange-rates.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            snapshot = ExchangeRateSnapshot.of(exchangeRateProvider.loadRatesToEur());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not refresh exchange rates from {} provider, keeping the previous rates: {}",
+                    exchangeRateProvider.name(), e.getMessage());
+        }
     }
 }
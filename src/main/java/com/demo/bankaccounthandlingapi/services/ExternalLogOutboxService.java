@@ -0,0 +1,45 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.ExternalLogOutbox;
+import com.demo.bankaccounthandlingapi.enums.ExternalLoggingMode;
+import com.demo.bankaccounthandlingapi.repositories.ExternalLogOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+@Service
+public class ExternalLogOutboxService {
+
+    private final ExternalLogOutboxRepository externalLogOutboxRepository;
+    private final ExternalLoggingMode externalLoggingMode;
+
+    public ExternalLogOutboxService(ExternalLogOutboxRepository externalLogOutboxRepository,
+                                    @Value("${external.logging.mode:OUTBOX}") ExternalLoggingMode externalLoggingMode) {
+        this.externalLogOutboxRepository = externalLogOutboxRepository;
+        this.externalLoggingMode = externalLoggingMode;
+    }
+
+    /**
+     * Records a withdrawal for asynchronous delivery to the external logging system.
+     * Has to run inside the debit transaction so the entry exists if and only if the debit commits.
+     * In SYNC and PARALLEL modes the debit itself waits for the external call, so nothing is recorded.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueWithdrawal(Account account, BigDecimal amount, String currency) {
+        if (externalLoggingMode != ExternalLoggingMode.OUTBOX) {
+            return;
+        }
+        externalLogOutboxRepository.save(new ExternalLogOutbox()
+                .setAccount(account)
+                .setReferenceId(UUID.randomUUID())
+                .setAmount(amount)
+                .setCurrency(currency)
+                .setNextAttemptAt(Instant.now()));
+    }
+}
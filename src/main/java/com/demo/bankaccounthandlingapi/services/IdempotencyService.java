@@ -0,0 +1,242 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.exceptions.IdempotencyKeyInUseException;
+import com.demo.bankaccounthandlingapi.exceptions.IdempotencyKeyReusedException;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Answers repeated balance mutations sent with the same {@code Idempotency-Key} from the stored response instead of
+ * applying them again. The key is inserted in the mutation's own transaction, so a response is stored exactly when
+ * its money moved; of two concurrent requests with one key, the second finds the key taken and rolls back. Mutations
+ * committed on another thread (ledger engine, coalesced withdrawals) take the key along as a {@link PendingKey} and
+ * {@link #record} it in the transaction that moves the money.
+ * Repeats are served from a bounded in-memory cache first and from the {@code idempotency_key} table after that,
+ * neither takes an account lock. Only successful responses are stored, a failed request may be retried with its key.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final ScopedValue<PendingKey> PENDING = ScopedValue.newInstance();
+    private static final String SELECT = """
+            SELECT request_fingerprint, currency, amount FROM idempotency_key
+            WHERE idempotency_key = ? AND expires_at > NOW()
+            """;
+    // An expired key not purged yet is taken over, a live one leaves the row untouched and reports 0 rows
+    private static final String INSERT = """
+            INSERT INTO idempotency_key (idempotency_key, request_fingerprint, currency, amount, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET request_fingerprint = EXCLUDED.request_fingerprint, currency = EXCLUDED.currency, amount = EXCLUDED.amount,
+                created_at = NOW(), expires_at = EXCLUDED.expires_at
+            WHERE idempotency_key.expires_at <= NOW()
+            """;
+    private static final String PURGE = """
+            DELETE FROM idempotency_key WHERE idempotency_key IN (
+                SELECT idempotency_key FROM idempotency_key WHERE expires_at <= NOW() LIMIT ?
+            )
+            """;
+
+    private record StoredResponse(String fingerprint, BalanceResponse response) {}
+
+    /**
+     * Key of a request being applied, bound for the duration of one mutation. {@code recorded} is set once the
+     * transaction that wrote the key committed.
+     */
+    public static final class PendingKey {
+        private final String key;
+        private final String fingerprint;
+        private volatile boolean recorded;
+
+        private PendingKey(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouting shardRouting;
+    private final Cache<String, StoredResponse> cache;
+    private final Duration ttl;
+    private final int purgeBatchSize;
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, ShardRouting shardRouting,
+                              @Value("${balance.idempotency.cache-size:100000}") long cacheSize,
+                              @Value("${balance.idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${balance.idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouting = shardRouting;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.purgeBatchSize = purgeBatchSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency-keys");
+        this.memoryReplays = Counter.builder("idempotency.replays").tag("source", "memory").register(meterRegistry);
+        this.databaseReplays = Counter.builder("idempotency.replays").tag("source", "database").register(meterRegistry);
+    }
+
+    /**
+     * Identifies what a key was used for, so the same key sent with a different request is rejected.
+     */
+    public static String fingerprint(String operation, Long accountId, Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((operation + "/" + accountId + "/" + request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs {@code mutation} once per key. A {@code null} key runs it unconditionally.
+     */
+    public BalanceResponse execute(String key, String fingerprint, Supplier<BalanceResponse> mutation) {
+        if (key == null) {
+            return mutation.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be between 1 and %d characters".formatted(MAX_KEY_LENGTH));
+        }
+        Optional<BalanceResponse> stored = findStored(key, fingerprint);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        PendingKey pending = new PendingKey(key, fingerprint);
+        BalanceResponse response;
+        try {
+            response = ScopedValue.where(PENDING, pending).call(mutation::get);
+        } catch (IdempotencyKeyInUseException e) {
+            // A concurrent request with this key committed first, this one was rolled back
+            return findStored(key, fingerprint).orElseThrow(() -> e);
+        }
+        if (pending.recorded) {
+            cache.put(key, new StoredResponse(fingerprint, response));
+        }
+        return response;
+    }
+
+    /**
+     * Key of the request the current thread is applying, if any, for mutations committed on another thread.
+     */
+    public Optional<PendingKey> pendingKey() {
+        return PENDING.isBound() ? Optional.of(PENDING.get()) : Optional.empty();
+    }
+
+    /**
+     * Called by balance mutations inside their transaction, writes the key of the current request, if any,
+     * together with the response.
+     */
+    public BalanceResponse recordInTransaction(BalanceResponse response) {
+        if (!PENDING.isBound()) {
+            return response;
+        }
+        PendingKey pending = PENDING.get();
+        if (!record(pending, response)) {
+            // Waited for a concurrent request with this key, throwing rolls this mutation back
+            throw new IdempotencyKeyInUseException(pending.key);
+        }
+        return response;
+    }
+
+    /**
+     * Writes {@code pending} with its response in the current transaction, on whichever thread runs it. Returns
+     * {@code false}, having written nothing, when a concurrent request with the same key got there first; the caller
+     * must then not apply the mutation and fail it with {@link IdempotencyKeyInUseException}.
+     */
+    public boolean record(PendingKey pending, BalanceResponse response) {
+        if (!insert(pending, response)) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.recorded = true;
+            return true;
+        }
+        // A retried transaction records again, only the attempt that commits counts
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pending.recorded = true;
+            }
+        });
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${balance.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        shardRouting.forEachShard(this::purgeShard);
+    }
+
+    private void purgeShard() {
+        int deleted;
+        int total = 0;
+        // Small batches keep each delete short, the index on expires_at finds the rows
+        do {
+            deleted = jdbcTemplate.update(PURGE, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            LOGGER.info("Purged {} expired idempotency keys", total);
+        }
+    }
+
+    private boolean insert(PendingKey pending, BalanceResponse response) {
+        return jdbcTemplate.update(INSERT, pending.key, pending.fingerprint, response.currency(), response.amount(),
+                OffsetDateTime.ofInstant(Instant.now().plus(ttl), ZoneOffset.UTC)) > 0;
+    }
+
+    private Optional<BalanceResponse> findStored(String key, String fingerprint) {
+        StoredResponse stored = cache.getIfPresent(key);
+        if (stored != null) {
+            memoryReplays.increment();
+        } else {
+            stored = jdbcTemplate.query(SELECT, (rs, rowNum) -> new StoredResponse(rs.getString("request_fingerprint"),
+                    new BalanceResponse(rs.getString("currency"), rs.getBigDecimal("amount"))), key).stream().findFirst().orElse(null);
+            if (stored == null) {
+                return Optional.empty();
+            }
+            databaseReplays.increment();
+            cache.put(key, stored);
+        }
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return Optional.of(stored.response());
+    }
+}
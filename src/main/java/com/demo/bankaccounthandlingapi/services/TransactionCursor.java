@@ -0,0 +1,32 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position after the last transaction of a page. Clients get it as an opaque string and hand it back unchanged.
+ */
+public record TransactionCursor(Instant createdAt, long id) {
+
+    public static TransactionCursor after(TransactionResponse transaction) {
+        return new TransactionCursor(transaction.createdAt(), transaction.id());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            return new TransactionCursor(Instant.parse(decoded.substring(0, separator)), Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.enums.ExportFormat;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Streams an account's full transaction history. Rows are read through a forward-only cursor, pgjdbc only
+ * fetches {@code fetch-size} rows at a time inside a transaction, and each row is written out as soon as it is
+ * read, so memory use does not depend on the number of transactions.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final String EXPORT_QUERY = """
+            SELECT id, reference_id, type, currency, amount, created_at
+            FROM transaction_log
+            WHERE account_id = ?
+            ORDER BY created_at, id
+            """;
+    private static final String CSV_HEADER = "id,referenceId,type,currency,amount,createdAt\n";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardRouting shardRouting;
+    private final ReadRouting readRouting;
+    private final int fetchSize;
+
+    public TransactionExportService(JdbcTemplate jdbcTemplate, AccountRepository accountRepository,
+                                    PlatformTransactionManager transactionManager, ShardRouting shardRouting, ReadRouting readRouting,
+                                    @Value("${transactions.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountRepository = accountRepository;
+        this.shardRouting = shardRouting;
+        this.readRouting = readRouting;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    // Checked before the response is committed, once streaming has started the status can no longer change.
+    // Asks the primary, a lagging replica would answer 404 for an account just created
+    public void requireAccount(Long accountId) {
+        if (!readRouting.onPrimary(() -> accountRepository.existsById(accountId))) {
+            throw new AccountNotFoundException(accountId);
+        }
+    }
+
+    /**
+     * Writes every transaction of the account, oldest first, to {@code out}. The stream is flushed but not closed.
+     * Holds one pooled connection for the whole export.
+     *
+     * @return the number of transactions written
+     */
+    public long export(Long accountId, ExportFormat format, OutputStream out) throws IOException {
+        // Runs on the async request thread, which does not inherit the shard bound for the request
+        return shardRouting.onShardOf(accountId, () -> write(accountId, format, out));
+    }
+
+    private long write(Long accountId, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        long[] count = {0};
+        try {
+            // pgjdbc only uses a cursor when autocommit is off, otherwise it reads the whole result into memory
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, accountId);
+                return statement;
+            }, resultSet -> {
+                writeRow(resultSet, format, writer);
+                count[0]++;
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+
+    private static void writeRow(ResultSet resultSet, ExportFormat format, Writer writer) throws SQLException {
+        long id = resultSet.getLong("id");
+        String referenceId = resultSet.getString("reference_id");
+        String type = resultSet.getString("type");
+        String currency = resultSet.getString("currency");
+        String amount = resultSet.getBigDecimal("amount").toPlainString();
+        String createdAt = resultSet.getObject("created_at", LocalDateTime.class).toInstant(ZoneOffset.UTC).toString();
+        try {
+            // Every value is a number, UUID, enum name, currency code or ISO instant, so nothing needs escaping
+            if (format == ExportFormat.CSV) {
+                writer.write(id + "," + referenceId + "," + type + "," + currency + "," + amount + "," + createdAt + "\n");
+            } else {
+                writer.write("{\"id\":" + id + ",\"referenceId\":\"" + referenceId + "\",\"type\":\"" + type
+                        + "\",\"currency\":\"" + currency + "\",\"amount\":" + amount + ",\"createdAt\":\"" + createdAt + "\"}\n");
+            }
+        } catch (IOException e) {
+            // The client went away, abandon the cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+}
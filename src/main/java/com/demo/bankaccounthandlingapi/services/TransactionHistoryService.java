@@ -0,0 +1,52 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionPageResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransactionResponse;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.TransactionHistoryQuery;
+import com.demo.bankaccounthandlingapi.repositories.TransactionLogRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class TransactionHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final TransactionLogRepository transactionLogRepository;
+    private final AccountRepository accountRepository;
+
+    public TransactionHistoryService(TransactionLogRepository transactionLogRepository, AccountRepository accountRepository) {
+        this.transactionLogRepository = transactionLogRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * One page of the account's transactions, newest first.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page
+     */
+    public TransactionPageResponse getTransactions(Long accountId, TransactionType type, String currency,
+                                                   Instant from, Instant to, String cursor, int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+        TransactionCursor after = cursor == null ? null : TransactionCursor.decode(cursor);
+
+        // One extra row tells whether there is a next page without a count query
+        List<TransactionResponse> rows = transactionLogRepository.findHistory(new TransactionHistoryQuery(accountId, type, currency,
+                from, to, after == null ? null : after.createdAt(), after == null ? null : after.id(), pageSize + 1));
+        if (rows.isEmpty() && after == null && !accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        if (rows.size() <= pageSize) {
+            return new TransactionPageResponse(rows, null);
+        }
+        List<TransactionResponse> page = rows.subList(0, pageSize);
+        return new TransactionPageResponse(List.copyOf(page), TransactionCursor.after(page.getLast()).encode());
+    }
+}
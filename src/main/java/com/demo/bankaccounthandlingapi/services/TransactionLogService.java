@@ -3,20 +3,25 @@ package com.demo.bankaccounthandlingapi.services;
 import com.demo.bankaccounthandlingapi.entities.Account;
 import com.demo.bankaccounthandlingapi.entities.TransactionLog;
 import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
 import com.demo.bankaccounthandlingapi.repositories.TransactionLogRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
 
 @Service
 public class TransactionLogService {
 
     private final TransactionLogRepository transactionLogRepository;
+    private final BalanceMetrics balanceMetrics;
 
-    public TransactionLogService(TransactionLogRepository transactionLogRepository) {
+    public TransactionLogService(TransactionLogRepository transactionLogRepository, BalanceMetrics balanceMetrics) {
         this.transactionLogRepository = transactionLogRepository;
+        this.balanceMetrics = balanceMetrics;
     }
 
     @Transactional(propagation = Propagation.MANDATORY)
@@ -27,5 +32,31 @@ public class TransactionLogService {
                 .setAmount(amount)
                 .setCurrency(currency)
                 .setType(transactionType));
+        balanceMetrics.transactionLogged(transactionType, 1);
+    }
+
+    /**
+     * Writes both legs of a transfer under one reference id. Nothing is flushed here, the legs of every transfer
+     * in the transaction go out together as JDBC batches at commit.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void logTransfer(Account source, String sourceCurrency, BigDecimal debited,
+                            Account target, String targetCurrency, BigDecimal credited) {
+        UUID referenceId = UUID.randomUUID();
+        transactionLogRepository.saveAll(List.of(
+                new TransactionLog()
+                        .setAccount(source)
+                        .setReferenceId(referenceId)
+                        .setAmount(debited)
+                        .setCurrency(sourceCurrency)
+                        .setType(TransactionType.TRANSFER_OUT),
+                new TransactionLog()
+                        .setAccount(target)
+                        .setReferenceId(referenceId)
+                        .setAmount(credited)
+                        .setCurrency(targetCurrency)
+                        .setType(TransactionType.TRANSFER_IN)));
+        balanceMetrics.transactionLogged(TransactionType.TRANSFER_OUT, 1);
+        balanceMetrics.transactionLogged(TransactionType.TRANSFER_IN, 1);
     }
 }
@@ -0,0 +1,275 @@
+package com.demo.bankaccounthandlingapi.services;
+
+import com.demo.bankaccounthandlingapi.caching.BalanceCache;
+import com.demo.bankaccounthandlingapi.dtos.*;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.Balance;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.ledger.LedgerEngine;
+import com.demo.bankaccounthandlingapi.locking.AccountLockStrategy;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import com.demo.bankaccounthandlingapi.striping.StripedBalanceStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Moves money between accounts in one transaction. Every account involved is locked in ascending id order,
+ * so two transfers in opposite directions, or overlapping batches, queue behind each other instead of deadlocking.
+ * Batches from one source account are split into chunks of {@code transfers.batch.chunk-size}, each chunk is its
+ * own transaction so the source account is not held for the whole batch.
+ * <p>
+ * With sharding enabled both accounts of a transfer have to be on the same shard, the work runs on the source's.
+ */
+@Service
+public class TransferService {
+
+    private final BalanceRepository balanceRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionLogService transactionLogService;
+    private final ExchangeRateService exchangeRateService;
+    private final AccountLockStrategy accountLockStrategy;
+    private final TransactionOperations transactionOperations;
+    private final LedgerEngine ledgerEngine;
+    private final BalanceCache balanceCache;
+    private final BalanceMetrics balanceMetrics;
+    private final StripedBalanceStore stripedBalanceStore;
+    private final ShardRouting shardRouting;
+    private final ReadRouting readRouting;
+    private final int chunkSize;
+
+    public TransferService(BalanceRepository balanceRepository, AccountRepository accountRepository,
+                           TransactionLogService transactionLogService, ExchangeRateService exchangeRateService,
+                           AccountLockStrategy accountLockStrategy, TransactionOperations transactionOperations,
+                           LedgerEngine ledgerEngine, BalanceCache balanceCache, BalanceMetrics balanceMetrics,
+                           StripedBalanceStore stripedBalanceStore, ShardRouting shardRouting, ReadRouting readRouting,
+                           @Value("${transfers.batch.chunk-size:500}") int chunkSize) {
+        this.balanceRepository = balanceRepository;
+        this.accountRepository = accountRepository;
+        this.transactionLogService = transactionLogService;
+        this.exchangeRateService = exchangeRateService;
+        this.accountLockStrategy = accountLockStrategy;
+        this.transactionOperations = transactionOperations;
+        this.ledgerEngine = ledgerEngine;
+        this.balanceCache = balanceCache;
+        this.balanceMetrics = balanceMetrics;
+        this.stripedBalanceStore = stripedBalanceStore;
+        this.shardRouting = shardRouting;
+        this.readRouting = readRouting;
+        this.chunkSize = chunkSize;
+    }
+
+    public TransferResponse transfer(TransferRequest request) {
+        return shardRouting.onShardOf(request.sourceAccountId(),
+                () -> balanceMetrics.record("transfer", () -> applyTransfer(request)));
+    }
+
+    private TransferResponse applyTransfer(TransferRequest request) {
+        Long sourceId = request.sourceAccountId();
+        Long targetId = request.targetAccountId();
+        String sourceCurrency = request.currency();
+        String targetCurrency = Objects.requireNonNullElse(request.targetCurrency(), sourceCurrency);
+        if (sourceId.equals(targetId)) {
+            throw new IllegalArgumentException("Source and target account must differ, use exchange within one account");
+        }
+        if (!shardRouting.onSameShard(sourceId, targetId)) {
+            throw new IllegalArgumentException("Accounts %d and %d are on different shards and cannot take part in one transfer".formatted(sourceId, targetId));
+        }
+        rejectLedgerEngineAccounts(List.of(sourceId, targetId));
+        BigDecimal credited = convert(sourceCurrency, targetCurrency, request.amount());
+
+        return inTransaction(() -> {
+            Map<Long, Account> accounts = lockInOrder(Map.of(sourceId, Set.of(sourceCurrency), targetId, Set.of(targetCurrency)));
+
+            // Both balances are loaded before either is modified so the two updates batch
+            Balance source = balanceRepository.findBalanceByAccountIdAndCurrency(sourceId, sourceCurrency)
+                    .orElseThrow(() -> new InsufficientFundsException(sourceId, sourceCurrency));
+            Balance target = balanceRepository.findBalanceByAccountIdAndCurrency(targetId, targetCurrency)
+                    .orElseGet(() -> newBalance(accounts.get(targetId), targetCurrency));
+
+            source.debit(request.amount());
+            target.deposit(credited);
+            balanceRepository.saveAll(List.of(source, target));
+            balanceCache.updateAfterCommit(source);
+            balanceCache.updateAfterCommit(target);
+            transactionLogService.logTransfer(accounts.get(sourceId), sourceCurrency, request.amount(),
+                    accounts.get(targetId), targetCurrency, credited);
+
+            return new TransferResponse(sourceId, new BalanceResponse(sourceCurrency, source.getAmount()),
+                    targetId, new BalanceResponse(targetCurrency, target.getAmount()));
+        });
+    }
+
+    /**
+     * Fans out from one source account. Each chunk commits on its own; transfers that cannot be applied
+     * (unknown target, insufficient funds at that point, unsupported currency) are reported and skipped
+     * without affecting the others.
+     */
+    public BatchTransferResponse transferBatch(BatchTransferRequest request) {
+        return shardRouting.onShardOf(request.sourceAccountId(),
+                () -> balanceMetrics.record("transfer_batch", () -> applyBatch(request)));
+    }
+
+    private BatchTransferResponse applyBatch(BatchTransferRequest request) {
+        Long sourceId = request.sourceAccountId();
+        // Outside the chunk transactions, where the repository's read-only one may go to a replica lagging behind
+        if (!readRouting.onPrimary(() -> accountRepository.existsById(sourceId))) {
+            throw new AccountNotFoundException(sourceId);
+        }
+        List<BatchTransferItem> transfers = request.transfers();
+        rejectLedgerEngineAccounts(List.of(sourceId));
+
+        List<BatchTransferFailure> failures = new ArrayList<>();
+        int transferred = 0;
+        BalanceResponse sourceBalance = null;
+        for (int from = 0; from < transfers.size(); from += chunkSize) {
+            int chunkFrom = from;
+            List<BatchTransferItem> chunk = transfers.subList(from, Math.min(from + chunkSize, transfers.size()));
+            ChunkOutcome outcome = inTransaction(() -> applyChunk(sourceId, request.currency(), chunk, chunkFrom));
+            transferred += outcome.transferred();
+            failures.addAll(outcome.failures());
+            sourceBalance = outcome.sourceBalance();
+        }
+        return new BatchTransferResponse(transferred, failures, sourceBalance);
+    }
+
+    private ChunkOutcome applyChunk(Long sourceId, String sourceCurrency, List<BatchTransferItem> chunk, int offset) {
+        List<BatchTransferFailure> failures = new ArrayList<>();
+        Set<Long> targetIds = new HashSet<>();
+        chunk.forEach(item -> targetIds.add(item.targetAccountId()));
+        Set<Long> existing = new HashSet<>();
+        accountRepository.findAllById(targetIds).forEach(account -> existing.add(account.getId()));
+
+        Map<Long, Set<String>> locks = new HashMap<>();
+        locks.put(sourceId, new TreeSet<>(Set.of(sourceCurrency)));
+        for (BatchTransferItem item : chunk) {
+            if (existing.contains(item.targetAccountId())) {
+                locks.computeIfAbsent(item.targetAccountId(), id -> new TreeSet<>()).add(targetCurrency(item, sourceCurrency));
+            }
+        }
+        Map<Long, Account> accounts = lockInOrder(locks);
+
+        // Every balance of the chunk in one query, keyed by account and currency
+        Map<Long, Map<String, Balance>> balances = new HashMap<>();
+        balanceRepository.findByAccountIdIn(locks.keySet()).forEach(balance ->
+                balances.computeIfAbsent(balance.getAccount().getId(), id -> new HashMap<>()).put(balance.getCurrency(), balance));
+        Balance source = balances.getOrDefault(sourceId, Map.of()).get(sourceCurrency);
+
+        Set<Balance> modified = new LinkedHashSet<>();
+        int transferred = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            BatchTransferItem item = chunk.get(i);
+            Long targetId = item.targetAccountId();
+            String targetCurrency = targetCurrency(item, sourceCurrency);
+            String reason = null;
+            BigDecimal credited = null;
+            if (targetId.equals(sourceId)) {
+                reason = "Source and target account must differ";
+            } else if (!shardRouting.onSameShard(sourceId, targetId)) {
+                reason = "Account %d is on another shard".formatted(targetId);
+            } else if (!existing.contains(targetId)) {
+                reason = new AccountNotFoundException(targetId).getMessage();
+            } else if (ledgerEngine.handles(targetId)) {
+                reason = "Account %d is handled by the ledger engine".formatted(targetId);
+            } else if (source == null || source.getAmount().compareTo(item.amount()) < 0) {
+                reason = new InsufficientFundsException(sourceId, sourceCurrency).getMessage();
+            } else {
+                try {
+                    credited = convert(sourceCurrency, targetCurrency, item.amount());
+                } catch (CurrencyExchangeException e) {
+                    reason = e.getMessage();
+                }
+            }
+            if (reason != null) {
+                failures.add(new BatchTransferFailure(offset + i, targetId, reason));
+                continue;
+            }
+            Balance target = balances.computeIfAbsent(targetId, id -> new HashMap<>())
+                    .computeIfAbsent(targetCurrency, currency -> newBalance(accounts.get(targetId), currency));
+            source.debit(item.amount());
+            target.deposit(credited);
+            modified.add(source);
+            modified.add(target);
+            transactionLogService.logTransfer(accounts.get(sourceId), sourceCurrency, item.amount(),
+                    accounts.get(targetId), targetCurrency, credited);
+            transferred++;
+        }
+        balanceRepository.saveAll(modified);
+        modified.forEach(balanceCache::updateAfterCommit);
+        BigDecimal sourceAmount = source == null ? BigDecimal.ZERO : source.getAmount();
+        return new ChunkOutcome(transferred, failures, new BalanceResponse(sourceCurrency, sourceAmount));
+    }
+
+    private record ChunkOutcome(int transferred, List<BatchTransferFailure> failures, BalanceResponse sourceBalance) {
+    }
+
+    /**
+     * Locks accounts in ascending id order, whatever order the request named them in. This single ordering rule
+     * is what keeps concurrent transfers touching the same accounts free of deadlocks. Striped balances involved
+     * are consolidated once their account is locked, so the balance rows hold the whole amount.
+     */
+    private Map<Long, Account> lockInOrder(Map<Long, ? extends Collection<String>> currenciesByAccount) {
+        Map<Long, Account> accounts = new HashMap<>();
+        new TreeMap<>(currenciesByAccount).forEach((accountId, currencies) -> {
+            accounts.put(accountId, accountLockStrategy.lock(accountId, currencies));
+            if (stripedBalanceStore.handles(accountId)) {
+                new TreeSet<>(currencies).forEach(currency -> stripedBalanceStore.consolidate(accountId, currency));
+            }
+        });
+        return accounts;
+    }
+
+    // The engine owns its balances in memory, a write from here would fail its next group commit
+    private void rejectLedgerEngineAccounts(Collection<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            if (ledgerEngine.handles(accountId)) {
+                throw new IllegalArgumentException("Account %d is handled by the ledger engine and cannot take part in transfers".formatted(accountId));
+            }
+        }
+    }
+
+    private BigDecimal convert(String sourceCurrency, String targetCurrency, BigDecimal amount) {
+        if (sourceCurrency.equals(targetCurrency)) {
+            return amount;
+        }
+        Currency from = currency(sourceCurrency);
+        Currency to = currency(targetCurrency);
+        if (!exchangeRateService.isSupported(from) || !exchangeRateService.isSupported(to)) {
+            throw new CurrencyExchangeException("The currency pair %s / %s is not supported".formatted(sourceCurrency, targetCurrency));
+        }
+        return exchangeRateService.convert(from, to, amount);
+    }
+
+    private static Currency currency(String code) {
+        try {
+            return Currency.getInstance(code);
+        } catch (IllegalArgumentException e) {
+            throw new CurrencyExchangeException("Unsupported currency code: %s".formatted(code));
+        }
+    }
+
+    private static String targetCurrency(BatchTransferItem item, String sourceCurrency) {
+        return Objects.requireNonNullElse(item.targetCurrency(), sourceCurrency);
+    }
+
+    private static Balance newBalance(Account account, String currency) {
+        return new Balance()
+                .setAccount(account)
+                .setCurrency(currency)
+                .setAmount(BigDecimal.ZERO);
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return accountLockStrategy.execute(() -> transactionOperations.execute(status -> work.get()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.bankaccounthandlingapi.sharding;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Places new accounts on the shard holding the fewest. The account counts are read from every shard periodically
+ * and counted up locally in between, so accounts created by other instances are only seen after the next refresh.
+ * The account row is inserted with SQL on the chosen shard, its id has to come from that shard's sequence; ids
+ * Hibernate allocates are not tied to the shard the session happens to be on.
+ */
+@Component
+public class ShardPlacement {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardPlacement.class);
+
+    private static final String INSERT_ACCOUNT = "INSERT INTO account DEFAULT VALUES RETURNING id, created_at";
+    private static final String COUNT_ACCOUNTS = "SELECT count(*) FROM account";
+
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouting shardRouting;
+    private final Map<Integer, AtomicLong> accounts = new ConcurrentHashMap<>();
+
+    public ShardPlacement(AccountRepository accountRepository, JdbcTemplate jdbcTemplate, ShardRouting shardRouting,
+                          MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouting = shardRouting;
+        if (shardRouting.isEnabled()) {
+            for (int shard : shardRouting.shards()) {
+                AtomicLong count = accounts.computeIfAbsent(shard, number -> new AtomicLong());
+                Gauge.builder("datasource.shard.accounts", count, AtomicLong::get)
+                        .tag("shard", String.valueOf(shard))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public Account createAccount() {
+        if (!shardRouting.isEnabled()) {
+            return accountRepository.save(new Account());
+        }
+        int shard = leastLoaded();
+        Account account = shardRouting.onShard(shard, () -> jdbcTemplate.queryForObject(INSERT_ACCOUNT, (rs, rowNum) ->
+                new Account()
+                        .setId(rs.getLong("id"))
+                        .setCreatedAt(rs.getObject("created_at", OffsetDateTime.class).toInstant())));
+        accounts.get(shard).incrementAndGet();
+        return account;
+    }
+
+    // Account counts per shard as last refreshed plus the accounts placed since
+    public Map<Integer, Long> load() {
+        Map<Integer, Long> load = new TreeMap<>();
+        accounts.forEach((shard, count) -> load.put(shard, count.get()));
+        return load;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${datasource.sharding.load-refresh-interval-ms:60000}")
+    public void refreshLoad() {
+        if (!shardRouting.isEnabled()) {
+            return;
+        }
+        for (int shard : shardRouting.shards()) {
+            try {
+                Long count = shardRouting.onShard(shard, () -> jdbcTemplate.queryForObject(COUNT_ACCOUNTS, Long.class));
+                accounts.get(shard).set(count);
+            } catch (RuntimeException e) {
+                // An unreachable shard keeps its last count, placement carries on with the others' current ones
+                LOGGER.warn("Could not count the accounts of shard {}: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    // Ties go to the lowest shard number
+    private int leastLoaded() {
+        return accounts.entrySet().stream()
+                .min(Comparator.comparingLong((Map.Entry<Integer, AtomicLong> entry) -> entry.getValue().get())
+                        .thenComparing(Map.Entry::getKey))
+                .orElseThrow()
+                .getKey();
+    }
+}
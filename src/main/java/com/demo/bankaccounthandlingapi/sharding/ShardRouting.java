@@ -0,0 +1,113 @@
+package com.demo.bankaccounthandlingapi.sharding;
+
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Binds the work of one account to the shard holding it. The shard is the account id's top bits, set by the
+ * shard's sequences, so no lookup is needed. Connections taken while a shard is bound come from its database;
+ * with nothing bound, and always with sharding disabled, shard 0 is used.
+ * <p>
+ * A transaction only ever sees one shard, the shard has to be bound before it starts.
+ */
+@Component
+public class ShardRouting {
+
+    public static final int DEFAULT_SHARD = 0;
+    // 15 bits of shard number above 48 bits of id per shard
+    static final int SHARD_SHIFT = 48;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardRouting.class);
+    private static final ScopedValue<Integer> SHARD = ScopedValue.newInstance();
+
+    private final boolean enabled;
+    private final List<Integer> shards;
+
+    public ShardRouting(ShardingProperties properties) {
+        this.enabled = properties.enabled();
+        TreeSet<Integer> numbers = new TreeSet<>();
+        numbers.add(DEFAULT_SHARD);
+        if (enabled) {
+            numbers.addAll(properties.shards().keySet());
+        }
+        this.shards = List.copyOf(numbers);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Integer> shards() {
+        return shards;
+    }
+
+    public static int shardOf(long accountId) {
+        return (int) (accountId >>> SHARD_SHIFT);
+    }
+
+    public boolean isKnown(Long accountId) {
+        return shards.contains(shardOf(accountId));
+    }
+
+    // A transaction cannot span databases, so only accounts on one shard can be changed together
+    public boolean onSameShard(Long accountId, Long otherAccountId) {
+        return !enabled || shardOf(accountId) == shardOf(otherAccountId);
+    }
+
+    /**
+     * Runs {@code work} on the shard holding {@code accountId}. An id naming no configured shard cannot belong to
+     * an account.
+     */
+    public <T, X extends Throwable> T onShardOf(Long accountId, ScopedValue.CallableOp<T, X> work) throws X {
+        if (!enabled) {
+            return work.call();
+        }
+        if (!isKnown(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        return onShard(shardOf(accountId), work);
+    }
+
+    public <T, X extends Throwable> T onShard(int shard, ScopedValue.CallableOp<T, X> work) throws X {
+        return ScopedValue.where(SHARD, shard).call(work);
+    }
+
+    /**
+     * Runs {@code work} once per shard, for jobs that look after every database. A failing shard does not keep
+     * the others from running, the first failure is rethrown at the end.
+     */
+    public <T> List<T> onEachShard(Supplier<T> work) {
+        List<T> results = new ArrayList<>(shards.size());
+        RuntimeException failure = null;
+        for (int shard : shards) {
+            try {
+                results.add(onShard(shard, work::get));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Work on shard {} failed: {}", shard, e.getMessage());
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    public void forEachShard(Runnable work) {
+        onEachShard(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    static int currentShard() {
+        return SHARD.orElse(DEFAULT_SHARD);
+    }
+}
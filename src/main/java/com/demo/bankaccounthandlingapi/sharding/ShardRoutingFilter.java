@@ -0,0 +1,63 @@
+package com.demo.bankaccounthandlingapi.sharding;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Binds requests to {@code /{accountId}/...} to the account's shard for the rest of the request, so the balance,
+ * history and idempotency work behind them needs no shard handling of its own. Requests naming no account, or an id
+ * of no configured shard, run unbound on shard 0, where such an account is then simply not found.
+ */
+@Component
+@ConditionalOnProperty(name = "datasource.sharding.enabled", havingValue = "true")
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern ACCOUNT_PATH = Pattern.compile("^/(\\d{1,19})(/|$)");
+
+    private final ShardRouting shardRouting;
+
+    public ShardRoutingFilter(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long accountId = accountId(request.getRequestURI().substring(request.getContextPath().length()));
+        if (accountId == null || !shardRouting.isKnown(accountId)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try {
+            shardRouting.onShard(ShardRouting.shardOf(accountId), () -> {
+                chain.doFilter(request, response);
+                return null;
+            });
+        } catch (ServletException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private static Long accountId(String path) {
+        Matcher matcher = ACCOUNT_PATH.matcher(path);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
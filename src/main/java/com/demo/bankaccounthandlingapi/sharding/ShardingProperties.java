@@ -0,0 +1,20 @@
+package com.demo.bankaccounthandlingapi.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Databases of the shards besides shard 0, which is {@code spring.datasource}. The key is the shard number that ids
+ * created on that shard carry in their top bits, so a number must never be reassigned to another database.
+ */
+@ConfigurationProperties("datasource.sharding")
+public record ShardingProperties(boolean enabled, Map<Integer, Shard> shards) {
+
+    public ShardingProperties {
+        shards = shards == null ? Map.of() : Map.copyOf(shards);
+    }
+
+    public record Shard(String url, String username, String password) {
+    }
+}
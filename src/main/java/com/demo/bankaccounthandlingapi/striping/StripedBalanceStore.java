@@ -0,0 +1,247 @@
+package com.demo.bankaccounthandlingapi.striping;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.SlotSelection;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.IllegalBalanceUpdateException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped balances for hot accounts. Deposits add to one of {@code balance.striping.slots} rows in
+ * {@code balance_slot} instead of the single {@code balance} row, so concurrent deposits only contend per slot.
+ * The amount of a striped balance is its balance row plus all of its slots.
+ * <p>
+ * Debits try the balance row first, then a single slot that covers the amount, skipping slots locked by deposits.
+ * Only when neither covers it are the slots folded into the balance row under lock. A background job consolidates
+ * all slots regularly, so the balance row usually covers debits on its own.
+ * <p>
+ * Rows are only ever locked in one order: slots in ascending slot order, then the balance row. Paths that lock
+ * the account (exchanges, transfers) do so before consolidating.
+ */
+@Component
+public class StripedBalanceStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StripedBalanceStore.class);
+    // The balance row is created with the first deposit, so readers and reconciliation always find it
+    private static final String DEPOSIT = """
+            WITH account_row AS (
+                SELECT id FROM account WHERE id = ?
+            ), base AS (
+                INSERT INTO balance (account_id, currency, amount, version)
+                SELECT id, ?, 0, 0 FROM account_row
+                WHERE NOT EXISTS (SELECT 1 FROM balance WHERE account_id = ? AND currency = ?)
+                ON CONFLICT (account_id, currency) DO NOTHING
+            ), slot AS (
+                INSERT INTO balance_slot (account_id, currency, slot, amount)
+                SELECT id, ?, ?, ? FROM account_row
+                ON CONFLICT (account_id, currency, slot) DO UPDATE SET amount = balance_slot.amount + EXCLUDED.amount
+                RETURNING account_id
+            )
+            SELECT count(*) FROM slot
+            """;
+    private static final String DEBIT_BALANCE_ROW = """
+            UPDATE balance SET amount = amount - ?, version = version + 1
+            WHERE account_id = ? AND currency = ? AND amount >= ?
+            """;
+    private static final String DEBIT_SLOT = """
+            UPDATE balance_slot s SET amount = s.amount - ?
+            FROM (
+                SELECT slot FROM balance_slot
+                WHERE account_id = ? AND currency = ? AND amount >= ?
+                ORDER BY amount DESC
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            ) picked
+            WHERE s.account_id = ? AND s.currency = ? AND s.slot = picked.slot
+            """;
+    private static final String CONSOLIDATE = """
+            WITH locked AS (
+                SELECT slot, amount FROM balance_slot
+                WHERE account_id = ? AND currency = ? AND amount > 0
+                ORDER BY slot
+                FOR UPDATE
+            ), emptied AS (
+                UPDATE balance_slot s SET amount = 0
+                FROM locked
+                WHERE s.account_id = ? AND s.currency = ? AND s.slot = locked.slot
+                RETURNING locked.amount
+            )
+            UPDATE balance SET amount = amount + (SELECT SUM(amount) FROM emptied), version = version + 1
+            WHERE account_id = ? AND currency = ? AND EXISTS (SELECT 1 FROM emptied)
+            """;
+    private static final String TOTAL = """
+            SELECT COALESCE((SELECT amount FROM balance WHERE account_id = ? AND currency = ?), 0)
+                 + COALESCE((SELECT SUM(amount) FROM balance_slot WHERE account_id = ? AND currency = ?), 0)
+            """;
+    private static final String INSERT_LOG =
+            "INSERT INTO transaction_log (account_id, reference_id, amount, currency, type) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final BalanceMetrics balanceMetrics;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int slots;
+    private final Set<Long> accountIds;
+    private final SlotSelection slotSelection;
+    private final Counter consolidations;
+    private final Counter balanceRowDebits;
+    private final Counter slotDebits;
+    private final Counter consolidatedDebits;
+
+    public StripedBalanceStore(JdbcTemplate jdbcTemplate, TransactionOperations transactionOperations,
+                               BalanceMetrics balanceMetrics, MeterRegistry meterRegistry, ShardRouting shardRouting,
+                               @Value("${balance.striping.enabled:false}") boolean enabled,
+                               @Value("${balance.striping.slots:8}") int slots,
+                               @Value("${balance.striping.account-ids:}") Set<Long> accountIds,
+                               @Value("${balance.striping.slot-selection:RANDOM}") SlotSelection slotSelection) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.balanceMetrics = balanceMetrics;
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.slots = slots;
+        this.accountIds = accountIds;
+        this.slotSelection = slotSelection;
+        this.consolidations = Counter.builder("balance.striping.consolidations")
+                .description("Balances whose slots were folded into the balance row")
+                .register(meterRegistry);
+        this.balanceRowDebits = debits(meterRegistry, "balance");
+        this.slotDebits = debits(meterRegistry, "slot");
+        this.consolidatedDebits = debits(meterRegistry, "consolidated");
+    }
+
+    private static Counter debits(MeterRegistry meterRegistry, String path) {
+        return Counter.builder("balance.striping.debits")
+                .tag("path", path)
+                .register(meterRegistry);
+    }
+
+    public boolean handles(Long accountId) {
+        return enabled && (accountIds.isEmpty() || accountIds.contains(accountId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BalanceResponse deposit(Long accountId, String currency, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalBalanceUpdateException(accountId);
+        }
+        Long applied = jdbcTemplate.queryForObject(DEPOSIT, Long.class,
+                accountId, currency, accountId, currency, currency, pickSlot(), amount);
+        if (applied == null || applied == 0) {
+            throw new AccountNotFoundException(accountId);
+        }
+        log(accountId, currency, amount, TransactionType.DEPOSIT);
+        return new BalanceResponse(currency, total(accountId, currency));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BalanceResponse debit(Long accountId, String currency, BigDecimal amount) {
+        Counter path;
+        if (debitBalanceRow(accountId, currency, amount)) {
+            path = balanceRowDebits;
+        } else if (jdbcTemplate.update(DEBIT_SLOT, amount, accountId, currency, amount, accountId, currency) > 0) {
+            path = slotDebits;
+        } else {
+            // Funds are spread over several slots, or the covering slot is busy: fold everything together
+            consolidate(accountId, currency);
+            if (!debitBalanceRow(accountId, currency, amount)) {
+                Integer accounts = jdbcTemplate.queryForObject("SELECT count(*) FROM account WHERE id = ?", Integer.class, accountId);
+                throw accounts == null || accounts == 0
+                        ? new AccountNotFoundException(accountId)
+                        : new InsufficientFundsException(accountId, currency);
+            }
+            path = consolidatedDebits;
+        }
+        path.increment();
+        log(accountId, currency, amount, TransactionType.WITHDRAWAL);
+        return new BalanceResponse(currency, total(accountId, currency));
+    }
+
+    /**
+     * Folds the slots of one balance into its balance row, in the caller's transaction. Callers that also lock
+     * the account have to take that lock first.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void consolidate(Long accountId, String currency) {
+        if (jdbcTemplate.update(CONSOLIDATE, accountId, currency, accountId, currency, accountId, currency) > 0) {
+            consolidations.increment();
+        }
+    }
+
+    public BigDecimal total(Long accountId, String currency) {
+        return jdbcTemplate.queryForObject(TOTAL, BigDecimal.class, accountId, currency, accountId, currency);
+    }
+
+    /**
+     * Amount held in slots per currency, to be added to the balance rows of the account.
+     */
+    public Map<String, BigDecimal> slotAmounts(Long accountId) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        jdbcTemplate.query("SELECT currency, SUM(amount) AS amount FROM balance_slot WHERE account_id = ? GROUP BY currency",
+                (RowCallbackHandler) rs -> amounts.put(rs.getString("currency"), rs.getBigDecimal("amount")), accountId);
+        return amounts;
+    }
+
+    // Also folds back slots left behind by accounts taken out of account-ids, as long as striping stays enabled
+    @Scheduled(fixedDelayString = "${balance.striping.consolidation-interval-ms:1000}")
+    public void consolidateAll() {
+        if (!enabled) {
+            return;
+        }
+        shardRouting.forEachShard(this::consolidatePending);
+    }
+
+    private void consolidatePending() {
+        List<Map<String, Object>> pending = jdbcTemplate.queryForList(
+                "SELECT DISTINCT account_id, currency FROM balance_slot WHERE amount > 0");
+        for (Map<String, Object> balance : pending) {
+            Long accountId = ((Number) balance.get("account_id")).longValue();
+            String currency = (String) balance.get("currency");
+            try {
+                transactionOperations.executeWithoutResult(status -> consolidate(accountId, currency));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Consolidating balance {} {} failed, retrying on the next run: {}", accountId, currency, e.getMessage());
+            }
+        }
+    }
+
+    private boolean debitBalanceRow(Long accountId, String currency, BigDecimal amount) {
+        return jdbcTemplate.update(DEBIT_BALANCE_ROW, amount, accountId, currency, amount) > 0;
+    }
+
+    private int pickSlot() {
+        return switch (slotSelection) {
+            case RANDOM -> ThreadLocalRandom.current().nextInt(slots);
+            case THREAD -> (int) Math.floorMod(Thread.currentThread().threadId(), (long) slots);
+        };
+    }
+
+    private void log(Long accountId, String currency, BigDecimal amount, TransactionType type) {
+        jdbcTemplate.update(INSERT_LOG, accountId, UUID.randomUUID(), amount, currency, type.name());
+        balanceMetrics.transactionLogged(type, 1);
+    }
+}
@@ -0,0 +1,43 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Lets reconciliation seek straight to the entries after a checkpoint. A partitioned table cannot build an index
+ * concurrently, so the index is created on the parent only, built concurrently on every partition and attached
+ * partition by partition; it becomes valid with the last one. Runs outside a transaction, and in Java because
+ * {@code CREATE INDEX CONCURRENTLY} cannot loop over the partitions from a DO block.
+ */
+public class V6_1__transaction_log_account_currency_index extends BaseJavaMigration {
+
+    private static final String INDEX = "idx_transaction_log_account_currency_id";
+    // Partitions created after the parent index exist get their own automatically and are skipped
+    private static final String PARTITIONS_WITHOUT_INDEX = """
+            SELECT c.relname
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'transaction_log'::regclass
+              AND NOT EXISTS (
+                SELECT 1 FROM pg_inherits ii JOIN pg_index x ON x.indexrelid = ii.inhrelid
+                WHERE ii.inhparent = '%s'::regclass AND x.indrelid = c.oid
+              )
+            """.formatted(INDEX);
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS %s ON ONLY transaction_log (account_id, currency, id)".formatted(INDEX));
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS_WITHOUT_INDEX, String.class)) {
+            String index = partition + "_account_currency_id_idx";
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s (account_id, currency, id)".formatted(index, partition));
+            jdbcTemplate.execute("ALTER INDEX %s ATTACH PARTITION %s".formatted(INDEX, index));
+        }
+    }
+}
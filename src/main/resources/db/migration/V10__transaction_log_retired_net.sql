@@ -0,0 +1,12 @@
+-- Net amount per balance of each retired transaction_log partition, written right before the partition is
+-- detached. A full reconciliation recompute adds it for partitions that are no longer attached.
+CREATE TABLE transaction_log_retired_net (
+    partition_name VARCHAR(63) NOT NULL,
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    currency VARCHAR(3) NOT NULL,
+    net DECIMAL(19, 2) NOT NULL,
+    max_log_id BIGINT NOT NULL,
+    PRIMARY KEY (partition_name, account_id, currency)
+);
+
+CREATE INDEX idx_transaction_log_retired_net_account ON transaction_log_retired_net (account_id, currency);
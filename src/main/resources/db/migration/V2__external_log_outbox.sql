@@ -0,0 +1,15 @@
+CREATE TABLE external_log_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    reference_id UUID NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    last_error VARCHAR(500),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+-- The dispatcher only ever scans rows that are still waiting for delivery
+CREATE INDEX idx_external_log_outbox_pending ON external_log_outbox (next_attempt_at, id) WHERE status = 'PENDING';
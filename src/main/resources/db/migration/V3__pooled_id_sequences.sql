@@ -0,0 +1,27 @@
+-- Identity columns force Hibernate to insert rows one statement at a time to learn the generated id.
+-- These sequences hand out blocks of 50 ids (pooled-lo), so inserts can be batched.
+-- Column defaults keep working for plain SQL inserts, each of which consumes a whole block.
+CREATE SEQUENCE account_seq INCREMENT BY 50;
+CREATE SEQUENCE balance_seq INCREMENT BY 50;
+CREATE SEQUENCE transaction_log_seq INCREMENT BY 50;
+CREATE SEQUENCE external_log_outbox_seq INCREMENT BY 50;
+
+SELECT setval('account_seq', COALESCE((SELECT MAX(id) FROM account), 0) + 1, false);
+SELECT setval('balance_seq', COALESCE((SELECT MAX(id) FROM balance), 0) + 1, false);
+SELECT setval('transaction_log_seq', COALESCE((SELECT MAX(id) FROM transaction_log), 0) + 1, false);
+SELECT setval('external_log_outbox_seq', COALESCE((SELECT MAX(id) FROM external_log_outbox), 0) + 1, false);
+
+ALTER TABLE account ALTER COLUMN id SET DEFAULT nextval('account_seq');
+ALTER TABLE balance ALTER COLUMN id SET DEFAULT nextval('balance_seq');
+ALTER TABLE transaction_log ALTER COLUMN id SET DEFAULT nextval('transaction_log_seq');
+ALTER TABLE external_log_outbox ALTER COLUMN id SET DEFAULT nextval('external_log_outbox_seq');
+
+ALTER SEQUENCE account_seq OWNED BY account.id;
+ALTER SEQUENCE balance_seq OWNED BY balance.id;
+ALTER SEQUENCE transaction_log_seq OWNED BY transaction_log.id;
+ALTER SEQUENCE external_log_outbox_seq OWNED BY external_log_outbox.id;
+
+DROP SEQUENCE account_id_seq;
+DROP SEQUENCE balance_id_seq;
+DROP SEQUENCE transaction_log_id_seq;
+DROP SEQUENCE external_log_outbox_id_seq;
@@ -0,0 +1,5 @@
+-- Serves the transaction history: equality on account_id, then a backward range scan in (created_at, id) order,
+-- so a keyset page costs the same wherever it starts. Built concurrently, which Flyway runs outside a transaction,
+-- so existing tables are not locked against writes while it builds.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transaction_log_account_created
+    ON transaction_log (account_id, created_at DESC, id DESC);
@@ -0,0 +1,62 @@
+-- transaction_log becomes range partitioned by month on created_at (UTC). The existing table is not copied:
+-- it is attached as the partition for everything before next month, and monthly partitions follow from there.
+-- TransactionLogPartitionManager keeps creating partitions ahead of time and retires expired ones.
+--
+-- Runs outside a transaction (see the .conf next to this file), so the work that reads every existing row happens
+-- first under locks that let writes through, and the swap itself only changes the catalog. A failure part way
+-- leaves the steps before it in place and has to be cleaned up by hand before a rerun.
+
+-- The partition key has to be part of the primary key; the existing table gets a matching one built up front
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS transaction_log_id_created_idx ON transaction_log (id, created_at);
+
+-- A validated CHECK matching the partition bound lets ATTACH skip scanning the existing rows. Adding it NOT VALID
+-- only locks the table briefly, validating it scans the rows without blocking writes. Until the swap it also holds
+-- back rows from next month on, so this must not run across a month end
+DO $$
+BEGIN
+    EXECUTE format('ALTER TABLE transaction_log ADD CONSTRAINT transaction_log_legacy_bounds CHECK (created_at < %L) NOT VALID',
+                   date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '1 month');
+END $$;
+
+ALTER TABLE transaction_log VALIDATE CONSTRAINT transaction_log_legacy_bounds;
+
+-- The swap, as one statement and so one transaction
+DO $$
+DECLARE
+    next_month TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '1 month';
+    month_start TIMESTAMP;
+BEGIN
+    ALTER TABLE transaction_log RENAME TO transaction_log_legacy;
+    ALTER TABLE transaction_log_legacy DROP CONSTRAINT transaction_log_pkey;
+    ALTER TABLE transaction_log_legacy ADD CONSTRAINT transaction_log_legacy_pkey PRIMARY KEY USING INDEX transaction_log_id_created_idx;
+    ALTER INDEX idx_transaction_log_account_created RENAME TO transaction_log_legacy_account_created_idx;
+
+    -- Ids still come from the one shared sequence
+    CREATE TABLE transaction_log (
+        id BIGINT NOT NULL DEFAULT nextval('transaction_log_seq'),
+        account_id BIGINT NOT NULL REFERENCES account(id),
+        reference_id UUID NOT NULL,
+        amount DECIMAL(19, 2) NOT NULL,
+        currency VARCHAR(3) NOT NULL,
+        type VARCHAR(20) NOT NULL,
+        created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+        PRIMARY KEY (id, created_at)
+    ) PARTITION BY RANGE (created_at);
+
+    CREATE INDEX idx_transaction_log_account_created ON transaction_log (account_id, created_at DESC, id DESC);
+
+    ALTER SEQUENCE transaction_log_seq OWNED BY transaction_log.id;
+
+    -- Reuses the indexes built above and, with the CHECK, needs no scan
+    EXECUTE format('ALTER TABLE transaction_log ATTACH PARTITION transaction_log_legacy FOR VALUES FROM (MINVALUE) TO (%L)', next_month);
+    ALTER TABLE transaction_log_legacy DROP CONSTRAINT transaction_log_legacy_bounds;
+
+    -- Enough months that inserts keep working even before the partition manager first runs
+    FOR i IN 0..2 LOOP
+        month_start := next_month + make_interval(months => i);
+        EXECUTE format('CREATE TABLE transaction_log_p%s PARTITION OF transaction_log FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, 'YYYYMM'), month_start, month_start + INTERVAL '1 month');
+    END LOOP;
+END $$;
+
+CREATE SCHEMA IF NOT EXISTS transaction_log_archive;
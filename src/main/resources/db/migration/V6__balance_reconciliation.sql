@@ -0,0 +1,21 @@
+-- Per balance: the log entries up to last_log_id are known to add up to verified_amount
+CREATE TABLE balance_reconciliation_checkpoint (
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    currency VARCHAR(3) NOT NULL,
+    last_log_id BIGINT NOT NULL,
+    verified_amount DECIMAL(19, 2) NOT NULL,
+    checked_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (account_id, currency)
+);
+
+-- Balances that currently do not match their log, cleared once they match again
+CREATE TABLE balance_discrepancy (
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    currency VARCHAR(3) NOT NULL,
+    balance_amount DECIMAL(19, 2) NOT NULL,
+    log_amount DECIMAL(19, 2) NOT NULL,
+    detected_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (account_id, currency)
+);
+
+-- The index reconciliation seeks with is built by V6_1 without blocking writes to transaction_log
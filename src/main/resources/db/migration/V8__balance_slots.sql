@@ -0,0 +1,9 @@
+-- Striped balances: deposits to a hot account spread over slot rows instead of all updating its balance row.
+-- The amount of a striped balance is its balance row plus all of its slots.
+CREATE TABLE balance_slot (
+    account_id BIGINT NOT NULL REFERENCES account(id),
+    currency VARCHAR(3) NOT NULL,
+    slot SMALLINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL CHECK (amount >= 0),
+    PRIMARY KEY (account_id, currency, slot)
+);
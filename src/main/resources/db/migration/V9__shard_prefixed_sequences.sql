@@ -0,0 +1,12 @@
+-- Ids carry the number of the shard that created them in their top bits (shard << 48), so they are unique across
+-- shards and an account id alone names the shard holding the account. Shard 0, the database that existed before
+-- sharding, keeps its sequences. ${shard} is set to the shard's number when each shard is migrated.
+DO $$
+BEGIN
+    IF ${shard} > 0 THEN
+        PERFORM setval('account_seq', (${shard}::bigint << 48) + 1, false);
+        PERFORM setval('balance_seq', (${shard}::bigint << 48) + 1, false);
+        PERFORM setval('transaction_log_seq', (${shard}::bigint << 48) + 1, false);
+        PERFORM setval('external_log_outbox_seq', (${shard}::bigint << 48) + 1, false);
+    END IF;
+END $$;
@@ -0,0 +1,97 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.AccountBalancesResponse;
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Statistics are global to the session factory, so the outbox poller is kept quiet while counting
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "external.logging.outbox.poll-interval-ms=3600000"
+})
+class AccountBalancesIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+
+        balanceService.deposit(accountId, "USD", new BigDecimal("100.00"));
+        balanceService.deposit(accountId, "EUR", new BigDecimal("50.00"));
+        balanceService.deposit(accountId, "SEK", new BigDecimal("115.00"));
+
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Returns every balance ordered by currency with a single query and no entity loads")
+    void getBalances_shouldReadAllCurrenciesInOneQuery() {
+        AccountBalancesResponse response = balanceService.getBalances(accountId, null, null);
+
+        assertThat(response.balances()).extracting(BalanceResponse::currency).containsExactly("EUR", "SEK", "USD");
+        assertThat(response.total()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Filters by currency and sums the listed balances up in the valuation currency")
+    void getBalances_withFilterAndValuation_shouldSumConvertedAmounts() {
+        AccountBalancesResponse response = balanceService.getBalances(accountId, List.of("USD", "SEK", "JPY"), "EUR");
+
+        assertThat(response.balances()).extracting(BalanceResponse::currency).containsExactly("SEK", "USD");
+        // 115 SEK = 10.00 EUR, 100 USD = 95.24 EUR
+        assertThat(response.total().currency()).isEqualTo("EUR");
+        assertThat(response.total().amount()).isEqualByComparingTo("105.24");
+    }
+
+    @Test
+    @DisplayName("Account without balances gets an empty list, an unknown account is not found")
+    void getBalances_emptyResult_shouldDistinguishMissingAccount() {
+        Long emptyAccountId = accountRepository.save(new Account()).getId();
+
+        assertThat(balanceService.getBalances(emptyAccountId, null, "USD").balances()).isEmpty();
+        assertThat(balanceService.getBalances(emptyAccountId, null, "USD").total().amount()).isEqualByComparingTo("0.00");
+        assertThatThrownBy(() -> balanceService.getBalances(Long.MAX_VALUE, null, null))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("An invalid valuation currency is rejected")
+    void getBalances_invalidValuationCurrency_shouldBeRejected() {
+        assertThatThrownBy(() -> balanceService.getBalances(accountId, null, "XX"))
+                .isInstanceOf(CurrencyExchangeException.class);
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "balance.locking.strategy=advisory")
+class AdvisoryLockingIntegrationTest extends LockingStrategyIntegrationTest {
+
+    @Override
+    String expectedStrategy() {
+        return "advisory";
+    }
+}
@@ -0,0 +1,133 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.repositories.TransactionLogRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "balance.atomic-mutations.enabled=true")
+class AtomicBalanceMutationIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private TransactionLogRepository transactionLogRepository;
+
+    private Long accountId;
+    private static final String CURRENCY = "USD";
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+    }
+
+    @Test
+    @DisplayName("Deposit creates the balance row and logs the transaction")
+    void deposit_shouldCreateBalanceAndLog() {
+        balanceService.deposit(accountId, CURRENCY, new BigDecimal("100.00"));
+        BalanceResponse response = balanceService.deposit(accountId, CURRENCY, new BigDecimal("20.00"));
+
+        assertThat(response.amount()).isEqualByComparingTo(new BigDecimal("120.00"));
+
+        var balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, CURRENCY).orElseThrow();
+        assertThat(balance.getAmount()).isEqualByComparingTo(new BigDecimal("120.00"));
+        assertThat(balance.getVersion()).isEqualTo(1L);
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Debit beyond the balance is rejected and leaves no log row")
+    void debit_insufficientFunds_shouldChangeNothing() {
+        balanceService.deposit(accountId, CURRENCY, new BigDecimal("10.00"));
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, CURRENCY, new BigDecimal("10.01")))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> balanceService.debit(accountId, "EUR", BigDecimal.ONE))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        var balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, CURRENCY).orElseThrow();
+        assertThat(balance.getAmount()).isEqualByComparingTo(new BigDecimal("10.00"));
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, "EUR")).isEmpty();
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Operations on a missing account fail with AccountNotFoundException")
+    void missingAccount_shouldThrowAccountNotFound() {
+        assertThatThrownBy(() -> balanceService.deposit(-1L, CURRENCY, BigDecimal.ONE))
+                .isInstanceOf(AccountNotFoundException.class);
+        assertThatThrownBy(() -> balanceService.debit(-1L, CURRENCY, BigDecimal.ONE))
+                .isInstanceOf(AccountNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Exchange rolls back the credited leg when the debit fails")
+    void exchange_insufficientFunds_shouldRollBack() {
+        balanceService.deposit(accountId, "USD", new BigDecimal("10.00"));
+
+        // EUR sorts before USD, so the credit leg runs first and has to be rolled back
+        assertThatThrownBy(() -> balanceService.exchange(accountId, "USD", "EUR", new BigDecimal("50.00")))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, "EUR")).isEmpty();
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Concurrent debits on one account never overdraw it")
+    void concurrentDebits_shouldNotOverdraw() {
+        balanceService.deposit(accountId, CURRENCY, new BigDecimal("100.00"));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger successCount = new AtomicInteger(0);
+        AtomicInteger failCount = new AtomicInteger(0);
+
+        CompletableFuture<?>[] futures = new CompletableFuture[threads * 5];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    balanceService.debit(accountId, CURRENCY, new BigDecimal("7.00"));
+                    successCount.incrementAndGet();
+                } catch (InsufficientFundsException _) {
+                    failCount.incrementAndGet();
+                }
+            }, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        executor.shutdown();
+
+        assertThat(successCount.get()).isEqualTo(14);
+        assertThat(failCount.get()).isEqualTo(futures.length - 14);
+
+        var balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, CURRENCY).orElseThrow();
+        assertThat(balance.getAmount()).isEqualByComparingTo(new BigDecimal("2.00"));
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(15);
+    }
+}
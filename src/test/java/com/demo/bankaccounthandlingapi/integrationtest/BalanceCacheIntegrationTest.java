@@ -0,0 +1,68 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "balance.cache.enabled=true")
+class BalanceCacheIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+    }
+
+    @Test
+    @DisplayName("Reads after a committed write see the new amount without going to the database")
+    void getBalance_afterDeposit_shouldServeCommittedAmount() {
+        balanceService.getBalance(accountId, "USD");
+        balanceService.deposit(accountId, "USD", new BigDecimal("30.00"));
+        double hitsBefore = hits();
+
+        assertThat(balanceService.getBalance(accountId, "USD").amount()).isEqualByComparingTo("30.00");
+        assertThat(hits()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    @DisplayName("Rolled back write never reaches the cache")
+    void getBalance_afterRollback_shouldServePreviousAmount() {
+        balanceService.deposit(accountId, "USD", new BigDecimal("30.00"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            balanceService.deposit(accountId, "USD", new BigDecimal("70.00"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(balanceService.getBalance(accountId, "USD").amount()).isEqualByComparingTo("30.00");
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "balances").tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,136 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceDiscrepancyResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler.Result;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs are triggered by the tests, the scheduled job would race them
+@TestPropertySource(properties = "balance.reconciliation.enabled=false")
+class BalanceReconciliationIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        accountId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(accountId, "EUR", new BigDecimal("100.00"));
+        balanceService.debit(accountId, "EUR", new BigDecimal("30.00"));
+        balanceService.deposit(accountId, "USD", new BigDecimal("20.00"));
+    }
+
+    @Test
+    @DisplayName("A run checkpoints every balance and the next run only folds in entries written since")
+    void reconcile_shouldOnlyFoldNewEntries() {
+        // when
+        Result first = reconcileAccount();
+        balanceService.deposit(accountId, "EUR", new BigDecimal("5.00"));
+        Result second = reconcileAccount();
+        Result third = reconcileAccount();
+
+        // then
+        assertThat(first.balancesChecked()).isEqualTo(2);
+        assertThat(first.entriesFolded()).isEqualTo(3);
+        assertThat(second.entriesFolded()).isEqualTo(1);
+        assertThat(third.entriesFolded()).isZero();
+        assertThat(first.fullRecomputes() + second.fullRecomputes() + third.fullRecomputes()).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT verified_amount FROM balance_reconciliation_checkpoint WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("75.00");
+        assertThat(balanceReconciler.getDiscrepancies(accountId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A balance that no longer matches its log is reported until it matches again")
+    void reconcile_shouldReportAndClearDiscrepancies() {
+        // given
+        reconcileAccount();
+        jdbcTemplate.update("UPDATE balance SET amount = amount + 1 WHERE account_id = ? AND currency = 'EUR'", accountId);
+
+        // when
+        Result broken = reconcileAccount();
+        List<BalanceDiscrepancyResponse> reported = balanceReconciler.getDiscrepancies(accountId);
+        jdbcTemplate.update("UPDATE balance SET amount = amount - 1 WHERE account_id = ? AND currency = 'EUR'", accountId);
+        Result repaired = reconcileAccount();
+
+        // then
+        assertThat(broken.fullRecomputes()).isEqualTo(1);
+        assertThat(broken.discrepancies()).isEqualTo(1);
+        assertThat(reported).singleElement().satisfies(discrepancy -> {
+            assertThat(discrepancy.currency()).isEqualTo("EUR");
+            assertThat(discrepancy.balanceAmount()).isEqualByComparingTo("71.00");
+            assertThat(discrepancy.logAmount()).isEqualByComparingTo("70.00");
+        });
+        assertThat(repaired.discrepancies()).isZero();
+        assertThat(balanceReconciler.getDiscrepancies(accountId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("An entry that commits with an id below the checkpoint is picked up by a full recompute, not reported")
+    void reconcile_shouldRecomputeWhenAnEntryLandsBelowTheCheckpoint() {
+        // given
+        reconcileAccount();
+        Long checkpoint = jdbcTemplate.queryForObject(
+                "SELECT last_log_id FROM balance_reconciliation_checkpoint WHERE account_id = ? AND currency = 'EUR'",
+                Long.class, accountId);
+        // Another instance's id block: the entry is older by id than what was already checkpointed
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (id, account_id, reference_id, amount, currency, type)
+                VALUES (?, ?, gen_random_uuid(), 10.00, 'EUR', 'DEPOSIT')
+                """, -checkpoint, accountId);
+        jdbcTemplate.update("UPDATE balance SET amount = amount + 10 WHERE account_id = ? AND currency = 'EUR'", accountId);
+
+        // when
+        Result result = reconcileAccount();
+
+        // then
+        assertThat(result.fullRecomputes()).isEqualTo(1);
+        assertThat(result.discrepancies()).isZero();
+        assertThat(balanceReconciler.getDiscrepancies(accountId)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT verified_amount FROM balance_reconciliation_checkpoint WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("80.00");
+    }
+
+    @Test
+    @DisplayName("A full run splits the accounts across workers and covers all of them")
+    void reconcileAll_shouldCoverEveryBalance() {
+        // when
+        Result result = balanceReconciler.reconcileAll();
+
+        // then
+        Integer balances = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance", Integer.class);
+        assertThat(result.balancesChecked()).isEqualTo(balances);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM balance_reconciliation_checkpoint WHERE account_id = ?", Integer.class, accountId)).isEqualTo(2);
+    }
+
+    private Result reconcileAccount() {
+        return balanceReconciler.reconcileRange(accountId, accountId + 1);
+    }
+}
@@ -0,0 +1,15 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = {
+        "balance.debit-coalescing.enabled=true",
+        "balance.debit-coalescing.window-ms=5"
+})
+class DebitCoalescingIntegrationTest extends LockingStrategyIntegrationTest {
+
+    @Override
+    String expectedStrategy() {
+        return "pessimistic";
+    }
+}
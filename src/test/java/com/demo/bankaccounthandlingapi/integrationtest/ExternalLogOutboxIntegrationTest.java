@@ -0,0 +1,116 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.ExternalLogOutbox;
+import com.demo.bankaccounthandlingapi.enums.OutboxStatus;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.external.ExternalLogOutboxDispatcher;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.ExternalLogOutboxRepository;
+import com.demo.bankaccounthandlingapi.services.AccountOperationService;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The scheduler is pushed far out so the tests drive the dispatcher by hand
+@TestPropertySource(properties = {
+        "external.logging.mode=OUTBOX",
+        "external.logging.outbox.poll-interval-ms=3600000",
+        "external.logging.outbox.max-attempts=2"
+})
+class ExternalLogOutboxIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private AccountOperationService accountOperationService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ExternalLogOutboxRepository externalLogOutboxRepository;
+
+    @Autowired
+    private ExternalLogOutboxDispatcher externalLogOutboxDispatcher;
+
+    private Long accountId;
+    private static final String CURRENCY = "USD";
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.resetAll();
+        externalLogOutboxRepository.deleteAll();
+
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+        balanceService.deposit(accountId, CURRENCY, new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("Withdraw succeeds while the external system is down and is delivered later")
+    void withdraw_shouldNotDependOnExternalSystem() {
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.serverError()));
+
+        BalanceResponse response = accountOperationService.debitAccount(accountId, CURRENCY, new BigDecimal("40.00"));
+
+        assertThat(response.amount()).isEqualByComparingTo(new BigDecimal("60.00"));
+        assertThat(wireMockServer.getAllServeEvents()).isEmpty();
+        assertThat(externalLogOutboxRepository.findAll())
+                .singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.getAmount()).isEqualByComparingTo(new BigDecimal("40.00"));
+                    assertThat(entry.getStatus()).isEqualTo(OutboxStatus.PENDING);
+                });
+
+        wireMockServer.resetAll();
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.ok()));
+
+        assertThat(externalLogOutboxDispatcher.dispatchBatch()).isEqualTo(1);
+        assertThat(externalLogOutboxRepository.count()).isZero();
+        wireMockServer.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo("/")));
+    }
+
+    @Test
+    @DisplayName("Failed withdraw leaves no outbox entry behind")
+    void failedWithdraw_shouldNotEnqueue() {
+        assertThatThrownBy(() ->
+                accountOperationService.debitAccount(accountId, CURRENCY, new BigDecimal("400.00"))
+        ).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(externalLogOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Failed delivery is rescheduled with backoff and parked after max attempts")
+    void failedDelivery_shouldBackOffAndPark() {
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.serverError()));
+        accountOperationService.debitAccount(accountId, CURRENCY, new BigDecimal("10.00"));
+
+        assertThat(externalLogOutboxDispatcher.dispatchBatch()).isZero();
+
+        ExternalLogOutbox retried = externalLogOutboxRepository.findAll().getFirst();
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retried.getNextAttemptAt()).isAfter(Instant.now());
+
+        externalLogOutboxRepository.save(retried.setNextAttemptAt(Instant.now()));
+        externalLogOutboxDispatcher.dispatchBatch();
+
+        ExternalLogOutbox parked = externalLogOutboxRepository.findAll().getFirst();
+        assertThat(parked.getAttempts()).isEqualTo(2);
+        assertThat(parked.getStatus()).isEqualTo(OutboxStatus.FAILED);
+    }
+}
@@ -0,0 +1,145 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.dtos.DepositRequest;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        accountId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(accountId, "EUR", new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("A repeated withdrawal over HTTP returns the first response and debits once")
+    void withdraw_repeatedKey_shouldApplyOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"currency\":\"EUR\",\"amount\":30.00}";
+
+        HttpResponse<String> first = post("withdraw", key, body);
+        HttpResponse<String> second = post("withdraw", key, body);
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(second.body()).isEqualTo(first.body());
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("70.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transaction_log WHERE account_id = ? AND type = 'WITHDRAWAL'",
+                Long.class, accountId)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Reusing a key for a different request is rejected with 409")
+    void deposit_keyReusedForDifferentRequest_shouldConflict() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        HttpResponse<String> first = post("deposit", key, "{\"currency\":\"EUR\",\"amount\":10.00}");
+        HttpResponse<String> second = post("deposit", key, "{\"currency\":\"EUR\",\"amount\":20.00}");
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(409);
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("110.00");
+    }
+
+    @Test
+    @DisplayName("Concurrent requests with one key apply the deposit once and all get its response")
+    void deposit_concurrentRetries_shouldApplyOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        DepositRequest request = new DepositRequest("EUR", new BigDecimal("5.00"));
+        String fingerprint = IdempotencyService.fingerprint("deposit", accountId, request);
+        int retries = 20;
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<BalanceResponse>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < retries; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute(key, fingerprint,
+                            () -> balanceService.deposit(accountId, request.currency(), request.amount()));
+                }));
+            }
+            start.countDown();
+        }
+
+        for (Future<BalanceResponse> response : responses) {
+            assertThat(response.get().amount()).isEqualByComparingTo("105.00");
+        }
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("105.00");
+    }
+
+    @Test
+    @DisplayName("Repeats are answered from memory, expired keys are purged from the table")
+    void execute_repeat_shouldBeServedFromMemory() {
+        String key = UUID.randomUUID().toString();
+        DepositRequest request = new DepositRequest("EUR", new BigDecimal("1.00"));
+        String fingerprint = IdempotencyService.fingerprint("deposit", accountId, request);
+        double memoryReplaysBefore = meterRegistry.get("idempotency.replays").tag("source", "memory").counter().count();
+
+        idempotencyService.execute(key, fingerprint, () -> balanceService.deposit(accountId, request.currency(), request.amount()));
+        idempotencyService.execute(key, fingerprint, () -> balanceService.deposit(accountId, request.currency(), request.amount()));
+        jdbcTemplate.update("UPDATE idempotency_key SET expires_at = NOW() - INTERVAL '1 second' WHERE idempotency_key = ?", key);
+        idempotencyService.purgeExpired();
+
+        assertThat(meterRegistry.get("idempotency.replays").tag("source", "memory").counter().count()).isEqualTo(memoryReplaysBefore + 1);
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("101.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_key WHERE idempotency_key = ?", Long.class, key)).isZero();
+    }
+
+    private HttpResponse<String> post(String operation, String key, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/%d/balance/%s".formatted(port, accountId, operation)))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", key)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
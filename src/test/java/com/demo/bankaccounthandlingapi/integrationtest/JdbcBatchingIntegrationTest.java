@@ -0,0 +1,74 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statistics are global to the session factory, so the outbox poller is kept quiet while counting
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "external.logging.outbox.poll-interval-ms=3600000"
+})
+class JdbcBatchingIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+
+        balanceService.deposit(accountId, "USD", new BigDecimal("100.00"));
+        balanceService.deposit(accountId, "EUR", new BigDecimal("100.00"));
+        // Warm-up so the sequence blocks are already allocated and do not show up in the counts
+        balanceService.exchange(accountId, "USD", "EUR", new BigDecimal("1.00"));
+
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Exchange flushes both balance updates and both log inserts as one batch each")
+    void exchange_shouldFlushWritesInBatches() {
+        balanceService.exchange(accountId, "USD", "EUR", new BigDecimal("10.00"));
+
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        // account lock + two balance reads + one update batch + one insert batch
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Creating several accounts in one flush needs no id round trip per row")
+    void sequenceIds_shouldBeAssignedWithoutInsert() {
+        var accounts = accountRepository.saveAll(List.of(new Account(), new Account(), new Account()));
+
+        assertThat(accounts).allSatisfy(account -> assertThat(account.getId()).isNotNull());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+}
@@ -0,0 +1,13 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+// The ledger engine bypasses the lock strategy, so the same invariants have to hold with it switched on
+@TestPropertySource(properties = "balance.ledger-engine.enabled=true")
+class LedgerEngineIntegrationTest extends LockingStrategyIntegrationTest {
+
+    @Override
+    String expectedStrategy() {
+        return "pessimistic";
+    }
+}
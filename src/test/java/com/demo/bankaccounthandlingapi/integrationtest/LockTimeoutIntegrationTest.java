@@ -0,0 +1,98 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "balance.locking.pessimistic.lock-timeout-ms=0")
+class LockTimeoutIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+    }
+
+    @Test
+    @DisplayName("Mutation fails immediately while another transaction holds the account row")
+    void deposit_lockedAccount_shouldFailFast() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.findByIdForUpdate(accountId, Duration.ofMillis(-1)).orElseThrow();
+            locked.countDown();
+            await(release);
+        }));
+
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        try {
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> balanceService.deposit(accountId, "USD", BigDecimal.TEN))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(balanceService.deposit(accountId, "USD", BigDecimal.TEN).amount()).isEqualByComparingTo(BigDecimal.TEN);
+    }
+
+    @Test
+    @DisplayName("Plain reads never wait for the row lock")
+    void findById_lockedAccount_shouldNotBlock() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.findByIdForUpdate(accountId, Duration.ofMillis(-1)).orElseThrow();
+            locked.countDown();
+            await(release);
+        }));
+
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        try {
+            assertThat(accountRepository.findById(accountId)).isPresent();
+            assertThat(accountRepository.existsById(accountId)).isTrue();
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.locking.AccountLockStrategy;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Money invariants every lock strategy has to keep. Subclasses select the strategy.
+ */
+abstract class LockingStrategyIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private AccountLockStrategy accountLockStrategy;
+
+    private Long accountId;
+
+    abstract String expectedStrategy();
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+    }
+
+    @Test
+    @DisplayName("Configured strategy is active")
+    void strategy_shouldBeSelectedByConfiguration() {
+        assertThat(accountLockStrategy.name()).isEqualTo(expectedStrategy());
+    }
+
+    @Test
+    @DisplayName("Concurrent debits never overdraw the balance")
+    void concurrentDebits_shouldNotOverdraw() {
+        balanceService.deposit(accountId, "USD", new BigDecimal("100.00"));
+
+        AtomicInteger successCount = new AtomicInteger();
+        runConcurrently(40, () -> {
+            try {
+                balanceService.debit(accountId, "USD", new BigDecimal("7.00"));
+                successCount.incrementAndGet();
+            } catch (InsufficientFundsException _) {
+                // expected once the balance runs dry
+            }
+        });
+
+        var balance = balanceRepository.findBalanceByAccountIdAndCurrency(accountId, "USD").orElseThrow();
+        assertThat(successCount.get()).isEqualTo(14);
+        assertThat(balance.getAmount()).isEqualByComparingTo(new BigDecimal("2.00"));
+    }
+
+    @Test
+    @DisplayName("Concurrent deposits in several currencies are all applied")
+    void concurrentDeposits_shouldAllBeApplied() {
+        AtomicInteger counter = new AtomicInteger();
+        runConcurrently(40, () -> {
+            String currency = counter.incrementAndGet() % 2 == 0 ? "USD" : "EUR";
+            balanceService.deposit(accountId, currency, BigDecimal.ONE);
+        });
+
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, "USD").orElseThrow().getAmount())
+                .isEqualByComparingTo(new BigDecimal("20.00"));
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, "EUR").orElseThrow().getAmount())
+                .isEqualByComparingTo(new BigDecimal("20.00"));
+    }
+
+    private static void runConcurrently(int tasks, Runnable task) {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CompletableFuture<?>[] futures = new CompletableFuture[tasks];
+        for (int i = 0; i < tasks; i++) {
+            futures[i] = CompletableFuture.runAsync(task, executor);
+        }
+        CompletableFuture.allOf(futures).join();
+        executor.shutdown();
+    }
+}
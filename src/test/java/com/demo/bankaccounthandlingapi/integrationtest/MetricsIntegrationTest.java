@@ -0,0 +1,121 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.ExternalSystemException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.external.ExternalLoggingService;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "external.logging.mode=SYNC")
+class MetricsIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private ExternalLoggingService externalLoggingService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BalanceMetrics balanceMetrics;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.resetAll();
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+    }
+
+    @Test
+    @DisplayName("Balance operations are timed per outcome and log inserts are counted")
+    void balanceOperations_shouldRecordOutcomesAndLogInserts() {
+        double depositsBefore = operationCount("deposit", "success");
+        double rejectedBefore = operationCount("debit", "insufficient_funds");
+        double logInsertsBefore = logInserts("DEPOSIT");
+
+        balanceService.deposit(accountId, "USD", BigDecimal.TEN);
+        assertThatThrownBy(() -> balanceService.debit(accountId, "USD", new BigDecimal("20.00")))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(operationCount("deposit", "success")).isEqualTo(depositsBefore + 1);
+        assertThat(operationCount("debit", "insufficient_funds")).isEqualTo(rejectedBefore + 1);
+        assertThat(logInserts("DEPOSIT")).isEqualTo(logInsertsBefore + 1);
+        assertThat(meterRegistry.get("balance.lock.wait").tag("strategy", "pessimistic").timer().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("Log inserts of a rolled back transaction are not counted")
+    void transactionLogged_rolledBack_shouldNotCount() {
+        double before = logInserts("WITHDRAWAL");
+
+        transactionOperations.executeWithoutResult(status -> {
+            balanceMetrics.transactionLogged(TransactionType.WITHDRAWAL, 3);
+            status.setRollbackOnly();
+        });
+        assertThat(logInserts("WITHDRAWAL")).isEqualTo(before);
+
+        transactionOperations.executeWithoutResult(status -> balanceMetrics.transactionLogged(TransactionType.WITHDRAWAL, 3));
+        assertThat(logInserts("WITHDRAWAL")).isEqualTo(before + 3);
+    }
+
+    @Test
+    @DisplayName("External log calls are timed separately for successes and failures")
+    void sendLog_shouldRecordLatencyPerOutcome() {
+        double successBefore = externalCalls("success");
+        double failureBefore = externalCalls("failure");
+
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.ok()));
+        externalLoggingService.sendLog();
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.serverError()));
+        assertThatThrownBy(() -> externalLoggingService.sendLog()).isInstanceOf(ExternalSystemException.class);
+
+        assertThat(externalCalls("success")).isEqualTo(successBefore + 1);
+        assertThat(externalCalls("failure")).isEqualTo(failureBefore + 1);
+    }
+
+    @Test
+    @DisplayName("Connection pool usage is published")
+    void hikariPool_shouldBeMetered() {
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+    }
+
+    private double operationCount(String operation, String outcome) {
+        var timer = meterRegistry.find("balance.operation").tag("operation", operation).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double logInserts(String type) {
+        var counter = meterRegistry.find("transaction.log.inserts").tag("type", type).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double externalCalls(String outcome) {
+        return meterRegistry.get("external.logging.requests").tag("outcome", outcome).timer().count();
+    }
+}
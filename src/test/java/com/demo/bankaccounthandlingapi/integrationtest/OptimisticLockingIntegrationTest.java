@@ -0,0 +1,16 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+// Eight writers on one row need more attempts than production would allow
+@TestPropertySource(properties = {
+        "balance.locking.strategy=optimistic",
+        "balance.locking.optimistic.max-attempts=50"
+})
+class OptimisticLockingIntegrationTest extends LockingStrategyIntegrationTest {
+
+    @Override
+    String expectedStrategy() {
+        return "optimistic";
+    }
+}
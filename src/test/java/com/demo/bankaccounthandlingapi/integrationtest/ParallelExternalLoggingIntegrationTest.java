@@ -0,0 +1,153 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.ExternalSystemException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.repositories.TransactionLogRepository;
+import com.demo.bankaccounthandlingapi.services.AccountOperationService;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Every interleaving of the external call and the debit transaction in PARALLEL mode. The external call is stood
+ * in for by a future completed at a chosen moment; the debit may only commit when it completed successfully.
+ */
+@TestPropertySource(properties = "external.logging.mode=PARALLEL")
+class ParallelExternalLoggingIntegrationTest extends IntegrationTest {
+
+    private static final String CURRENCY = "USD";
+    private static final BigDecimal INITIAL = new BigDecimal("100.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("40.00");
+
+    @Autowired
+    private AccountOperationService accountOperationService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private TransactionLogRepository transactionLogRepository;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.resetAll();
+
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+        balanceService.deposit(accountId, CURRENCY, INITIAL);
+    }
+
+    @Test
+    @DisplayName("External call succeeded before the debit was ready to commit: the debit commits")
+    void externalSucceededFirst_shouldCommit() {
+        BalanceResponse response = balanceService.debit(accountId, CURRENCY, AMOUNT, CompletableFuture.completedFuture(null));
+
+        assertThat(response.amount()).isEqualByComparingTo("60.00");
+        assertCommitted();
+    }
+
+    @Test
+    @DisplayName("External call succeeds while the debit waits to commit: the debit commits afterwards")
+    void externalSucceedsLater_shouldCommitAfterIt() {
+        CompletableFuture<Void> externalCall = new CompletableFuture<Void>()
+                .completeAsync(() -> null, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        BalanceResponse response = balanceService.debit(accountId, CURRENCY, AMOUNT, externalCall);
+
+        assertThat(externalCall).isCompleted();
+        assertThat(response.amount()).isEqualByComparingTo("60.00");
+        assertCommitted();
+    }
+
+    @Test
+    @DisplayName("External call failed before the debit was ready to commit: the debit rolls back")
+    void externalFailedFirst_shouldRollBack() {
+        CompletableFuture<Void> externalCall = CompletableFuture.failedFuture(new ExternalSystemException("External system call failed"));
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, CURRENCY, AMOUNT, externalCall))
+                .isInstanceOf(ExternalSystemException.class);
+        assertRolledBack();
+    }
+
+    @Test
+    @DisplayName("External call fails while the debit waits to commit: the debit rolls back")
+    void externalFailsLater_shouldRollBack() {
+        CompletableFuture<Void> externalCall = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS)
+                .execute(() -> externalCall.completeExceptionally(new ExternalSystemException("External system call failed")));
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, CURRENCY, AMOUNT, externalCall))
+                .isInstanceOf(ExternalSystemException.class);
+        assertRolledBack();
+    }
+
+    @Test
+    @DisplayName("Debit fails while the external call is still running: the debit fails without waiting for it")
+    void debitFailsFirst_shouldNotWaitForExternalCall() {
+        CompletableFuture<Void> externalCall = new CompletableFuture<>();
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, CURRENCY, new BigDecimal("500.00"), externalCall))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(externalCall).isNotDone();
+        assertRolledBack();
+    }
+
+    @Test
+    @DisplayName("Both the debit and the external call fail: the debit failure is reported")
+    void bothFail_shouldReportDebitFailure() {
+        CompletableFuture<Void> externalCall = CompletableFuture.failedFuture(new ExternalSystemException("External system call failed"));
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, CURRENCY, new BigDecimal("500.00"), externalCall))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertRolledBack();
+    }
+
+    @Test
+    @DisplayName("Withdraw through the external system: slow success commits, slow failure rolls back")
+    void withdraw_shouldFollowTheExternalCall() {
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.ok().withFixedDelay(200)));
+        BalanceResponse response = accountOperationService.debitAccount(accountId, CURRENCY, AMOUNT);
+        assertThat(response.amount()).isEqualByComparingTo("60.00");
+        assertCommitted();
+
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.serverError().withFixedDelay(200)));
+        assertThatThrownBy(() -> accountOperationService.debitAccount(accountId, CURRENCY, AMOUNT))
+                .isInstanceOf(ExternalSystemException.class);
+        assertCommitted();
+    }
+
+    private void assertCommitted() {
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, CURRENCY).orElseThrow().getAmount())
+                .isEqualByComparingTo("60.00");
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(2);
+    }
+
+    private void assertRolledBack() {
+        assertThat(balanceRepository.findBalanceByAccountIdAndCurrency(accountId, CURRENCY).orElseThrow().getAmount())
+                .isEqualByComparingTo(INITIAL);
+        assertThat(transactionLogRepository.countByAccountId(accountId)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,161 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferItem;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The "replica" is a second, independent Postgres with the same schema. Rows written to it directly stand in for
+ * a replica that has not caught up yet, which makes visible which database answered.
+ */
+@TestPropertySource(properties = {
+        "datasource.replica.enabled=true",
+        "datasource.replica.lag-check-interval-ms=100",
+        "balance.cache.enabled=false"
+})
+class ReadReplicaIntegrationTest extends IntegrationTest {
+
+    static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:17-alpine")
+            .withDatabaseName("bankdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    static {
+        replica.start();
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .placeholders(Map.of("shard", "0"))
+                .load()
+                .migrate();
+    }
+
+    @DynamicPropertySource
+    static void configureReplica(DynamicPropertyRegistry registry) {
+        registry.add("datasource.replica.url", replica::getJdbcUrl);
+        registry.add("datasource.replica.username", replica::getUsername);
+        registry.add("datasource.replica.password", replica::getPassword);
+    }
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private final JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        accountId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(accountId, "EUR", new BigDecimal("100.00"));
+        // The replica still has the balance as it was before that deposit, at version 0 with a marker amount
+        replicaJdbcTemplate.update("INSERT INTO account (id) VALUES (?)", accountId);
+        replicaJdbcTemplate.update("INSERT INTO balance (account_id, currency, amount, version) VALUES (?, 'EUR', 999.00, 0)", accountId);
+    }
+
+    @Test
+    @DisplayName("Balance reads are answered by the replica, writes go to the primary")
+    void getBalance_shouldReadFromReplica() {
+        double replicaReads = meterRegistry.get("datasource.reads").tag("target", "replica").counter().count();
+
+        balanceService.deposit(accountId, "EUR", new BigDecimal("50.00"));
+
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("999.00");
+        assertThat(balanceService.getBalances(accountId, null, null).balances().getFirst().amount()).isEqualByComparingTo("999.00");
+        assertThat(meterRegistry.get("datasource.reads").tag("target", "replica").counter().count()).isGreaterThan(replicaReads);
+        assertThat(jdbcTemplate.queryForObject("SELECT amount FROM balance WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("150.00");
+    }
+
+    @Test
+    @DisplayName("A client sending the version of its last write reads that write even while the replica lags behind")
+    void getBalance_withVersion_shouldReadOwnWrite() throws Exception {
+        HttpResponse<String> deposit = send(HttpRequest.newBuilder(uri("deposit"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"currency\":\"EUR\",\"amount\":50.00}")));
+        String version = deposit.headers().firstValue("Balance-Version").orElseThrow();
+
+        HttpResponse<String> stale = send(HttpRequest.newBuilder(URI.create(uri("") + "?currency=EUR")).GET());
+        HttpResponse<String> ownWrite = send(HttpRequest.newBuilder(URI.create(uri("") + "?currency=EUR"))
+                .header("Balance-Version", version)
+                .GET());
+
+        assertThat(Long.parseLong(version)).isPositive();
+        assertThat(stale.body()).contains("999");
+        assertThat(ownWrite.statusCode()).isEqualTo(200);
+        assertThat(ownWrite.body()).contains("150");
+    }
+
+    @Test
+    @DisplayName("An account the replica has not seen yet can be written to and exported right after its creation")
+    void newAccount_shouldBeCheckedOnThePrimary() throws Exception {
+        // given
+        Long newAccountId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(newAccountId, "EUR", new BigDecimal("80.00"));
+
+        // when
+        BatchTransferResponse batch = transferService.transferBatch(new BatchTransferRequest(newAccountId, "EUR", List.of(
+                new BatchTransferItem(accountId, null, new BigDecimal("30.00")))));
+        HttpResponse<String> export = send(HttpRequest.newBuilder(
+                URI.create("http://localhost:%d/%d/transactions/export".formatted(port, newAccountId))).GET());
+
+        // then
+        assertThat(replicaJdbcTemplate.queryForObject("SELECT count(*) FROM account WHERE id = ?", Long.class, newAccountId)).isZero();
+        assertThat(batch.transferred()).isEqualTo(1);
+        assertThat(batch.failures()).isEmpty();
+        assertThat(batch.sourceBalance().amount()).isEqualByComparingTo("50.00");
+        assertThat(export.statusCode()).isEqualTo(200);
+    }
+
+    private URI uri(String operation) {
+        return URI.create("http://localhost:%d/%d/balance%s".formatted(port, accountId, operation.isEmpty() ? "" : "/" + operation));
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferItem;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.BatchTransferResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransferRequest;
+import com.demo.bankaccounthandlingapi.dtos.TransferResponse;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.services.TransferService;
+import com.demo.bankaccounthandlingapi.sharding.ShardPlacement;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The shared container is shard 0, a second Postgres is shard 1 and is migrated by the application on startup.
+ * Accounts are created directly in either database, so each test knows which shard it works on.
+ */
+@TestPropertySource(properties = {
+        "datasource.sharding.enabled=true",
+        "datasource.sharding.load-refresh-interval-ms=600000",
+        "balance.cache.enabled=false",
+        "balance.reconciliation.enabled=false"
+})
+class ShardingIntegrationTest extends IntegrationTest {
+
+    private static final Pattern ACCOUNT_ID = Pattern.compile("\"id\":(\\d+)");
+
+    static final PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:17-alpine")
+            .withDatabaseName("bankdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    static {
+        shard1.start();
+    }
+
+    @DynamicPropertySource
+    static void configureShards(DynamicPropertyRegistry registry) {
+        registry.add("datasource.sharding.shards.1.url", shard1::getJdbcUrl);
+        registry.add("datasource.sharding.shards.1.username", shard1::getUsername);
+        registry.add("datasource.sharding.shards.1.password", shard1::getPassword);
+    }
+
+    @Autowired
+    private ShardPlacement shardPlacement;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private final JdbcTemplate shard1JdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource(shard1.getJdbcUrl(), shard1.getUsername(), shard1.getPassword()));
+
+    @Test
+    @DisplayName("A new account is placed on the shard holding the fewest accounts and its id names that shard")
+    void createAccount_shouldPlaceOnLeastLoadedShard() throws Exception {
+        // given
+        Map<Integer, Long> load = shardPlacement.load();
+        int leastLoaded = load.entrySet().stream()
+                .min(Map.Entry.<Integer, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .orElseThrow().getKey();
+
+        // when
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create("http://localhost:%d/accounts".formatted(port)))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+
+        // then
+        assertThat(response.statusCode()).isEqualTo(200);
+        Matcher id = ACCOUNT_ID.matcher(response.body());
+        assertThat(id.find()).isTrue();
+        long accountId = Long.parseLong(id.group(1));
+        assertThat(ShardRouting.shardOf(accountId)).isEqualTo(leastLoaded);
+        assertThat(shardPlacement.load().get(leastLoaded)).isEqualTo(load.get(leastLoaded) + 1);
+        JdbcTemplate shard = leastLoaded == 0 ? jdbcTemplate : shard1JdbcTemplate;
+        assertThat(shard.queryForObject("SELECT count(*) FROM account WHERE id = ?", Long.class, accountId)).isOne();
+    }
+
+    @Test
+    @DisplayName("Balance operations on an account of shard 1 read and write only the shard 1 database")
+    void operations_shouldStayOnTheAccountsShard() throws Exception {
+        // given
+        long accountId = createAccountOnShard1();
+
+        // when
+        HttpResponse<String> deposit = send(HttpRequest.newBuilder(uri(accountId, "balance/deposit"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"currency\":\"EUR\",\"amount\":100.00}")));
+        HttpResponse<String> withdraw = send(HttpRequest.newBuilder(uri(accountId, "balance/withdraw"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"currency\":\"EUR\",\"amount\":30.00}")));
+        HttpResponse<String> balance = send(HttpRequest.newBuilder(URI.create(uri(accountId, "balance") + "?currency=EUR")).GET());
+
+        // then
+        assertThat(ShardRouting.shardOf(accountId)).isEqualTo(1);
+        assertThat(deposit.statusCode()).isEqualTo(200);
+        assertThat(withdraw.statusCode()).isEqualTo(200);
+        assertThat(balance.body()).contains("70");
+        assertThat(shard1JdbcTemplate.queryForObject("SELECT amount FROM balance WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("70.00");
+        assertThat(shard1JdbcTemplate.queryForObject("SELECT count(*) FROM transaction_log WHERE account_id = ?",
+                Long.class, accountId)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM balance WHERE account_id = ?", Long.class, accountId)).isZero();
+    }
+
+    @Test
+    @DisplayName("A transfer between accounts of one shard is applied there, one across shards is rejected")
+    void transfer_shouldStayWithinOneShard() {
+        // given
+        long sourceId = createAccountOnShard1();
+        long targetId = createAccountOnShard1();
+        long otherShardId = jdbcTemplate.queryForObject("INSERT INTO account DEFAULT VALUES RETURNING id", Long.class);
+        seedBalance(sourceId, "USD", "500.00");
+
+        // when
+        TransferResponse response = transferService.transfer(new TransferRequest(sourceId, targetId, "USD", null, new BigDecimal("200.00")));
+        BatchTransferResponse batch = transferService.transferBatch(new BatchTransferRequest(sourceId, "USD", List.of(
+                new BatchTransferItem(targetId, null, new BigDecimal("50.00")),
+                new BatchTransferItem(otherShardId, null, new BigDecimal("50.00")))));
+
+        // then
+        assertThat(response.sourceBalance().amount()).isEqualByComparingTo("300.00");
+        assertThat(response.targetBalance().amount()).isEqualByComparingTo("200.00");
+        assertThat(batch.transferred()).isEqualTo(1);
+        assertThat(batch.failures()).singleElement().satisfies(failure -> assertThat(failure.targetAccountId()).isEqualTo(otherShardId));
+        assertThat(shard1JdbcTemplate.queryForObject("SELECT amount FROM balance WHERE account_id = ? AND currency = 'USD'",
+                BigDecimal.class, targetId)).isEqualByComparingTo("250.00");
+        assertThatThrownBy(() -> transferService.transfer(new TransferRequest(sourceId, otherShardId, "USD", null, BigDecimal.ONE)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Reconciliation checks the balances of every shard")
+    void reconcileAll_shouldCoverEveryShard() {
+        // given
+        long matchingId = createAccountOnShard1();
+        long mismatchedId = createAccountOnShard1();
+        seedBalance(matchingId, "EUR", "10.00");
+        seedBalance(mismatchedId, "EUR", "10.00");
+        shard1JdbcTemplate.update("UPDATE balance SET amount = amount + 1 WHERE account_id = ?", mismatchedId);
+
+        // when
+        BalanceReconciler.Result result = balanceReconciler.reconcileAll();
+
+        // then
+        assertThat(result.discrepancies()).isPositive();
+        assertThat(shard1JdbcTemplate.queryForObject("SELECT count(*) FROM balance_reconciliation_checkpoint WHERE account_id = ?",
+                Long.class, matchingId)).isOne();
+        assertThat(balanceReconciler.getDiscrepancies(mismatchedId)).singleElement()
+                .satisfies(discrepancy -> assertThat(discrepancy.logAmount()).isEqualByComparingTo("10.00"));
+        assertThat(balanceReconciler.getDiscrepancies(null)).extracting(discrepancy -> discrepancy.accountId()).contains(mismatchedId);
+    }
+
+    private long createAccountOnShard1() {
+        return shard1JdbcTemplate.queryForObject("INSERT INTO account DEFAULT VALUES RETURNING id", Long.class);
+    }
+
+    // A deposit as the application writes it, the balance row and its log entry
+    private void seedBalance(long accountId, String currency, String amount) {
+        shard1JdbcTemplate.update("INSERT INTO balance (account_id, currency, amount) VALUES (?, ?, ?)",
+                accountId, currency, new BigDecimal(amount));
+        shard1JdbcTemplate.update("""
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type)
+                VALUES (?, gen_random_uuid(), ?, ?, 'DEPOSIT')
+                """, accountId, new BigDecimal(amount), currency);
+    }
+
+    private URI uri(long accountId, String path) {
+        return URI.create("http://localhost:%d/%d/%s".formatted(port, accountId, path));
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransferRequest;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.TransferService;
+import com.demo.bankaccounthandlingapi.striping.StripedBalanceStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = {
+        "balance.striping.enabled=true",
+        "balance.striping.slots=4",
+        // Consolidation is triggered by the tests themselves
+        "balance.striping.consolidation-interval-ms=3600000",
+        "balance.reconciliation.enabled=false"
+})
+class StripedBalanceIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private StripedBalanceStore stripedBalanceStore;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        accountId = accountRepository.save(new Account()).getId();
+    }
+
+    @Test
+    @DisplayName("Concurrent deposits spread over the slots and add up to the balance")
+    void deposit_concurrent_shouldSumOverSlots() throws Exception {
+        int deposits = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BalanceResponse>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < deposits; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return balanceService.deposit(accountId, "EUR", new BigDecimal("1.50"));
+                }));
+            }
+            start.countDown();
+        }
+
+        for (Future<BalanceResponse> result : results) {
+            result.get();
+        }
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("300.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT amount FROM balance WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("0.00");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM balance_slot WHERE account_id = ?", Long.class, accountId))
+                .isBetween(2L, 4L);
+        assertThat(balanceService.getBalances(accountId, null, null).balances())
+                .containsExactly(new BalanceResponse("EUR", new BigDecimal("300.00")));
+    }
+
+    @Test
+    @DisplayName("A debit is taken from one slot, or from the consolidated balance when no single slot covers it")
+    void debit_shouldUseSlotThenConsolidate() {
+        jdbcTemplate.update("INSERT INTO balance (account_id, currency, amount, version) VALUES (?, 'EUR', 0, 0)", accountId);
+        jdbcTemplate.update("INSERT INTO balance_slot (account_id, currency, slot, amount) VALUES (?, 'EUR', 0, 40), (?, 'EUR', 1, 30)",
+                accountId, accountId);
+        double slotDebits = debits("slot");
+        double consolidatedDebits = debits("consolidated");
+
+        balanceService.debit(accountId, "EUR", new BigDecimal("25.00"));
+        BalanceResponse afterConsolidation = balanceService.debit(accountId, "EUR", new BigDecimal("40.00"));
+
+        assertThat(afterConsolidation.amount()).isEqualByComparingTo("5.00");
+        assertThat(debits("slot")).isEqualTo(slotDebits + 1);
+        assertThat(debits("consolidated")).isEqualTo(consolidatedDebits + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COALESCE(SUM(amount), 0) FROM balance_slot WHERE account_id = ?",
+                BigDecimal.class, accountId)).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    @DisplayName("A debit larger than the balance and all slots together fails and changes nothing")
+    void debit_insufficientFunds() {
+        balanceService.deposit(accountId, "EUR", new BigDecimal("10.00"));
+        balanceService.deposit(accountId, "EUR", new BigDecimal("10.00"));
+
+        assertThatThrownBy(() -> balanceService.debit(accountId, "EUR", new BigDecimal("20.01")))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThatThrownBy(() -> balanceService.deposit(Long.MAX_VALUE, "EUR", new BigDecimal("1.00")))
+                .isInstanceOf(AccountNotFoundException.class);
+
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    @DisplayName("The consolidator folds slots into the balance row without changing the amount or the reconciliation")
+    void consolidateAll_shouldKeepAmountAndReconcile() {
+        balanceService.deposit(accountId, "EUR", new BigDecimal("12.00"));
+        balanceService.deposit(accountId, "EUR", new BigDecimal("8.00"));
+        balanceService.debit(accountId, "EUR", new BigDecimal("5.00"));
+        assertThat(balanceReconciler.reconcileRange(accountId, accountId + 1).discrepancies()).isZero();
+
+        stripedBalanceStore.consolidateAll();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT amount FROM balance WHERE account_id = ? AND currency = 'EUR'",
+                BigDecimal.class, accountId)).isEqualByComparingTo("15.00");
+        assertThat(balanceService.getBalance(accountId, "EUR").amount()).isEqualByComparingTo("15.00");
+        assertThat(balanceReconciler.reconcileRange(accountId, accountId + 1).discrepancies()).isZero();
+    }
+
+    @Test
+    @DisplayName("Exchanges and transfers spend money held in slots")
+    void exchangeAndTransfer_shouldConsolidateFirst() {
+        Long targetId = accountRepository.save(new Account()).getId();
+        for (int i = 0; i < 4; i++) {
+            balanceService.deposit(accountId, "USD", new BigDecimal("50.00"));
+        }
+
+        // Static rates: EUR = 1, USD = 1.05
+        BalanceResponse exchanged = balanceService.exchange(accountId, "USD", "EUR", new BigDecimal("105.00"));
+        var transferred = transferService.transfer(new TransferRequest(accountId, targetId, "USD", null, new BigDecimal("95.00")));
+
+        assertThat(exchanged).isEqualTo(new BalanceResponse("EUR", new BigDecimal("100.00")));
+        assertThat(transferred.sourceBalance().amount()).isEqualByComparingTo("0.00");
+        assertThat(balanceService.getBalance(targetId, "USD").amount()).isEqualByComparingTo("95.00");
+        assertThat(balanceReconciler.reconcileRange(accountId, targetId + 1).discrepancies()).isZero();
+    }
+
+    private double debits(String path) {
+        var counter = meterRegistry.find("balance.striping.debits").tag("path", path).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
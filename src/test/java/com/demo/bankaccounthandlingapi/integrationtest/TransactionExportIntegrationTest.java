@@ -0,0 +1,102 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.enums.ExportFormat;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.TransactionExportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionExportIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+
+        balanceService.deposit(accountId, "USD", new BigDecimal("100.00"));
+        balanceService.exchange(accountId, "USD", "EUR", new BigDecimal("10.50"));
+    }
+
+    @Test
+    @DisplayName("NDJSON export writes one JSON object per transaction, oldest first")
+    void export_ndjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = transactionExportService.export(accountId, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"id\":").contains("\"type\":\"DEPOSIT\"", "\"currency\":\"USD\"", "\"amount\":100.00").endsWith("\"}");
+        assertThat(lines[1] + lines[2]).contains("EXCHANGE_OUT", "EXCHANGE_IN");
+    }
+
+    @Test
+    @DisplayName("CSV export over HTTP is gzip compressed when the client accepts it")
+    void export_csvOverHttp_gzip() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/%d/transactions/export?format=CSV".formatted(port, accountId)))
+                .header("Accept-Encoding", "gzip")
+                .build();
+
+        HttpResponse<byte[]> response;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(type -> assertThat(type).startsWith("text/csv"));
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = csv.split("\n");
+        assertThat(lines[0]).isEqualTo("id,referenceId,type,currency,amount,createdAt");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[1]).contains(",DEPOSIT,USD,100.00,");
+    }
+
+    @Test
+    @DisplayName("Exporting an unknown account is rejected before anything is streamed")
+    void export_unknownAccount() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/%d/transactions/export".formatted(port, Long.MAX_VALUE))).build();
+
+        HttpResponse<String> response;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+}
@@ -0,0 +1,82 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.enums.ExportFormat;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.TransactionExportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs only in the {@code lowMemoryTest} Gradle task, whose JVM gets a heap far smaller than the exported data:
+ * buffering the rows anywhere on the way would fail with an OutOfMemoryError.
+ */
+@Tag("low-memory")
+class TransactionExportLowMemoryTest extends IntegrationTest {
+
+    private static final int TRANSACTIONS = 3_000_000;
+    private static final long MAX_HEAP = 160L * 1024 * 1024;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Exports millions of transactions with a heap smaller than the export")
+    void export_millionsOfRows_withSmallHeap() throws Exception {
+        assertThat(Runtime.getRuntime().maxMemory()).as("run through ./gradlew lowMemoryTest").isLessThanOrEqualTo(MAX_HEAP);
+        Long accountId = accountRepository.save(new Account()).getId();
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type, created_at)
+                SELECT ?, gen_random_uuid(), 1.00, 'EUR', 'DEPOSIT', TIMESTAMP '2025-01-01' + g * INTERVAL '1 second'
+                FROM generate_series(1, ?) AS g
+                """, accountId, TRANSACTIONS);
+
+        LineCountingOutputStream ndjson = new LineCountingOutputStream();
+        LineCountingOutputStream csv = new LineCountingOutputStream();
+        transactionExportService.export(accountId, ExportFormat.NDJSON, ndjson);
+        transactionExportService.export(accountId, ExportFormat.CSV, csv);
+
+        assertThat(ndjson.lines).isEqualTo(TRANSACTIONS);
+        assertThat(csv.lines).isEqualTo(TRANSACTIONS + 1);
+        // Roughly 150 bytes per row, well over twice the heap
+        assertThat(ndjson.bytes).isGreaterThan(2 * MAX_HEAP);
+    }
+
+    // Discards the export, keeping only what is needed to check it
+    private static final class LineCountingOutputStream extends OutputStream {
+
+        private long lines;
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.TransactionPageResponse;
+import com.demo.bankaccounthandlingapi.dtos.TransactionResponse;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.TransactionHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionHistoryIntegrationTest extends IntegrationTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+
+        // Ten transactions one minute apart, the last two share a timestamp so the id has to break the tie
+        for (int i = 0; i < 10; i++) {
+            Instant createdAt = START.plusSeconds(60L * Math.min(i, 8));
+            TransactionType type = i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL;
+            String currency = i < 5 ? "USD" : "EUR";
+            jdbcTemplate.update("""
+                    INSERT INTO transaction_log (account_id, reference_id, amount, currency, type, created_at)
+                    VALUES (?, gen_random_uuid(), ?, ?, ?, ?)
+                    """, accountId, BigDecimal.valueOf(i + 1), currency, type.name(), LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+        }
+    }
+
+    @Test
+    @DisplayName("Following the cursor visits every transaction once, newest first")
+    void getTransactions_shouldPageThroughAllRowsInOrder() {
+        List<TransactionResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPageResponse page = transactionHistoryService.getTransactions(accountId, null, null, null, null, cursor, 3);
+            seen.addAll(page.transactions());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).hasSize(10);
+        assertThat(seen).extracting(TransactionResponse::amount)
+                .extracting(BigDecimal::intValue)
+                .containsExactly(10, 9, 8, 7, 6, 5, 4, 3, 2, 1);
+        assertThat(seen.getFirst().createdAt()).isEqualTo(START.plusSeconds(480));
+    }
+
+    @Test
+    @DisplayName("Type, currency and time range filters are combined")
+    void getTransactions_shouldApplyFilters() {
+        TransactionPageResponse page = transactionHistoryService.getTransactions(accountId, TransactionType.WITHDRAWAL, "USD",
+                START.plusSeconds(60), START.plusSeconds(240), null, 50);
+
+        // WITHDRAWAL rows are the odd ones, USD the first five, the range covers minutes 1 to 3
+        assertThat(page.transactions()).extracting(TransactionResponse::amount)
+                .extracting(BigDecimal::intValue)
+                .containsExactly(4, 2);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Unknown accounts, broken cursors and page sizes out of range are rejected")
+    void getTransactions_shouldRejectInvalidRequests() {
+        assertThatThrownBy(() -> transactionHistoryService.getTransactions(Long.MAX_VALUE, null, null, null, null, null, 10))
+                .isInstanceOf(AccountNotFoundException.class);
+        assertThatThrownBy(() -> transactionHistoryService.getTransactions(accountId, null, null, null, null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transactionHistoryService.getTransactions(accountId, null, null, null, null, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("The history query is read in index order, without sorting")
+    void historyQuery_shouldUseIndex() {
+        // The test table is tiny, so the planner is told that sequential scans and sorts are expensive
+        List<String> plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL enable_sort = off");
+            return jdbcTemplate.queryForList("""
+                    EXPLAIN SELECT id FROM transaction_log
+                    WHERE account_id = %d AND (created_at, id) < (NOW(), 0)
+                    ORDER BY created_at DESC, id DESC LIMIT 50
+                    """.formatted(accountId), String.class);
+        });
+
+        // Each partition is read through its copy of the (account_id, created_at, id) index
+        assertThat(String.join("\n", plan)).contains("Index").doesNotContain("Seq Scan");
+        assertThat(plan).noneMatch(line -> line.matches("\\s*(->\\s+)?Sort\\s+\\(.*"));
+    }
+}
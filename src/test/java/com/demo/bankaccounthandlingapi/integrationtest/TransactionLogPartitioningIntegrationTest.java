@@ -0,0 +1,199 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.enums.ExpiredPartitionAction;
+import com.demo.bankaccounthandlingapi.partitioning.TransactionLogPartitionManager;
+import com.demo.bankaccounthandlingapi.partitioning.TransactionLogPartitionManager.Partition;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionLogPartitioningIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private TransactionLogPartitionManager partitionManager;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Test
+    @DisplayName("Maintenance creates the missing months ahead and is idempotent")
+    void maintain_shouldCreateFuturePartitions() {
+        YearMonth now = YearMonth.now(ZoneOffset.UTC);
+
+        partitionManager.maintain(now.plusMonths(2));
+        partitionManager.maintain(now.plusMonths(2));
+
+        List<String> names = partitionManager.listPartitions().stream().map(Partition::name).toList();
+        assertThat(names).contains("transaction_log_legacy",
+                "transaction_log_p" + suffix(now.plusMonths(1)),
+                "transaction_log_p" + suffix(now.plusMonths(5)));
+        assertThat(names).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("New transactions land in the partitioned table and month queries prune to one partition")
+    void queries_shouldPruneToTheMonthsTheyCover() {
+        Long accountId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(accountId, "EUR", new BigDecimal("10.00"));
+        YearMonth nextMonth = YearMonth.now(ZoneOffset.UTC).plusMonths(1);
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type, created_at)
+                VALUES (?, gen_random_uuid(), 1.00, 'EUR', 'DEPOSIT', ?)
+                """, accountId, nextMonth.atDay(2).atStartOfDay());
+
+        List<String> plan = jdbcTemplate.queryForList("""
+                EXPLAIN SELECT id FROM transaction_log
+                WHERE account_id = ? AND created_at >= ? AND created_at < ?
+                """, String.class, accountId, nextMonth.atDay(1).atStartOfDay(), nextMonth.plusMonths(1).atDay(1).atStartOfDay());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM transaction_log WHERE account_id = ?", Long.class, accountId)).isEqualTo(2);
+        String joined = String.join("\n", plan);
+        assertThat(joined).contains("transaction_log_p" + suffix(nextMonth)).doesNotContain("transaction_log_legacy");
+    }
+
+    @Test
+    @DisplayName("Partitions past retention are detached and archived")
+    void maintain_shouldArchiveExpiredPartitions() {
+        Partition legacy = partitionManager.listPartitions().stream()
+                .filter(partition -> partition.name().equals("transaction_log_legacy"))
+                .findFirst().orElseThrow();
+        LocalDateTime legacyEnd = legacy.upperBound().orElseThrow();
+        var retiringManager = new TransactionLogPartitionManager(jdbcTemplate, transactionOperations, new SimpleMeterRegistry(),
+                shardRouting, true, 0, 1, ExpiredPartitionAction.ARCHIVE, 2000);
+
+        try {
+            // One month of retention after the legacy range ended: only the legacy partition has expired
+            retiringManager.maintain(YearMonth.from(legacyEnd).plusMonths(1));
+
+            assertThat(retiringManager.listPartitions()).extracting(Partition::name)
+                    .doesNotContain("transaction_log_legacy")
+                    .contains("transaction_log_p" + suffix(YearMonth.from(legacyEnd)));
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('transaction_log_archive.transaction_log_legacy') IS NOT NULL", Boolean.class)).isTrue();
+        } finally {
+            // Give the shared test database its history back
+            jdbcTemplate.execute("ALTER TABLE transaction_log_archive.transaction_log_legacy SET SCHEMA public");
+            jdbcTemplate.execute("ALTER TABLE transaction_log ATTACH PARTITION transaction_log_legacy FOR VALUES FROM (MINVALUE) TO ('%s')"
+                    .formatted(legacyEnd));
+        }
+    }
+
+    @Test
+    @DisplayName("A balance whose log entries were retired still reconciles from scratch")
+    void reconcile_afterRetirement_shouldCountRetiredEntries() {
+        Partition legacy = partitionManager.listPartitions().stream()
+                .filter(partition -> partition.name().equals("transaction_log_legacy"))
+                .findFirst().orElseThrow();
+        LocalDateTime legacyEnd = legacy.upperBound().orElseThrow();
+        var retiringManager = new TransactionLogPartitionManager(jdbcTemplate, transactionOperations, new SimpleMeterRegistry(),
+                shardRouting, true, 0, 1, ExpiredPartitionAction.ARCHIVE, 2000);
+        Long accountId = accountRepository.save(new Account()).getId();
+        // A deposit made before partitioning, with no checkpoint yet
+        jdbcTemplate.update("INSERT INTO balance (account_id, currency, amount) VALUES (?, 'EUR', 40.00)", accountId);
+        jdbcTemplate.update("""
+                INSERT INTO transaction_log (account_id, reference_id, amount, currency, type, created_at)
+                VALUES (?, gen_random_uuid(), 40.00, 'EUR', 'DEPOSIT', ?)
+                """, accountId, legacyEnd.minusDays(1));
+
+        try {
+            retiringManager.maintain(YearMonth.from(legacyEnd).plusMonths(1));
+            BalanceReconciler.Result result = balanceReconciler.reconcileRange(accountId, accountId + 1);
+
+            assertThat(retiringManager.listPartitions()).extracting(Partition::name).doesNotContain("transaction_log_legacy");
+            assertThat(result.fullRecomputes()).isOne();
+            assertThat(result.discrepancies()).isZero();
+            assertThat(balanceReconciler.getDiscrepancies(accountId)).isEmpty();
+        } finally {
+            // Give the shared test database its history back
+            jdbcTemplate.execute("ALTER TABLE transaction_log_archive.transaction_log_legacy SET SCHEMA public");
+            jdbcTemplate.execute("ALTER TABLE transaction_log ATTACH PARTITION transaction_log_legacy FOR VALUES FROM (MINVALUE) TO ('%s')"
+                    .formatted(legacyEnd));
+        }
+    }
+
+    @Test
+    @DisplayName("A detach interrupted while waiting for running queries is finalized by the next run")
+    void maintain_shouldFinalizeInterruptedDetach() throws Exception {
+        Partition legacy = partitionManager.listPartitions().stream()
+                .filter(partition -> partition.name().equals("transaction_log_legacy"))
+                .findFirst().orElseThrow();
+        LocalDateTime legacyEnd = legacy.upperBound().orElseThrow();
+        YearMonth currentMonth = YearMonth.from(legacyEnd).plusMonths(1);
+        var retiringManager = new TransactionLogPartitionManager(jdbcTemplate, transactionOperations, new SimpleMeterRegistry(),
+                shardRouting, true, 0, 1, ExpiredPartitionAction.ARCHIVE, 500);
+
+        try {
+            // A transaction that read the table keeps the second step of the detach waiting until it times out
+            try (Connection reader = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())) {
+                reader.setAutoCommit(false);
+                try (Statement statement = reader.createStatement()) {
+                    statement.execute("SELECT count(*) FROM transaction_log");
+                }
+                retiringManager.maintain(currentMonth);
+
+                assertThat(retiringManager.listPartitions()).filteredOn(partition -> partition.name().equals("transaction_log_legacy"))
+                        .singleElement().extracting(Partition::detachPending).isEqualTo(true);
+                reader.rollback();
+            }
+
+            retiringManager.maintain(currentMonth);
+
+            assertThat(retiringManager.listPartitions()).extracting(Partition::name).doesNotContain("transaction_log_legacy");
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('transaction_log_archive.transaction_log_legacy') IS NOT NULL", Boolean.class)).isTrue();
+        } finally {
+            // Give the shared test database its history back, whichever step the test stopped at
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                    SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass('public.transaction_log_legacy')
+                    """, Boolean.class))) {
+                jdbcTemplate.execute("ALTER TABLE transaction_log DETACH PARTITION transaction_log_legacy FINALIZE");
+            }
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('transaction_log_archive.transaction_log_legacy') IS NOT NULL", Boolean.class))) {
+                jdbcTemplate.execute("ALTER TABLE transaction_log_archive.transaction_log_legacy SET SCHEMA public");
+            }
+            if (partitionManager.listPartitions().stream().noneMatch(partition -> partition.name().equals("transaction_log_legacy"))) {
+                jdbcTemplate.execute("ALTER TABLE transaction_log ATTACH PARTITION transaction_log_legacy FOR VALUES FROM (MINVALUE) TO ('%s')"
+                        .formatted(legacyEnd));
+            }
+        }
+    }
+
+    private static String suffix(YearMonth month) {
+        return "%04d%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+}
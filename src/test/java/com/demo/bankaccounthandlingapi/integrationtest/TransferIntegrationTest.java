@@ -0,0 +1,164 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.dtos.*;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.reconciliation.BalanceReconciler;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.demo.bankaccounthandlingapi.services.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = {
+        "transfers.batch.chunk-size=100",
+        "balance.reconciliation.enabled=false"
+})
+class TransferIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long sourceId;
+    private Long targetId;
+
+    @BeforeEach
+    void setup() {
+        sourceId = accountRepository.save(new Account()).getId();
+        targetId = accountRepository.save(new Account()).getId();
+        balanceService.deposit(sourceId, "USD", new BigDecimal("1000.00"));
+        balanceService.deposit(targetId, "USD", new BigDecimal("1000.00"));
+    }
+
+    @Test
+    @DisplayName("A transfer moves the money in one transaction and logs both legs under one reference")
+    void transfer_sameCurrency() {
+        TransferResponse response = transferService.transfer(new TransferRequest(sourceId, targetId, "USD", null, new BigDecimal("250.00")));
+
+        assertThat(response.sourceBalance().amount()).isEqualByComparingTo("750.00");
+        assertThat(response.targetBalance().amount()).isEqualByComparingTo("1250.00");
+        List<Map<String, Object>> legs = jdbcTemplate.queryForList("""
+                SELECT account_id, type, reference_id FROM transaction_log
+                WHERE account_id IN (?, ?) AND type LIKE 'TRANSFER%' ORDER BY type
+                """, sourceId, targetId);
+        assertThat(legs).extracting(leg -> leg.get("type")).containsExactly("TRANSFER_IN", "TRANSFER_OUT");
+        assertThat(legs.get(0).get("reference_id")).isEqualTo(legs.get(1).get("reference_id"));
+    }
+
+    @Test
+    @DisplayName("A cross-currency transfer credits the converted amount")
+    void transfer_crossCurrency() {
+        // Static rates: EUR = 1, USD = 1.05
+        TransferResponse response = transferService.transfer(new TransferRequest(sourceId, targetId, "USD", "EUR", new BigDecimal("105.00")));
+
+        assertThat(response.sourceBalance().amount()).isEqualByComparingTo("895.00");
+        assertThat(response.targetBalance()).isEqualTo(new BalanceResponse("EUR", new BigDecimal("100.00")));
+    }
+
+    @Test
+    @DisplayName("A transfer that cannot be covered changes neither account")
+    void transfer_insufficientFunds() {
+        assertThatThrownBy(() -> transferService.transfer(new TransferRequest(sourceId, targetId, "USD", null, new BigDecimal("1000.01"))))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(balanceService.getBalance(sourceId, "USD").amount()).isEqualByComparingTo("1000.00");
+        assertThat(balanceService.getBalance(targetId, "USD").amount()).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers in opposite directions neither deadlock nor lose money")
+    void transfer_oppositeDirections_noDeadlock() throws Exception {
+        int transfersPerDirection = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransferResponse>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < transfersPerDirection; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transferService.transfer(new TransferRequest(sourceId, targetId, "USD", null, new BigDecimal("3.00")));
+                }));
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transferService.transfer(new TransferRequest(targetId, sourceId, "USD", null, new BigDecimal("1.00")));
+                }));
+            }
+            start.countDown();
+        }
+
+        for (Future<TransferResponse> result : results) {
+            result.get();
+        }
+        assertThat(balanceService.getBalance(sourceId, "USD").amount()).isEqualByComparingTo("900.00");
+        assertThat(balanceService.getBalance(targetId, "USD").amount()).isEqualByComparingTo("1100.00");
+    }
+
+    @Test
+    @DisplayName("A batch is applied in chunks and reports the transfers it had to skip")
+    void transferBatch_fanOut() {
+        List<Long> targets = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            targets.add(accountRepository.save(new Account()).getId());
+        }
+        List<BatchTransferItem> transfers = new ArrayList<>();
+        targets.forEach(target -> transfers.add(new BatchTransferItem(target, null, new BigDecimal("4.00"))));
+        transfers.add(120, new BatchTransferItem(Long.MAX_VALUE, null, new BigDecimal("4.00")));
+
+        BatchTransferResponse response = transferService.transferBatch(new BatchTransferRequest(sourceId, "USD", transfers));
+
+        // 1000.00 covers the first 250 transfers of 4.00, the unknown account in between is skipped
+        assertThat(response.transferred()).isEqualTo(250);
+        assertThat(response.failures()).singleElement().satisfies(failure -> {
+            assertThat(failure.index()).isEqualTo(120);
+            assertThat(failure.targetAccountId()).isEqualTo(Long.MAX_VALUE);
+        });
+        assertThat(response.sourceBalance().amount()).isEqualByComparingTo("0.00");
+        assertThat(balanceService.getBalance(targets.getLast(), "USD").amount()).isEqualByComparingTo("4.00");
+
+        BatchTransferResponse overdrawn = transferService.transferBatch(new BatchTransferRequest(sourceId, "USD",
+                List.of(new BatchTransferItem(targetId, null, new BigDecimal("1.00")))));
+        assertThat(overdrawn.transferred()).isZero();
+        assertThat(overdrawn.failures()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Transfer legs keep every balance reconcilable against its log")
+    void transfer_shouldReconcile() {
+        transferService.transfer(new TransferRequest(sourceId, targetId, "USD", "EUR", new BigDecimal("21.00")));
+        transferService.transfer(new TransferRequest(targetId, sourceId, "USD", null, new BigDecimal("5.00")));
+
+        BalanceReconciler.Result result = balanceReconciler.reconcileRange(sourceId, targetId + 1);
+
+        assertThat(result.discrepancies()).isZero();
+        assertThat(balanceReconciler.getDiscrepancies(sourceId)).isEmpty();
+        assertThat(balanceReconciler.getDiscrepancies(targetId)).isEmpty();
+    }
+}
@@ -0,0 +1,98 @@
+package com.demo.bankaccounthandlingapi.integrationtest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import com.demo.bankaccounthandlingapi.services.AccountOperationService;
+import com.demo.bankaccounthandlingapi.services.BalanceService;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pinning detector: records the JFR {@code jdk.VirtualThreadPinned} event while many virtual threads go through
+ * the withdraw path, where they block on the external call, on the account row lock and on JDBC I/O.
+ * A pinned virtual thread holds its carrier while it waits, which silently caps concurrency at the carrier count.
+ */
+@TestPropertySource(properties = {
+        "external.logging.mode=SYNC",
+        "external.logging.bulkhead.max-concurrent-calls=200",
+        "spring.threads.virtual.enabled=true"
+})
+class VirtualThreadPinningIntegrationTest extends IntegrationTest {
+
+    @Autowired
+    private AccountOperationService accountOperationService;
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private Long accountId;
+
+    @BeforeEach
+    void setup() {
+        wireMockServer.resetAll();
+        wireMockServer.stubFor(WireMock.get("/").willReturn(WireMock.ok().withFixedDelay(50)));
+
+        Account account = accountRepository.save(new Account());
+        this.accountId = account.getId();
+        balanceService.deposit(accountId, "USD", new BigDecimal("1000.00"));
+    }
+
+    @Test
+    @DisplayName("Withdraw path does not pin virtual threads to their carrier")
+    void concurrentWithdrawals_shouldNotPinCarrierThreads() throws Exception {
+        Path dump = Files.createTempFile("pinning", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+            recording.start();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = IntStream.range(0, 100)
+                        .<Future<?>>mapToObj(i -> executor.submit(this::withdraw))
+                        .toList();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump);
+        Files.deleteIfExists(dump);
+        assertThat(pinned)
+                .as("virtual threads pinned while blocking: %s", pinned)
+                .isEmpty();
+    }
+
+    private void withdraw() {
+        try {
+            accountOperationService.debitAccount(accountId, "USD", BigDecimal.ONE);
+        } catch (InsufficientFundsException _) {
+            // not expected with the deposited amount, but not what this test is about
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.IdempotencyKeyInUseException;
+import com.demo.bankaccounthandlingapi.locking.AdvisoryAccountLockStrategy;
+import com.demo.bankaccounthandlingapi.locking.OptimisticAccountLockStrategy;
+import com.demo.bankaccounthandlingapi.locking.PessimisticAccountLockStrategy;
+import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountLockStrategyTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private static final Long ACCOUNT_ID = 7L;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Optimistic: Re-runs the transaction after a version conflict")
+    void optimistic_conflict_shouldRetry() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String result = strategy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Balance", 1L);
+            }
+            return "committed";
+        });
+
+        // then
+        assertThat(result).isEqualTo("committed");
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("balance.lock.conflicts").tag("strategy", "optimistic").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Optimistic: Gives up after the configured number of attempts")
+    void optimistic_persistentConflict_shouldRethrow() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when / then
+        assertThatThrownBy(() -> strategy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("Balance", 1L);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("balance.lock.retries.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Optimistic: Re-runs the transaction after a unique key violation")
+    void optimistic_uniqueViolation_shouldRetry() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String result = strategy.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new DataIntegrityViolationException("insert", new SQLException("duplicate key", "23505"));
+            }
+            if (attempts.get() == 2) {
+                throw new DuplicateKeyException("insert");
+            }
+            return "committed";
+        });
+
+        // then
+        assertThat(result).isEqualTo("committed");
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Optimistic: Other integrity violations fail at once and are not counted as conflicts")
+    void optimistic_otherIntegrityViolation_shouldNotRetry() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when / then
+        assertThatThrownBy(() -> strategy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("insert", new SQLException("foreign key", "23503"));
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("balance.lock.conflicts").tag("strategy", "optimistic").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Optimistic: An idempotency key taken concurrently is not retried")
+    void optimistic_idempotencyKeyInUse_shouldNotRetry() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when / then
+        assertThatThrownBy(() -> strategy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IdempotencyKeyInUseException("key-1");
+        })).isInstanceOf(IdempotencyKeyInUseException.class);
+
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Optimistic: Checks existence without locking the account row")
+    void optimistic_lock_shouldNotLockAccountRow() {
+        // given
+        var strategy = new OptimisticAccountLockStrategy(accountRepository, meterRegistry, 3);
+        Account reference = new Account().setId(ACCOUNT_ID);
+        when(accountRepository.existsById(ACCOUNT_ID)).thenReturn(true);
+        when(accountRepository.getReferenceById(ACCOUNT_ID)).thenReturn(reference);
+
+        // when
+        Account account = strategy.lock(ACCOUNT_ID, List.of("USD"));
+
+        // then
+        assertThat(account).isSameAs(reference);
+        verify(accountRepository, never()).findByIdForUpdate(any(), any());
+    }
+
+    @Test
+    @DisplayName("Pessimistic: Locks the account row with the configured timeout")
+    void pessimistic_lock_shouldUseLockTimeout() {
+        // given
+        var strategy = new PessimisticAccountLockStrategy(accountRepository, meterRegistry, 0);
+        Account locked = new Account().setId(ACCOUNT_ID);
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, Duration.ZERO)).thenReturn(Optional.of(locked));
+
+        // when
+        Account account = strategy.lock(ACCOUNT_ID, List.of("USD"));
+
+        // then
+        assertThat(account).isSameAs(locked);
+        assertThat(meterRegistry.get("balance.lock.wait").tag("strategy", "pessimistic").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Pessimistic: Lock not granted in time is counted and rethrown")
+    void pessimistic_lockNotGranted_shouldCountConflict() {
+        // given
+        var strategy = new PessimisticAccountLockStrategy(accountRepository, meterRegistry, 0);
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, Duration.ZERO))
+                .thenThrow(new CannotAcquireLockException("could not obtain lock on row"));
+
+        // when / then
+        assertThatThrownBy(() -> strategy.lock(ACCOUNT_ID, List.of("USD")))
+                .isInstanceOf(CannotAcquireLockException.class);
+        assertThat(meterRegistry.get("balance.lock.conflicts").tag("strategy", "pessimistic").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Advisory: Locks currencies in sorted order")
+    void advisory_lock_shouldLockCurrenciesInOrder() {
+        // given
+        var strategy = new AdvisoryAccountLockStrategy(accountRepository, meterRegistry);
+        when(accountRepository.existsById(ACCOUNT_ID)).thenReturn(true);
+
+        // when
+        strategy.lock(ACCOUNT_ID, List.of("USD", "EUR"));
+
+        // then
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).acquireAdvisoryXactLock(lockKey("EUR"));
+        inOrder.verify(accountRepository).acquireAdvisoryXactLock(lockKey("USD"));
+        assertThat(meterRegistry.get("balance.lock.wait").tag("strategy", "advisory").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Advisory: Missing account takes no lock")
+    void advisory_missingAccount_throwsException() {
+        // given
+        var strategy = new AdvisoryAccountLockStrategy(accountRepository, meterRegistry);
+        when(accountRepository.existsById(ACCOUNT_ID)).thenReturn(false);
+
+        // when / then
+        assertThatThrownBy(() -> strategy.lock(ACCOUNT_ID, List.of("USD")))
+                .isInstanceOf(AccountNotFoundException.class);
+        verify(accountRepository, never()).acquireAdvisoryXactLock(anyLong());
+    }
+
+    private static long lockKey(String currency) {
+        return (ACCOUNT_ID << 16) ^ (currency.hashCode() & 0xFFFF);
+    }
+}
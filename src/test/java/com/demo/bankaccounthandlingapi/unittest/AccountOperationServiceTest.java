@@ -1,6 +1,9 @@
 package com.demo.bankaccounthandlingapi.unittest;
 
 import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.CircuitOpenPolicy;
+import com.demo.bankaccounthandlingapi.enums.ExternalLoggingMode;
+import com.demo.bankaccounthandlingapi.exceptions.CircuitBreakerOpenException;
 import com.demo.bankaccounthandlingapi.exceptions.ExternalSystemException;
 import com.demo.bankaccounthandlingapi.external.ExternalLoggingService;
 import com.demo.bankaccounthandlingapi.services.AccountOperationService;
@@ -9,14 +12,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,9 +35,6 @@ class AccountOperationServiceTest {
     @Mock
     private BalanceService balanceService;
 
-    @InjectMocks
-    private AccountOperationService accountOperationService;
-
     private static final Long ACCOUNT_ID = 1L;
     private static final String CURRENCY = "EUR";
     private static final BigDecimal AMOUNT = new BigDecimal("100.00");
@@ -39,6 +43,7 @@ class AccountOperationServiceTest {
     @DisplayName("Should call external log before debiting account")
     void debitAccount_shouldCallLogBeforeDebit() {
         // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.SYNC);
         BalanceResponse expectedResponse = new BalanceResponse(CURRENCY, new BigDecimal("900.00"));
         when(balanceService.debit(ACCOUNT_ID, CURRENCY, AMOUNT)).thenReturn(expectedResponse);
 
@@ -58,6 +63,7 @@ class AccountOperationServiceTest {
     @DisplayName("Should abort transaction if external log fails")
     void debitAccount_shouldAbortIfExternalLogFails() {
         // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.SYNC);
         doThrow(new ExternalSystemException("Service unavailable"))
                 .when(externalLoggingService).sendLog();
 
@@ -68,4 +74,110 @@ class AccountOperationServiceTest {
 
         verifyNoInteractions(balanceService);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Outbox mode debits without calling the external system")
+    void debitAccount_outboxMode_shouldNotCallExternalSystem() {
+        // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.OUTBOX);
+        BalanceResponse expectedResponse = new BalanceResponse(CURRENCY, new BigDecimal("900.00"));
+        when(balanceService.debit(ACCOUNT_ID, CURRENCY, AMOUNT)).thenReturn(expectedResponse);
+
+        // when
+        BalanceResponse result = accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT);
+
+        // then
+        assertThat(result).isEqualTo(expectedResponse);
+        verifyNoInteractions(externalLoggingService);
+    }
+
+    @Test
+    @DisplayName("Open circuit rejects the debit under the REJECT policy")
+    void debitAccount_circuitOpen_rejectPolicy_shouldAbort() {
+        // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.SYNC, CircuitOpenPolicy.REJECT);
+        doThrow(new CircuitBreakerOpenException("External system is unavailable"))
+                .when(externalLoggingService).sendLog();
+
+        // when / then
+        assertThatThrownBy(() -> accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT))
+                .isInstanceOf(CircuitBreakerOpenException.class);
+        verifyNoInteractions(balanceService);
+    }
+
+    @Test
+    @DisplayName("Open circuit lets the debit through under the ALLOW policy, other failures still abort")
+    void debitAccount_circuitOpen_allowPolicy_shouldDebit() {
+        // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.SYNC, CircuitOpenPolicy.ALLOW);
+        BalanceResponse expectedResponse = new BalanceResponse(CURRENCY, new BigDecimal("900.00"));
+        when(balanceService.debit(ACCOUNT_ID, CURRENCY, AMOUNT)).thenReturn(expectedResponse);
+        doThrow(new CircuitBreakerOpenException("External system is unavailable"))
+                .doThrow(new ExternalSystemException("Service unavailable"))
+                .when(externalLoggingService).sendLog();
+
+        // when
+        BalanceResponse result = accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT);
+
+        // then
+        assertThat(result).isEqualTo(expectedResponse);
+        assertThatThrownBy(() -> accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT))
+                .isInstanceOf(ExternalSystemException.class);
+        verify(balanceService, times(1)).debit(ACCOUNT_ID, CURRENCY, AMOUNT);
+    }
+
+    @Test
+    @DisplayName("Parallel mode debits while the external call is still in flight and hands the call over as commit precondition")
+    void debitAccount_parallelMode_shouldOverlapExternalCallWithDebit() throws Exception {
+        // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.PARALLEL);
+        CountDownLatch externalCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseExternalCall = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            externalCallStarted.countDown();
+            releaseExternalCall.await();
+            return null;
+        }).when(externalLoggingService).sendLog();
+        BalanceResponse expectedResponse = new BalanceResponse(CURRENCY, new BigDecimal("900.00"));
+        when(balanceService.debit(eq(ACCOUNT_ID), eq(CURRENCY), eq(AMOUNT), any())).thenAnswer(invocation -> {
+            CompletableFuture<?> externalLog = invocation.getArgument(3);
+            // The debit runs while the external call is blocked, it may only commit once the call returned
+            assertThat(externalCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(externalLog).isNotDone();
+            releaseExternalCall.countDown();
+            externalLog.join();
+            return expectedResponse;
+        });
+
+        // when
+        BalanceResponse result = accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT);
+
+        // then
+        assertThat(result).isEqualTo(expectedResponse);
+        verify(balanceService, never()).debit(ACCOUNT_ID, CURRENCY, AMOUNT);
+    }
+
+    @Test
+    @DisplayName("Parallel mode hands a failed external call to the debit as failed precondition")
+    void debitAccount_parallelMode_shouldPassExternalFailure() {
+        // given
+        AccountOperationService accountOperationService = service(ExternalLoggingMode.PARALLEL);
+        doThrow(new ExternalSystemException("Service unavailable")).when(externalLoggingService).sendLog();
+        when(balanceService.debit(eq(ACCOUNT_ID), eq(CURRENCY), eq(AMOUNT), any())).thenAnswer(invocation -> {
+            CompletableFuture<?> externalLog = invocation.getArgument(3);
+            return externalLog.thenApply(ignored -> new BalanceResponse(CURRENCY, BigDecimal.ZERO)).join();
+        });
+
+        // when / then
+        assertThatThrownBy(() -> accountOperationService.debitAccount(ACCOUNT_ID, CURRENCY, AMOUNT))
+                .hasCauseInstanceOf(ExternalSystemException.class);
+    }
+
+    private AccountOperationService service(ExternalLoggingMode mode) {
+        return service(mode, CircuitOpenPolicy.REJECT);
+    }
+
+    private AccountOperationService service(ExternalLoggingMode mode, CircuitOpenPolicy policy) {
+        return new AccountOperationService(externalLoggingService, balanceService, mode, policy);
+    }
+}
@@ -0,0 +1,92 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.caching.BalanceCache;
+import com.demo.bankaccounthandlingapi.entities.Account;
+import com.demo.bankaccounthandlingapi.entities.Balance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceCacheTest {
+
+    private static final Long ACCOUNT_ID = 100L;
+    private static final String CURRENCY_USD = "USD";
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceCache balanceCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        balanceCache = new BalanceCache(meterRegistry, true, 100, 60_000);
+    }
+
+    @Test
+    @DisplayName("Value read before a concurrent write cannot replace the written one")
+    void staleRead_shouldNotOverwriteNewerWrite() {
+        // given
+        balanceCache.updateAfterCommit(ACCOUNT_ID, CURRENCY_USD, new BigDecimal("20.00"), 2);
+
+        // when: a reader that loaded version 1 before the write commits publishes late
+        balanceCache.putLoaded(ACCOUNT_ID, CURRENCY_USD, balance(new BigDecimal("10.00"), 1L));
+
+        // then
+        assertThat(balanceCache.get(ACCOUNT_ID, CURRENCY_USD)).get()
+                .satisfies(cached -> assertThat(cached.amount()).isEqualByComparingTo("20.00"));
+    }
+
+    @Test
+    @DisplayName("Cached missing balance is replaced by the first insert")
+    void missingBalance_shouldBeReplacedByInsert() {
+        // given
+        balanceCache.putLoaded(ACCOUNT_ID, CURRENCY_USD, null);
+
+        // when
+        balanceCache.updateAfterCommit(ACCOUNT_ID, CURRENCY_USD, new BigDecimal("5.00"), 0);
+
+        // then
+        assertThat(balanceCache.get(ACCOUNT_ID, CURRENCY_USD)).get()
+                .satisfies(cached -> assertThat(cached.amount()).isEqualByComparingTo("5.00"));
+    }
+
+    @Test
+    @DisplayName("Hits and misses are published as cache meters")
+    void get_shouldRecordHitsAndMisses() {
+        // given
+        balanceCache.get(ACCOUNT_ID, CURRENCY_USD);
+        balanceCache.putLoaded(ACCOUNT_ID, CURRENCY_USD, balance(BigDecimal.TEN, 0L));
+
+        // when
+        balanceCache.get(ACCOUNT_ID, CURRENCY_USD);
+
+        // then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "balances").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "balances").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Disabled cache never returns a value")
+    void disabledCache_shouldAlwaysMiss() {
+        // given
+        var disabledCache = new BalanceCache(new SimpleMeterRegistry(), false, 100, 60_000);
+
+        // when
+        disabledCache.updateAfterCommit(ACCOUNT_ID, CURRENCY_USD, BigDecimal.TEN, 0);
+
+        // then
+        assertThat(disabledCache.get(ACCOUNT_ID, CURRENCY_USD)).isEmpty();
+    }
+
+    private static Balance balance(BigDecimal amount, Long version) {
+        return new Balance()
+                .setAccount(new Account().setId(ACCOUNT_ID))
+                .setCurrency(CURRENCY_USD)
+                .setAmount(amount)
+                .setVersion(version);
+    }
+}
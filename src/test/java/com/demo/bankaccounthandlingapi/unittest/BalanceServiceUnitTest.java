@@ -1,5 +1,8 @@
 package com.demo.bankaccounthandlingapi.unittest;
 
+import com.demo.bankaccounthandlingapi.caching.BalanceCache;
+import com.demo.bankaccounthandlingapi.coalescing.PendingWithdrawal;
+import com.demo.bankaccounthandlingapi.coalescing.WithdrawalCoalescer;
 import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
 import com.demo.bankaccounthandlingapi.entities.Account;
 import com.demo.bankaccounthandlingapi.entities.Balance;
@@ -8,11 +11,23 @@ import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
 import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
 import com.demo.bankaccounthandlingapi.exceptions.IllegalBalanceUpdateException;
 import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.ledger.LedgerEngine;
+import com.demo.bankaccounthandlingapi.locking.PessimisticAccountLockStrategy;
+import com.demo.bankaccounthandlingapi.metrics.BalanceMetrics;
 import com.demo.bankaccounthandlingapi.repositories.AccountRepository;
 import com.demo.bankaccounthandlingapi.repositories.BalanceRepository;
+import com.demo.bankaccounthandlingapi.repositories.BalanceRepository.AppliedDelta;
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
 import com.demo.bankaccounthandlingapi.services.BalanceService;
 import com.demo.bankaccounthandlingapi.services.ExchangeRateService;
+import com.demo.bankaccounthandlingapi.services.ExternalLogOutboxService;
+import com.demo.bankaccounthandlingapi.services.IdempotencyService;
 import com.demo.bankaccounthandlingapi.services.TransactionLogService;
+import com.demo.bankaccounthandlingapi.sharding.ShardRouting;
+import com.demo.bankaccounthandlingapi.sharding.ShardingProperties;
+import com.demo.bankaccounthandlingapi.striping.StripedBalanceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,10 +35,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Currency;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -46,14 +68,49 @@ class BalanceServiceTest {
     @Mock
     private ExchangeRateService exchangeRateService;
 
-    @InjectMocks
+    @Mock
+    private ExternalLogOutboxService externalLogOutboxService;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private WithdrawalCoalescer withdrawalCoalescer;
+
+    @Mock
+    private StripedBalanceStore stripedBalanceStore;
+
+    private BalanceCache balanceCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BalanceMetrics balanceMetrics;
+
     private BalanceService balanceService;
 
+    private BalanceService atomicBalanceService;
+
     @Captor
     private ArgumentCaptor<Balance> balanceCaptor;
 
     private static final Long ACCOUNT_ID = 100L;
     private static final String CURRENCY_USD = "USD";
+    private static final Duration LOCK_TIMEOUT = Duration.ofSeconds(2);
+
+    @BeforeEach
+    void setUp() {
+        balanceCache = new BalanceCache(new SimpleMeterRegistry(), true, 100, 60_000);
+        meterRegistry = new SimpleMeterRegistry();
+        balanceMetrics = new BalanceMetrics(meterRegistry);
+        // No request in these tests carries an Idempotency-Key, so the store is never queried
+        var idempotencyService = new IdempotencyService(mock(JdbcTemplate.class), new SimpleMeterRegistry(),
+                new ShardRouting(new ShardingProperties(false, null)), 10, 60_000, 10);
+        var lockStrategy = new PessimisticAccountLockStrategy(accountRepository, new SimpleMeterRegistry(), LOCK_TIMEOUT.toMillis());
+        balanceService = new BalanceService(balanceRepository, accountRepository, transactionLogService,
+                exchangeRateService, externalLogOutboxService, lockStrategy, TransactionOperations.withoutTransaction(), ledgerEngine, withdrawalCoalescer, balanceCache, balanceMetrics, idempotencyService, stripedBalanceStore, new ReadRouting(false), false);
+        atomicBalanceService = new BalanceService(balanceRepository, accountRepository, transactionLogService,
+                exchangeRateService, externalLogOutboxService, lockStrategy, TransactionOperations.withoutTransaction(), ledgerEngine, withdrawalCoalescer, balanceCache, balanceMetrics, idempotencyService, stripedBalanceStore, new ReadRouting(false), true);
+    }
 
     @Test
     @DisplayName("Should successfully add money to an existing balance")
@@ -68,7 +125,7 @@ class BalanceServiceTest {
                 .setCurrency(CURRENCY_USD)
                 .setAmount(initialAmount);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
                 .thenReturn(Optional.of(existingBalance));
 
@@ -94,7 +151,7 @@ class BalanceServiceTest {
         BigDecimal depositAmount = new BigDecimal("100.00");
         Account account = new Account().setId(ACCOUNT_ID);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
                 .thenReturn(Optional.empty());
 
@@ -116,7 +173,7 @@ class BalanceServiceTest {
     @DisplayName("Should throw AccountNotFoundException if account is missing")
     void deposit_accountNotFound_throwsException() {
         // given
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.empty());
 
         // when
         assertThatThrownBy(() ->
@@ -136,7 +193,7 @@ class BalanceServiceTest {
         Account account = new Account().setId(ACCOUNT_ID);
         Balance existingBalance = new Balance().setAccount(account).setAmount(BigDecimal.TEN);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(any(), any()))
                 .thenReturn(Optional.of(existingBalance));
 
@@ -162,7 +219,7 @@ class BalanceServiceTest {
                 .setCurrency(CURRENCY_USD)
                 .setAmount(initialAmount);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
                 .thenReturn(Optional.of(existingBalance));
 
@@ -177,6 +234,8 @@ class BalanceServiceTest {
         assertThat(savedBalance.getAmount()).isEqualByComparingTo(expectedBalance);
 
         verify(transactionLogService).logTransaction(account, TransactionType.WITHDRAWAL, debitAmount, CURRENCY_USD);
+        verify(externalLogOutboxService).enqueueWithdrawal(account, debitAmount, CURRENCY_USD);
+        assertThat(operationCount("debit", "success")).isEqualTo(1);
     }
 
     @Test
@@ -192,7 +251,7 @@ class BalanceServiceTest {
                 .setCurrency(CURRENCY_USD)
                 .setAmount(initialAmount);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
                 .thenReturn(Optional.of(existingBalance));
 
@@ -203,6 +262,8 @@ class BalanceServiceTest {
 
         verify(balanceRepository, never()).save(any());
         verifyNoInteractions(transactionLogService);
+        verifyNoInteractions(externalLogOutboxService);
+        assertThat(operationCount("debit", "insufficient_funds")).isEqualTo(1);
     }
 
     @Test
@@ -211,7 +272,7 @@ class BalanceServiceTest {
         // given
         Account account = new Account().setId(ACCOUNT_ID);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
                 .thenReturn(Optional.empty());
 
@@ -238,7 +299,7 @@ class BalanceServiceTest {
                 .setCurrency("USD")
                 .setAmount(sourceAmount);
 
-        when(accountRepository.findById(ACCOUNT_ID)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
 
         when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, "USD"))
                 .thenReturn(Optional.of(sourceBalance));
@@ -295,4 +356,146 @@ class BalanceServiceTest {
         assertThat(response.amount()).isEqualByComparingTo(BigDecimal.ZERO);
         assertThat(response.currency()).isEqualTo("JPY");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Atomic deposit: Applies the delta in one statement without loading entities")
+    void atomicDeposit_shouldUseSingleStatement() {
+        // given
+        BigDecimal depositAmount = new BigDecimal("25.00");
+        when(balanceRepository.applyDeltaAndLog(eq(ACCOUNT_ID), eq(CURRENCY_USD), eq(depositAmount), eq(depositAmount),
+                eq(TransactionType.DEPOSIT.name()), any(UUID.class)))
+                .thenReturn(Optional.of(applied(new BigDecimal("75.00"), 3L)));
+
+        // when
+        BalanceResponse response = atomicBalanceService.deposit(ACCOUNT_ID, CURRENCY_USD, depositAmount);
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo(new BigDecimal("75.00"));
+        verify(balanceRepository, never()).findBalanceByAccountIdAndCurrency(any(), any());
+        verifyNoInteractions(accountRepository);
+        verifyNoInteractions(transactionLogService);
+    }
+
+    @Test
+    @DisplayName("Atomic debit: Rejected update on an existing account is insufficient funds")
+    void atomicDebit_noRowChanged_existingAccount_throwsInsufficientFunds() {
+        // given
+        when(balanceRepository.applyDeltaAndLog(eq(ACCOUNT_ID), eq(CURRENCY_USD), eq(new BigDecimal("-50.00")), eq(new BigDecimal("50.00")),
+                eq(TransactionType.WITHDRAWAL.name()), any(UUID.class)))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsById(ACCOUNT_ID)).thenReturn(true);
+
+        // when / then
+        assertThatThrownBy(() ->
+                atomicBalanceService.debit(ACCOUNT_ID, CURRENCY_USD, new BigDecimal("50.00"))
+        ).isInstanceOf(InsufficientFundsException.class);
+
+        verifyNoInteractions(externalLogOutboxService);
+    }
+
+    @Test
+    @DisplayName("Atomic debit: Rejected update on a missing account is account not found")
+    void atomicDebit_noRowChanged_missingAccount_throwsAccountNotFound() {
+        // given
+        when(balanceRepository.applyDeltaAndLog(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.empty());
+        when(accountRepository.existsById(ACCOUNT_ID)).thenReturn(false);
+
+        // when / then
+        assertThatThrownBy(() ->
+                atomicBalanceService.debit(ACCOUNT_ID, CURRENCY_USD, BigDecimal.TEN)
+        ).isInstanceOf(AccountNotFoundException.class);
+        assertThat(operationCount("debit", "not_found")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Coalesced debit: Each withdrawal of a batch gets its own result under one lock")
+    void coalescedDebit_shouldApplyBatchInOrder() {
+        // given
+        Account account = new Account().setId(ACCOUNT_ID);
+        Balance existingBalance = new Balance()
+                .setAccount(account)
+                .setCurrency(CURRENCY_USD)
+                .setAmount(new BigDecimal("50.00"));
+        PendingWithdrawal first = new PendingWithdrawal(CURRENCY_USD, new BigDecimal("30.00"), null, new CompletableFuture<>());
+        PendingWithdrawal second = new PendingWithdrawal(CURRENCY_USD, new BigDecimal("30.00"), null, new CompletableFuture<>());
+        PendingWithdrawal third = new PendingWithdrawal(CURRENCY_USD, new BigDecimal("20.00"), null, new CompletableFuture<>());
+
+        when(withdrawalCoalescer.isEnabled()).thenReturn(true);
+        when(withdrawalCoalescer.submit(eq(ACCOUNT_ID), eq(CURRENCY_USD), any(), any(), any())).thenAnswer(invocation -> {
+            BiConsumer<Long, List<PendingWithdrawal>> handler = invocation.getArgument(4);
+            handler.accept(ACCOUNT_ID, List.of(first, second, third));
+            return first.result().join();
+        });
+        when(accountRepository.findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT)).thenReturn(Optional.of(account));
+        when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD))
+                .thenReturn(Optional.of(existingBalance));
+
+        // when
+        BalanceResponse response = balanceService.debit(ACCOUNT_ID, CURRENCY_USD, new BigDecimal("30.00"));
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo("20.00");
+        assertThat(second.result()).isCompletedExceptionally();
+        assertThatThrownBy(() -> second.result().join()).hasCauseInstanceOf(InsufficientFundsException.class);
+        assertThat(third.result().join().amount()).isEqualByComparingTo("0.00");
+
+        verify(accountRepository, times(1)).findByIdForUpdate(ACCOUNT_ID, LOCK_TIMEOUT);
+        verify(balanceRepository).saveAll(any());
+        assertThat(existingBalance.getAmount()).isEqualByComparingTo("0.00");
+        verify(transactionLogService, times(2)).logTransaction(eq(account), eq(TransactionType.WITHDRAWAL), any(), eq(CURRENCY_USD));
+    }
+
+    @Test
+    @DisplayName("Repeated balance reads are served from the cache")
+    void getBalance_repeatedRead_shouldHitCache() {
+        // given
+        Balance balance = new Balance()
+                .setAccount(new Account().setId(ACCOUNT_ID))
+                .setCurrency(CURRENCY_USD)
+                .setAmount(new BigDecimal("10.00"))
+                .setVersion(1L);
+        when(balanceRepository.findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD)).thenReturn(Optional.of(balance));
+
+        // when
+        balanceService.getBalance(ACCOUNT_ID, CURRENCY_USD);
+        BalanceResponse response = balanceService.getBalance(ACCOUNT_ID, CURRENCY_USD);
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo("10.00");
+        verify(balanceRepository, times(1)).findBalanceByAccountIdAndCurrency(ACCOUNT_ID, CURRENCY_USD);
+    }
+
+    @Test
+    @DisplayName("Atomic deposit publishes the new balance to the cache")
+    void atomicDeposit_shouldUpdateCache() {
+        // given
+        when(balanceRepository.applyDeltaAndLog(any(), any(), any(), any(), any(), any()))
+                .thenReturn(Optional.of(applied(new BigDecimal("75.00"), 3L)));
+
+        // when
+        atomicBalanceService.deposit(ACCOUNT_ID, CURRENCY_USD, new BigDecimal("25.00"));
+
+        // then
+        assertThat(atomicBalanceService.getBalance(ACCOUNT_ID, CURRENCY_USD).amount()).isEqualByComparingTo("75.00");
+        verify(balanceRepository, never()).findBalanceByAccountIdAndCurrency(any(), any());
+    }
+
+    private long operationCount(String operation, String outcome) {
+        return meterRegistry.get("balance.operation").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+
+    private static AppliedDelta applied(BigDecimal amount, Long version) {
+        return new AppliedDelta() {
+            @Override
+            public BigDecimal getAmount() {
+                return amount;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.external.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 4,
+            Duration.ofSeconds(10), Duration.ofSeconds(5), meterRegistry, clock::get);
+
+    @Test
+    @DisplayName("Opens once the failure rate reaches the threshold, but not before the minimum number of calls")
+    void shouldOpenWhenFailureRateIsReached() {
+        // given
+        record(true, false, false);
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // when
+        record(false);
+
+        // then
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        assertThat(transitions("closed", "open")).isEqualTo(1);
+        assertThat(meterRegistry.get("circuit.breaker.state").tag("name", "test").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Failures from an expired window are not counted")
+    void shouldStartNewWindow() {
+        // given
+        record(false, false, true);
+
+        // when
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+        record(true, true, true, false);
+
+        // then
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("After the open duration a single probe is let through and its success closes the breaker")
+    void shouldCloseAfterSuccessfulProbe() {
+        // given
+        record(false, false, false, false);
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // when
+        boolean probe = circuitBreaker.tryAcquire();
+        boolean concurrentCall = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess();
+
+        // then
+        assertThat(probe).isTrue();
+        assertThat(concurrentCall).isFalse();
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(transitions("open", "half_open")).isEqualTo(1);
+        assertThat(transitions("half_open", "closed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A failed probe opens the breaker for another open duration")
+    void shouldReopenAfterFailedProbe() {
+        // given
+        record(false, false, false, false);
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // when
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+        circuitBreaker.onFailure();
+
+        // then
+        assertThat(circuitBreaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isFalse();
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertThat(circuitBreaker.tryAcquire()).isTrue();
+    }
+
+    private void record(boolean... outcomes) {
+        for (boolean success : outcomes) {
+            assertThat(circuitBreaker.tryAcquire()).isTrue();
+            if (success) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
+    }
+
+    private double transitions(String from, String to) {
+        return meterRegistry.get("circuit.breaker.transitions").tag("from", from).tag("to", to).counter().count();
+    }
+}
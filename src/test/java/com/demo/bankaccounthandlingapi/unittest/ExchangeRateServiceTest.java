@@ -1,19 +1,30 @@
 package com.demo.bankaccounthandlingapi.unittest;
 
+import com.demo.bankaccounthandlingapi.exceptions.CurrencyExchangeException;
+import com.demo.bankaccounthandlingapi.rates.ExchangeRateProvider;
+import com.demo.bankaccounthandlingapi.rates.StaticExchangeRateProvider;
 import com.demo.bankaccounthandlingapi.services.ExchangeRateService;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.Currency;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ExchangeRateServiceTest {
 
-    private final ExchangeRateService service = new ExchangeRateService();
+    private final ExchangeRateService service = new ExchangeRateService(new StaticExchangeRateProvider());
+
+    @Mock
+    private ExchangeRateProvider exchangeRateProvider;
 
     @Test
     void convert_eurToUsd_correctMath() {
@@ -32,4 +43,32 @@ class ExchangeRateServiceTest {
 
         assertThat(result).isEqualByComparingTo(new BigDecimal("109.52"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Currency without a rate cannot be converted")
+    void convert_unsupportedCurrency_throwsException() {
+        assertThatThrownBy(() -> service.convert(Currency.getInstance("EUR"), Currency.getInstance("JPY"), BigDecimal.TEN))
+                .isInstanceOf(CurrencyExchangeException.class);
+        assertThat(service.isSupported(Currency.getInstance("JPY"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Refresh swaps in the new rates, a failed refresh keeps the previous ones")
+    void refresh_shouldReplaceRatesOnlyOnSuccess() {
+        // given
+        Currency eur = Currency.getInstance("EUR");
+        Currency usd = Currency.getInstance("USD");
+        when(exchangeRateProvider.loadRatesToEur())
+                .thenReturn(Map.of(eur, BigDecimal.ONE, usd, new BigDecimal("1.05")))
+                .thenReturn(Map.of(eur, BigDecimal.ONE, usd, new BigDecimal("1.10")))
+                .thenThrow(new IllegalStateException("rate source unavailable"));
+        var refreshingService = new ExchangeRateService(exchangeRateProvider);
+
+        // when
+        refreshingService.refresh();
+        refreshingService.refresh();
+
+        // then
+        assertThat(refreshingService.convert(eur, usd, new BigDecimal("100.00"))).isEqualByComparingTo("110.00");
+    }
+}
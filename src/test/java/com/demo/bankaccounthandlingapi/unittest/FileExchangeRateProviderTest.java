@@ -0,0 +1,35 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.rates.FileExchangeRateProvider;
+import com.demo.bankaccounthandlingapi.rates.StaticExchangeRateProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileExchangeRateProviderTest {
+
+    @Test
+    @DisplayName("Bundled rates file matches the built-in rates")
+    void loadRatesToEur_bundledFile_matchesStaticRates() {
+        var provider = new FileExchangeRateProvider(new ClassPathResource("exchange-rates.properties"));
+
+        assertThat(provider.loadRatesToEur())
+                .usingComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .containsExactlyInAnyOrderEntriesOf(new StaticExchangeRateProvider().loadRatesToEur());
+    }
+
+    @Test
+    @DisplayName("Missing rates file fails the load")
+    void loadRatesToEur_missingFile_throwsException() {
+        var provider = new FileExchangeRateProvider(new FileSystemResource("does-not-exist.properties"));
+
+        assertThatThrownBy(provider::loadRatesToEur).isInstanceOf(UncheckedIOException.class);
+    }
+}
@@ -0,0 +1,234 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.enums.TransactionType;
+import com.demo.bankaccounthandlingapi.exceptions.AccountNotFoundException;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import com.demo.bankaccounthandlingapi.exceptions.ServiceOverloadedException;
+import com.demo.bankaccounthandlingapi.ledger.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+
+    @Mock
+    private LedgerStore ledgerStore;
+
+    @Captor
+    private ArgumentCaptor<Map<BalanceKey, LedgerBalance>> balancesCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<LedgerEntry>> entriesCaptor;
+
+    private LedgerEngine ledgerEngine;
+
+    private static final Long ACCOUNT_ID = 100L;
+    private static final BalanceKey USD = new BalanceKey(ACCOUNT_ID, "USD");
+    private static final BalanceKey EUR = new BalanceKey(ACCOUNT_ID, "EUR");
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (ledgerEngine != null) {
+            ledgerEngine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Deposit into a new balance is committed as an insert with its log entry")
+    void deposit_newBalance_shouldCommitInsert() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.empty());
+
+        // when
+        BalanceResponse response = ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", new BigDecimal("25.00")));
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo("25.00");
+        verify(ledgerStore).commit(balancesCaptor.capture(), entriesCaptor.capture(), any());
+        assertThat(balancesCaptor.getValue()).containsExactly(Map.entry(USD, new LedgerBalance(new BigDecimal("25.00"), null)));
+        assertThat(entriesCaptor.getValue()).containsExactly(new LedgerEntry(ACCOUNT_ID, "USD", new BigDecimal("25.00"), TransactionType.DEPOSIT));
+    }
+
+    @Test
+    @DisplayName("Committed balances are served from memory with the bumped version")
+    void debit_afterCommit_shouldNotReloadBalance() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.of(new LedgerBalance(new BigDecimal("100.00"), 3L)));
+
+        // when
+        ledgerEngine.execute(new LedgerCommand.Debit(ACCOUNT_ID, "USD", new BigDecimal("10.00")));
+        BalanceResponse response = ledgerEngine.execute(new LedgerCommand.Debit(ACCOUNT_ID, "USD", new BigDecimal("10.00")));
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo("80.00");
+        verify(ledgerStore, times(1)).load(USD);
+        verify(ledgerStore, times(1)).accountExists(ACCOUNT_ID);
+        verify(ledgerStore, times(2)).commit(balancesCaptor.capture(), any(), any());
+        assertThat(balancesCaptor.getAllValues().get(1).get(USD).version()).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Debit above the balance fails on its own and writes nothing")
+    void debit_insufficientFunds_shouldNotCommit() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.of(new LedgerBalance(new BigDecimal("5.00"), 0L)));
+
+        // when / then
+        assertThatThrownBy(() -> ledgerEngine.execute(new LedgerCommand.Debit(ACCOUNT_ID, "USD", new BigDecimal("10.00"))))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(ledgerStore, never()).commit(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Exchange without enough source funds leaves the target balance untouched")
+    void exchange_insufficientFunds_shouldNotCreditTarget() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.empty());
+
+        // when / then
+        assertThatThrownBy(() -> ledgerEngine.execute(
+                new LedgerCommand.Exchange(ACCOUNT_ID, "USD", "EUR", BigDecimal.TEN, new BigDecimal("9.00"))))
+                .isInstanceOf(InsufficientFundsException.class);
+        verify(ledgerStore, never()).load(EUR);
+        verify(ledgerStore, never()).commit(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Unknown account is rejected before any balance is loaded")
+    void deposit_missingAccount_throwsException() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(false);
+
+        // when / then
+        assertThatThrownBy(() -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.TEN)))
+                .isInstanceOf(AccountNotFoundException.class);
+        verify(ledgerStore, never()).load(any());
+    }
+
+    @Test
+    @DisplayName("Failed group commit drops the cached balance so the next command reloads it")
+    void commitFailure_shouldEvictBalance() {
+        // given
+        startEngine(Set.of());
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.of(new LedgerBalance(new BigDecimal("100.00"), 0L)));
+        doThrow(new OptimisticLockingFailureException("stale")).doNothing().when(ledgerStore).commit(any(), any(), any());
+
+        // when
+        assertThatThrownBy(() -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.TEN)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        BalanceResponse response = ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.TEN));
+
+        // then
+        assertThat(response.amount()).isEqualByComparingTo("110.00");
+        verify(ledgerStore, times(2)).load(USD);
+    }
+
+    @Test
+    @DisplayName("A balance written outside the engine fails only its own commands, the rest of the batch commits")
+    void commitConflict_shouldFailOnlyConflictingBalance() throws InterruptedException {
+        // given
+        startEngine(Set.of());
+        CountDownLatch release = new CountDownLatch(1);
+        when(ledgerStore.accountExists(any())).thenReturn(true);
+        when(ledgerStore.load(any())).thenReturn(Optional.of(new LedgerBalance(new BigDecimal("100.00"), 0L)));
+        doAnswer(invocation -> {
+            // Holds the shard so the next two commands end up in one batch
+            release.await();
+            return null;
+        }).doThrow(new LedgerConflictException(Set.of(USD))).doNothing().when(ledgerStore).commit(any(), any(), any());
+        Thread first = Thread.ofVirtual().start(() -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID + 1, "USD", BigDecimal.ONE)));
+        Thread.sleep(50);
+
+        // when
+        CompletableFuture<BalanceResponse> usd = CompletableFuture.supplyAsync(
+                () -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.TEN)));
+        CompletableFuture<BalanceResponse> eur = CompletableFuture.supplyAsync(
+                () -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "EUR", BigDecimal.TEN)));
+        Thread.sleep(50);
+        release.countDown();
+        first.join();
+
+        // then
+        assertThat(eur.join().amount()).isEqualByComparingTo("110.00");
+        assertThatThrownBy(usd::join).hasCauseInstanceOf(LedgerConflictException.class);
+        verify(ledgerStore, times(3)).commit(balancesCaptor.capture(), any(), any());
+        assertThat(balancesCaptor.getAllValues().get(1)).containsOnlyKeys(USD, EUR);
+        assertThat(balancesCaptor.getAllValues().get(2)).containsOnlyKeys(EUR);
+    }
+
+    @Test
+    @DisplayName("A command its shard does not get to in time fails with 503 and is not applied later")
+    void stuckShard_shouldTimeOutAndSkipCommand() throws InterruptedException {
+        // given
+        startEngine(Set.of(), 100, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ledgerStore.accountExists(ACCOUNT_ID)).thenReturn(true);
+        when(ledgerStore.load(USD)).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).doNothing().when(ledgerStore).commit(any(), any(), any());
+        Thread first = Thread.ofVirtual().start(() -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.TEN)));
+
+        // when / then
+        Thread.sleep(50);
+        assertThatThrownBy(() -> ledgerEngine.execute(new LedgerCommand.Deposit(ACCOUNT_ID, "USD", BigDecimal.ONE)))
+                .isInstanceOf(ServiceOverloadedException.class);
+        release.countDown();
+        first.join();
+        ledgerEngine.stop();
+        verify(ledgerStore, times(1)).commit(any(), any(), any());
+        ledgerEngine = null;
+    }
+
+    @Test
+    @DisplayName("Only the configured accounts are routed to the engine")
+    void handles_shouldRespectConfiguredAccounts() {
+        startEngine(Set.of(ACCOUNT_ID));
+
+        assertThat(ledgerEngine.handles(ACCOUNT_ID)).isTrue();
+        assertThat(ledgerEngine.handles(ACCOUNT_ID + 1)).isFalse();
+    }
+
+    private void startEngine(Set<Long> accountIds) {
+        startEngine(accountIds, 1000, 5000);
+    }
+
+    private void startEngine(Set<Long> accountIds, long maxCachedBalances, long commandTimeoutMs) {
+        ledgerEngine = new LedgerEngine(ledgerStore, new SimpleMeterRegistry(), true, 1, 100, 16,
+                maxCachedBalances, commandTimeoutMs, accountIds);
+        ledgerEngine.start();
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.routing.ReadRouting;
+import com.demo.bankaccounthandlingapi.routing.ReplicaLagMonitor;
+import com.demo.bankaccounthandlingapi.routing.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MS = 1000;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final JdbcTemplate replicaJdbcTemplate = mock(JdbcTemplate.class);
+
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicaLagMonitor(replicaJdbcTemplate, meterRegistry, MAX_LAG_MS);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Read-only transactions go to a replica within the lag limit, everything else to the primary")
+    void readOnly_shouldUseReplica() throws SQLException {
+        // given
+        lagIs(200L);
+
+        // when
+        Connection readWrite = routingDataSource.getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection readOnly = routingDataSource.getConnection();
+
+        // then
+        assertThat(readWrite).isSameAs(primaryConnection);
+        assertThat(readOnly).isSameAs(replicaConnection);
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary while the replica lags too far behind or cannot be reached")
+    void laggingReplica_shouldFallBackToPrimary() throws SQLException {
+        // given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when / then
+        assertThat(routingDataSource.getConnection()).as("before the first measurement").isSameAs(primaryConnection);
+        lagIs(MAX_LAG_MS + 1);
+        assertThat(routingDataSource.getConnection()).as("lagging").isSameAs(primaryConnection);
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenThrow(new DataAccessResourceFailureException("down"));
+        lagMonitor.measureLag();
+        assertThat(routingDataSource.getConnection()).as("unreachable").isSameAs(primaryConnection);
+    }
+
+    @Test
+    @DisplayName("Reads pinned to the primary skip a usable replica")
+    void onPrimary_shouldSkipReplica() throws SQLException {
+        // given
+        lagIs(0L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // when
+        Connection connection = new ReadRouting(true).onPrimary(() -> {
+            try {
+                return routingDataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        assertThat(connection).isSameAs(primaryConnection);
+    }
+
+    private void lagIs(Long lagMs) {
+        when(replicaJdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(lagMs);
+        lagMonitor.measureLag();
+    }
+}
@@ -0,0 +1,83 @@
+package com.demo.bankaccounthandlingapi.unittest;
+
+import com.demo.bankaccounthandlingapi.coalescing.PendingWithdrawal;
+import com.demo.bankaccounthandlingapi.coalescing.WithdrawalCoalescer;
+import com.demo.bankaccounthandlingapi.dtos.BalanceResponse;
+import com.demo.bankaccounthandlingapi.exceptions.InsufficientFundsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WithdrawalCoalescerTest {
+
+    private static final Long ACCOUNT_ID = 100L;
+
+    @Test
+    @DisplayName("Concurrent withdrawals for one account are handed over as a single batch")
+    void concurrentWithdrawals_shouldShareOneBatch() {
+        // given
+        var coalescer = new WithdrawalCoalescer(new SimpleMeterRegistry(), true, 60_000, 4);
+        List<List<PendingWithdrawal>> batches = new CopyOnWriteArrayList<>();
+
+        // when
+        List<BalanceResponse> responses = submitConcurrently(4, () -> coalescer.submit(ACCOUNT_ID, "USD", BigDecimal.ONE, null,
+                (accountId, withdrawals) -> {
+                    batches.add(withdrawals);
+                    withdrawals.forEach(it -> it.result().complete(new BalanceResponse(it.currency(), it.amount())));
+                }));
+
+        // then: the batch filled up long before the window, so nobody waited for it
+        assertThat(batches).hasSize(1);
+        assertThat(batches.getFirst()).hasSize(4);
+        assertThat(responses).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Each caller receives the failure of its own withdrawal")
+    void rejectedWithdrawal_shouldOnlyFailItsCaller() {
+        // given
+        var coalescer = new WithdrawalCoalescer(new SimpleMeterRegistry(), true, 0, 4);
+
+        // when / then
+        assertThatThrownBy(() -> coalescer.submit(ACCOUNT_ID, "USD", BigDecimal.TEN, null, (accountId, withdrawals) ->
+                withdrawals.forEach(it -> it.result().completeExceptionally(new InsufficientFundsException(accountId, "USD")))))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    @DisplayName("Handler failure fails every withdrawal of the batch")
+    void handlerFailure_shouldFailWholeBatch() {
+        // given
+        var coalescer = new WithdrawalCoalescer(new SimpleMeterRegistry(), true, 0, 4);
+
+        // when / then
+        assertThatThrownBy(() -> coalescer.submit(ACCOUNT_ID, "USD", BigDecimal.TEN, null, (accountId, withdrawals) -> {
+            throw new IllegalStateException("database unavailable");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("database unavailable");
+    }
+
+    private static List<BalanceResponse> submitConcurrently(int tasks, Supplier<BalanceResponse> task) {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks);
+        try {
+            List<CompletableFuture<BalanceResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(CompletableFuture.supplyAsync(task, executor));
+            }
+            return futures.stream().map(CompletableFuture::join).toList();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}